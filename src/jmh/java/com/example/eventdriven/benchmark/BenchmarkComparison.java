@@ -0,0 +1,99 @@
+package com.example.eventdriven.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files and fails when a benchmark got slower.
+ * <p>
+ * Results are matched by benchmark name and parameters. A result counts as a regression when it is worse
+ * than the baseline by more than the threshold percentage: lower for throughput, higher for the time modes.
+ * Benchmarks present in only one file are listed but never fail the comparison.
+ * <p>
+ * Usage: {@code BenchmarkComparison <baseline.json> <current.json> [threshold-percent]}
+ */
+public final class BenchmarkComparison {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%-100s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-100s %14s %14.3f %9s  new%n", entry.getKey(), "-", now.score(), "-");
+                continue;
+            }
+
+            double change = (now.score() - before.score()) / before.score() * 100.0;
+            // Positive when the benchmark got worse, whichever direction is better for its mode
+            double worse = now.higherIsBetter() ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions.add(entry.getKey());
+            }
+            System.out.printf("%-100s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before.score(), now.score(),
+                    change, regressed ? "  REGRESSION" : "");
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-100s %14.3f %14s %9s  missing%n",
+                        key, baseline.get(key).score(), "-", "-"));
+
+        if (!regressions.isEmpty()) {
+            System.out.printf("%n%d benchmark(s) regressed by more than %.1f%%%n", regressions.size(), threshold);
+            System.exit(1);
+        }
+        System.out.printf("%nNo benchmark regressed by more than %.1f%%%n", threshold);
+    }
+
+    /**
+     * Read a JMH JSON result file, keyed by benchmark name followed by its sorted parameters
+     */
+    static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode benchmark : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(benchmark.path("benchmark").asText());
+            JsonNode params = benchmark.path("params");
+            if (params.isObject()) {
+                Map<String, String> sorted = new TreeMap<>();
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    sorted.put(field.getKey(), field.getValue().asText());
+                }
+                key.append(sorted);
+            }
+            JsonNode metric = benchmark.path("primaryMetric");
+            results.put(key.toString(), new Result(metric.path("score").asDouble(),
+                    "thrpt".equals(benchmark.path("mode").asText())));
+        }
+        return results;
+    }
+
+    record Result(double score, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.eventdriven.benchmark;
+
+import com.example.eventdriven.config.RabbitMQConfig;
+import com.example.eventdriven.config.SmileMessageConverter;
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.example.eventdriven.model.event.OrderStatusChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting order events to and from AMQP messages with the converter configured in
+ * {@code RabbitMQConfig}, in each {@code format} it writes, for an order created event with
+ * {@code items} items and a status change. The size of each message is printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSerializationBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int items;
+
+    @Param({MessageProperties.CONTENT_TYPE_JSON, SmileMessageConverter.CONTENT_TYPE})
+    public String format;
+
+    private MessageConverter messageConverter;
+    private OrderCreatedEvent orderCreated;
+    private OrderStatusChangedEvent statusChanged;
+    private Message orderCreatedMessage;
+    private Message statusChangedMessage;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        RabbitMQConfig config = new RabbitMQConfig();
+        messageConverter = config.messageConverter(config.jsonMessageConverter(objectMapper),
+                config.smileMessageConverter(objectMapper));
+
+        List<OrderCreatedEvent.OrderItemDto> itemDtos = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            itemDtos.add(new OrderCreatedEvent.OrderItemDto("product-" + i, "Product " + i, 2, new BigDecimal("19.99")));
+        }
+        orderCreated = new OrderCreatedEvent("0190a6e2-7c3b-7d4e-8f01-23456789abcd", "customer-123",
+                OrderStatus.CREATED, LocalDateTime.now(), new BigDecimal("39.98").multiply(BigDecimal.valueOf(items)),
+                "123 Test Street, Test City", itemDtos);
+        statusChanged = new OrderStatusChangedEvent("0190a6e2-7c3b-7d4e-8f01-23456789abcd",
+                OrderStatus.CREATED, OrderStatus.PAID);
+
+        orderCreatedMessage = messageConverter.toMessage(orderCreated, properties());
+        statusChangedMessage = messageConverter.toMessage(statusChanged, properties());
+        System.out.printf("%n%s, %d items: OrderCreatedEvent %d bytes, OrderStatusChangedEvent %d bytes%n", format,
+                items, orderCreatedMessage.getBody().length, statusChangedMessage.getBody().length);
+    }
+
+    @Benchmark
+    public Message serializeOrderCreated() {
+        return messageConverter.toMessage(orderCreated, properties());
+    }
+
+    @Benchmark
+    public Object deserializeOrderCreated() {
+        return messageConverter.fromMessage(orderCreatedMessage);
+    }
+
+    @Benchmark
+    public Message serializeStatusChanged() {
+        return messageConverter.toMessage(statusChanged, properties());
+    }
+
+    @Benchmark
+    public Object deserializeStatusChanged() {
+        return messageConverter.fromMessage(statusChangedMessage);
+    }
+
+    private MessageProperties properties() {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(format);
+        return properties;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.eventdriven.benchmark;
+
+import com.example.eventdriven.model.RandomUuidIdGenerator;
+import com.example.eventdriven.model.UuidV7IdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of generating one entity identifier under each strategy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private final RandomUuidIdGenerator randomUuid = new RandomUuidIdGenerator();
+    private final UuidV7IdGenerator uuidV7 = new UuidV7IdGenerator();
+
+    @Benchmark
+    public UUID randomUuid() {
+        return randomUuid.generate();
+    }
+
+    @Benchmark
+    public UUID uuidV7() {
+        return uuidV7.generate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID uuidV7Contended() {
+        return uuidV7.generate();
+    }
+}
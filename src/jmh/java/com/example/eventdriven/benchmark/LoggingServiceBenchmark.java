@@ -0,0 +1,107 @@
+package com.example.eventdriven.benchmark;
+
+import com.example.eventdriven.logging.LogSampler;
+import com.example.eventdriven.logging.LoggingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Caller-side latency of one centralized log call while the broker takes
+ * {@code brokerLatencyMicros} per publish.
+ * <p>
+ * {@code logInfo} is the buffered path requests now take; {@code logInfoAndPublish} also publishes
+ * the entry on the calling thread, which is what every request paid before. Entries the buffered
+ * path had to drop because the broker could not keep up are printed after each iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingServiceBenchmark {
+
+    @Param({"0", "1000"})
+    public long brokerLatencyMicros;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoggingService loggingService;
+
+    @Setup(Level.Trial)
+    public void startLoggingService() throws ReflectiveOperationException {
+        meterRegistry = new SimpleMeterRegistry();
+        loggingService = new LoggingService(new SlowBroker(TimeUnit.MICROSECONDS.toNanos(brokerLatencyMicros)),
+                new ObjectMapper(), meterRegistry,
+                new LogSampler(meterRegistry, 1.0, 1.0, "", 0, 100, Duration.ofSeconds(1)), "benchmark", 8192, 256, Duration.ofMillis(50),
+                LoggingService.OverflowPolicy.DROP, Duration.ofMillis(10));
+        Field loggingExchange = LoggingService.class.getDeclaredField("loggingExchange");
+        loggingExchange.setAccessible(true);
+        loggingExchange.set(loggingService, "service.logging");
+        loggingService.start();
+    }
+
+    @Benchmark
+    public void logInfo() {
+        loggingService.logInfo("HTTP Request", requestData());
+    }
+
+    @Benchmark
+    public void logInfoAndPublish() {
+        loggingService.logInfo("HTTP Request", requestData());
+        loggingService.flush();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportDrops() {
+        System.out.printf("%nDropped so far: %.0f log entries%n",
+                meterRegistry.counter("logging.shipper.dropped", "reason", "overflow").count());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopLoggingService() {
+        loggingService.stop();
+    }
+
+    private Map<String, Object> requestData() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("method", "GET");
+        data.put("uri", "/api/orders/123");
+        return data;
+    }
+
+    /**
+     * Template whose publishes take a fixed time and go nowhere
+     */
+    static class SlowBroker extends RabbitTemplate {
+
+        private final long latencyNanos;
+
+        SlowBroker(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public <T> T invoke(OperationsCallback<T> action,
+                            com.rabbitmq.client.ConfirmCallback acks,
+                            com.rabbitmq.client.ConfirmCallback nacks) {
+            return action.doInRabbit(this);
+        }
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object message) throws AmqpException {
+            if (latencyNanos > 0) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+        }
+    }
+}
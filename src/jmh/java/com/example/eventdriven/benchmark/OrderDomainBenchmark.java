@@ -0,0 +1,123 @@
+package com.example.eventdriven.benchmark;
+
+import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderItem;
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.OrderStatusTransitions;
+import com.example.eventdriven.model.OrderWorkflows;
+import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.example.eventdriven.repository.OrderRepository;
+import com.example.eventdriven.repository.OutboxMessageRepository;
+import com.example.eventdriven.service.MessageService;
+import com.example.eventdriven.service.OrderCache;
+import com.example.eventdriven.service.OrderServiceImpl;
+import com.example.eventdriven.service.OutboxService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of the order domain operations on the write path, without a database.
+ * <p>
+ * {@code addItems} builds an order of {@code items} items one {@code addItem} at a time, each of which
+ * updates the total. {@code createOrder} runs {@link OrderServiceImpl#createOrder} with repositories
+ * that only hand back what they are given, so it covers mapping the command to an order and serializing
+ * the outbox event. {@code statusTransitions} checks every pair of statuses against the workflow the
+ * service uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderDomainBenchmark {
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    @Param({"1", "100", "10000"})
+    public int items;
+
+    private List<OrderItem> orderItems;
+    private CreateOrderCommand command;
+    private OrderServiceImpl orderService;
+    private OrderStatusTransitions transitions;
+
+    @Setup
+    public void setUp() {
+        List<CreateOrderCommand.OrderItemDto> itemDtos = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            itemDtos.add(new CreateOrderCommand.OrderItemDto("product-" + i, "Product " + i, 1 + i % 3,
+                    new BigDecimal("19.99")));
+        }
+        command = new CreateOrderCommand("customer-123", "123 Test Street, Test City", itemDtos);
+        orderItems = itemDtos.stream()
+                .map(dto -> new OrderItem(dto.getProductId(), dto.getProductName(), dto.getQuantity(), dto.getPrice()))
+                .toList();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        OrderWorkflows workflows = OrderWorkflows.standard();
+        transitions = workflows.getDefault();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderCache orderCache = new OrderCache(new MessageService(new RabbitTemplate(), meterRegistry, 1,
+                Duration.ofSeconds(1), Duration.ofSeconds(1)), meterRegistry, 0, Duration.ofMinutes(1), 1);
+        orderService = new OrderServiceImpl(echoing(OrderRepository.class),
+                new OutboxService(echoing(OutboxMessageRepository.class), objectMapper),
+                orderCache, echoing(EntityManager.class), workflows, meterRegistry, 3);
+    }
+
+    @Benchmark
+    public Order addItems() {
+        Order order = new Order("customer-123", "123 Test Street, Test City");
+        for (OrderItem item : orderItems) {
+            // Items belong to one order at a time, so the same ones can be added again
+            order.addItem(item);
+        }
+        return order;
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return orderService.createOrder(command);
+    }
+
+    @Benchmark
+    public int statusTransitions() {
+        int valid = 0;
+        for (OrderStatus from : STATUSES) {
+            for (OrderStatus to : STATUSES) {
+                if (transitions.allows(from, to)) {
+                    valid++;
+                }
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Stand-in whose save methods return their argument and whose other methods do nothing
+     */
+    private static <T> T echoing(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "save", "saveAll" -> args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> type.getSimpleName();
+                    default -> null;
+                }));
+    }
+}
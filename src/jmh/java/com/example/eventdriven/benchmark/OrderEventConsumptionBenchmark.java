@@ -0,0 +1,143 @@
+package com.example.eventdriven.benchmark;
+
+import com.example.eventdriven.listener.ConsumerMetrics;
+import com.example.eventdriven.listener.OrderEventBatchListener;
+import com.example.eventdriven.listener.OrderEventListener;
+import com.example.eventdriven.listener.OrderEventProcessor;
+import com.example.eventdriven.listener.ProcessedMessageRegistry;
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Consumer-side throughput of order events, in messages per second, for the per-message
+ * listener (prefetch 1, one ack per message) and the batch listener (one multiple-ack per batch).
+ * <p>
+ * There is no broker: the channel parks for {@code ackRoundTripMicros} on every ack or reject,
+ * standing in for the broker round trip that gates the next delivery when only one message
+ * may be unacknowledged. At a round trip of 1000us the per-message listener stays below 1k msg/s
+ * and at 100us below 10k msg/s; the batch listener pays it once per {@code batchSize} messages.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderEventConsumptionBenchmark {
+
+    private static final int MESSAGES = 500;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    @Param({"100", "1000"})
+    private long ackRoundTripMicros;
+
+    private Jackson2JsonMessageConverter messageConverter;
+    private OrderEventListener listener;
+    private OrderEventBatchListener batchListener;
+    private Channel channel;
+    private List<List<Message>> batches;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        messageConverter = new Jackson2JsonMessageConverter(objectMapper, OrderCreatedEvent.class.getPackageName());
+
+        OrderEventProcessor processor = new OrderEventProcessor(Duration.ZERO);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConsumerMetrics consumerMetrics = new ConsumerMetrics(meterRegistry);
+        ProcessedMessageRegistry processedMessages = new ProcessedMessageRegistry(meterRegistry,
+                Duration.ofMinutes(5), 20_000, Duration.ofHours(1), 6, 100_000, 0.000001);
+        listener = new OrderEventListener(processor, consumerMetrics, processedMessages);
+        batchListener = new OrderEventBatchListener(processor, messageConverter, consumerMetrics, processedMessages);
+        channel = roundTripChannel(TimeUnit.MICROSECONDS.toNanos(ackRoundTripMicros));
+
+        batches = new ArrayList<>();
+        List<Message> batch = new ArrayList<>(batchSize);
+        for (int i = 1; i <= MESSAGES; i++) {
+            batch.add(toMessage(i));
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void consume() throws IOException {
+        if (batchSize == 1) {
+            for (List<Message> single : batches) {
+                Message message = single.get(0);
+                listener.handleOrderCreatedEvent((OrderCreatedEvent) messageConverter.fromMessage(message),
+                        channel, message.getMessageProperties().getDeliveryTag(),
+                        message.getMessageProperties().getMessageId());
+            }
+        } else {
+            for (List<Message> batch : batches) {
+                batchListener.handleOrderEvents(batch, channel);
+            }
+        }
+    }
+
+    private Message toMessage(long deliveryTag) {
+        OrderCreatedEvent event = new OrderCreatedEvent(
+                "order-" + deliveryTag,
+                "customer-123",
+                OrderStatus.CREATED,
+                LocalDateTime.now(),
+                new BigDecimal("20.00"),
+                "123 Test Street, Test City",
+                List.of(new OrderCreatedEvent.OrderItemDto("product-1", "Product 1", 2, new BigDecimal("10.00"))));
+        Message message = messageConverter.toMessage(event, new MessageProperties());
+        message.getMessageProperties().setDeliveryTag(deliveryTag);
+        return message;
+    }
+
+    private static Channel roundTripChannel(long roundTripNanos) {
+        return (Channel) Proxy.newProxyInstance(
+                Channel.class.getClassLoader(),
+                new Class<?>[]{Channel.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "basicAck", "basicReject", "basicNack" -> LockSupport.parkNanos(roundTripNanos);
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "toString" -> {
+                            return "RoundTripChannel";
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }
+                    return null;
+                });
+    }
+}
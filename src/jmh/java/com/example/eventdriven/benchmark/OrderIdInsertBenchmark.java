@@ -0,0 +1,126 @@
+package com.example.eventdriven.benchmark;
+
+import com.example.eventdriven.model.IdGenerator;
+import com.example.eventdriven.model.RandomUuidIdGenerator;
+import com.example.eventdriven.model.UuidV7IdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares insert throughput and storage size of the orders table under the previous
+ * key scheme (random UUID strings in a VARCHAR column) and the current one
+ * (time-ordered UUIDs in a native UUID column).
+ * <p>
+ * Every iteration bulk-loads {@code rows} orders into a fresh file-based H2 database using
+ * JDBC batches, then prints the space used by the table and its primary key index.
+ * The full-size comparison is {@code -p rows=10000000}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderIdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final BigDecimal AMOUNT = new BigDecimal("35.50");
+
+    public enum IdScheme {
+        RANDOM_UUID_STRING("varchar(36)", new RandomUuidIdGenerator()) {
+            @Override
+            Object nextKey() {
+                return generator.generate().toString();
+            }
+        },
+        UUID_V7_NATIVE("uuid", new UuidV7IdGenerator()) {
+            @Override
+            Object nextKey() {
+                return generator.generate();
+            }
+        };
+
+        final String columnType;
+        final IdGenerator generator;
+
+        IdScheme(String columnType, IdGenerator generator) {
+            this.columnType = columnType;
+            this.generator = generator;
+        }
+
+        abstract Object nextKey();
+    }
+
+    @Param({"RANDOM_UUID_STRING", "UUID_V7_NATIVE"})
+    public IdScheme scheme;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private Path directory;
+    private Connection connection;
+
+    @Setup(Level.Iteration)
+    public void createDatabase() throws Exception {
+        directory = Files.createTempDirectory("order-id-benchmark");
+        connection = DriverManager.getConnection("jdbc:h2:" + directory.resolve("orders"), "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table orders ("
+                    + "id " + scheme.columnType + " not null primary key, "
+                    + "customer_id varchar(255) not null, "
+                    + "status varchar(255) not null, "
+                    + "created_at timestamp(6) not null, "
+                    + "total_amount numeric(10,2) not null)");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @Benchmark
+    public void insertOrders() throws SQLException {
+        Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into orders (id, customer_id, status, created_at, total_amount) values (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setObject(1, scheme.nextKey());
+                insert.setString(2, "customer-" + (i % 10_000));
+                insert.setString(3, "CREATED");
+                insert.setTimestamp(4, createdAt);
+                insert.setBigDecimal(5, AMOUNT);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportStorageAndDropDatabase() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("call disk_space_used('ORDERS')")) {
+            result.next();
+            long bytes = result.getLong(1);
+            System.out.printf("%n%s: %,d rows, %,d bytes for table and primary key (%.1f bytes/row)%n",
+                    scheme, rows, bytes, (double) bytes / rows);
+        }
+        connection.close();
+        deleteRecursively(directory);
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
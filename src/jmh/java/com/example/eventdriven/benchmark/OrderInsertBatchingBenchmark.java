@@ -0,0 +1,192 @@
+package com.example.eventdriven.benchmark;
+
+import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderItem;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the cost of storing one order with {@code items} lines, comparing the previous
+ * write path (merge of an entity with an assigned ID, no JDBC batching) with the current one
+ * (persist of a new entity with ordered, batched inserts).
+ * <p>
+ * Hibernate is bootstrapped without Spring against an in-memory H2 database whose connections
+ * count every statement execution, so after each iteration the number of database round trips
+ * per order is printed alongside the timing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderInsertBatchingBenchmark {
+
+    private static final BigDecimal PRICE = new BigDecimal("9.99");
+
+    public enum WritePath {
+        MERGE_UNBATCHED(0) {
+            @Override
+            void save(Session session, Order order) {
+                session.merge(order);
+            }
+        },
+        PERSIST_BATCHED(50) {
+            @Override
+            void save(Session session, Order order) {
+                session.persist(order);
+            }
+        };
+
+        final int batchSize;
+
+        WritePath(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        abstract void save(Session session, Order order);
+    }
+
+    @Param({"MERGE_UNBATCHED", "PERSIST_BATCHED"})
+    public WritePath writePath;
+
+    @Param({"200"})
+    public int items;
+
+    private final CountingConnectionProvider connectionProvider = new CountingConnectionProvider();
+    private SessionFactory sessionFactory;
+    private long orders;
+
+    @Setup(Level.Trial)
+    public void createSessionFactory() {
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(Order.class)
+                .addAnnotatedClass(OrderItem.class)
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(writePath.batchSize))
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .setProperty(AvailableSettings.JAKARTA_VALIDATION_MODE, "none");
+        configuration.getProperties().put(AvailableSettings.CONNECTION_PROVIDER, connectionProvider);
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        connectionProvider.roundTrips.set(0);
+        orders = 0;
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        Order order = new Order("customer-1", "123 Benchmark Street");
+        for (int i = 0; i < items; i++) {
+            order.addItem(new OrderItem("product-" + i, "Product " + i, 1, PRICE));
+        }
+        sessionFactory.inTransaction(session -> writePath.save(session, order));
+        orders++;
+        return order;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportStatements() {
+        System.out.printf("%n%s: %.1f database round trips per order of %d items%n",
+                writePath, (double) connectionProvider.roundTrips.get() / orders, items);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeSessionFactory() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Hands out H2 connections whose statements count every execute call,
+     * where a JDBC batch counts as a single round trip.
+     */
+    static class CountingConnectionProvider implements ConnectionProvider {
+
+        private static final String URL = "jdbc:h2:mem:batching;DB_CLOSE_DELAY=-1";
+
+        final AtomicLong roundTrips = new AtomicLong();
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = DriverManager.getConnection(URL, "sa", "");
+            return proxy(Connection.class, (target, method, args) -> {
+                Object result = invoke(connection, method, args);
+                return result instanceof Statement statement
+                        ? proxy(statementInterface(statement), countingExecutions(statement))
+                        : result;
+            });
+        }
+
+        private InvocationHandler countingExecutions(Statement statement) {
+            return (target, method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    roundTrips.incrementAndGet();
+                }
+                return invoke(statement, method, args);
+            };
+        }
+
+        private static Class<? extends Statement> statementInterface(Statement statement) {
+            if (statement instanceof CallableStatement) {
+                return CallableStatement.class;
+            }
+            return statement instanceof PreparedStatement
+                    ? PreparedStatement.class
+                    : Statement.class;
+        }
+
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(
+                    CountingConnectionProvider.class.getClassLoader(), new Class<?>[]{type}, handler));
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args)
+                throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public void closeConnection(Connection connection) throws SQLException {
+            connection.close();
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        @Override
+        public boolean isUnwrappableAs(Class<?> unwrapType) {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> unwrapType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.eventdriven.benchmark;
+
+import com.example.eventdriven.filter.RequestLoggingFilter;
+import com.example.eventdriven.logging.LogSampler;
+import com.example.eventdriven.logging.LoggingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the request logging filter around a request that posts and returns a small JSON body.
+ * <p>
+ * {@code chainOnly} runs the same request without the filter, so the difference is what the
+ * filter adds. Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the bytes
+ * allocated per request, with body logging off and on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestLoggingFilterBenchmark {
+
+    private static final byte[] REQUEST_BODY =
+            "{\"customerId\":\"customer-123\",\"shippingAddress\":\"123 Test Street, Test City\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+    private static final String RESPONSE_BODY = "{\"id\":\"order-123\",\"status\":\"CREATED\"}";
+
+    @Param({"false", "true"})
+    public boolean includeBody;
+
+    private RequestLoggingFilter filter;
+    private FilterChain controller;
+
+    @Setup(Level.Trial)
+    public void createFilter(Blackhole blackhole) {
+        filter = new RequestLoggingFilter(new DiscardingLoggingService(blackhole), includeBody, 1024);
+        controller = (request, response) -> {
+            blackhole.consume(request.getInputStream().readAllBytes());
+            response.getWriter().write(RESPONSE_BODY);
+        };
+    }
+
+    @Benchmark
+    public MockHttpServletResponse chainOnly() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.doFilter(request(), response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filter() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(), response, controller);
+        return response;
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setContentType("application/json");
+        request.setContent(REQUEST_BODY);
+        return request;
+    }
+
+    /**
+     * Logging service that hands each entry to the blackhole instead of buffering it, so the
+     * measurement covers only what the filter allocates
+     */
+    static class DiscardingLoggingService extends LoggingService {
+
+        private final Blackhole blackhole;
+
+        DiscardingLoggingService(Blackhole blackhole) {
+            super(new RabbitTemplate(), new ObjectMapper(), new SimpleMeterRegistry(),
+                    new LogSampler(new SimpleMeterRegistry(), 1.0, 1.0, "", 0, 100, Duration.ofSeconds(1)), "benchmark", 2, 1,
+                    Duration.ofMillis(50), OverflowPolicy.DROP, Duration.ZERO);
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void logHttpExchange(String route, int status, long durationMillis,
+                                    Map<String, Object> requestData, Map<String, Object> responseData) {
+            blackhole.consume(requestData);
+            blackhole.consume(responseData);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.eventdriven.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves {@code clients} simultaneous requests that each block on {@code downstreamMillis} of
+ * downstream I/O, and reports the time to serve them all; the p99 request latency of each
+ * iteration is printed after it.
+ * <p>
+ * {@code PLATFORM} uses a pool the size of Tomcat's default 200 worker threads, {@code VIRTUAL} a
+ * virtual thread per request. {@code VIRTUAL_PINNED} blocks inside a synchronized block, as some
+ * JDBC and AMQP client code does, which pins each virtual thread to one of the few carrier threads;
+ * it is slow with many clients, so run it explicitly with {@code -p mode=VIRTUAL_PINNED}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadConcurrencyBenchmark {
+
+    public enum ExecutionMode {
+        PLATFORM, VIRTUAL, VIRTUAL_PINNED
+    }
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ExecutionMode mode;
+
+    @Param({"5000"})
+    public int clients;
+
+    @Param({"10"})
+    public int downstreamMillis;
+
+    private ExecutorService executor;
+    private long[] latencies;
+    private Object[] locks;
+    private long worstP99;
+
+    @Setup(Level.Trial)
+    public void createExecutor() {
+        executor = mode == ExecutionMode.PLATFORM
+                ? Executors.newFixedThreadPool(200)
+                : Executors.newVirtualThreadPerTaskExecutor();
+        latencies = new long[clients];
+        locks = new Object[clients];
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLatencies() {
+        worstP99 = 0;
+    }
+
+    @Benchmark
+    public void serveClients() throws Exception {
+        long start = System.nanoTime();
+        Future<?>[] requests = new Future<?>[clients];
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            requests[i] = executor.submit(() -> {
+                handleRequest(client);
+                latencies[client] = System.nanoTime() - start;
+            });
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        worstP99 = Math.max(worstP99, sorted[(int) Math.ceil(clients * 0.99) - 1]);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportLatency() {
+        System.out.printf("%n%s: p99 request latency %d ms with %d concurrent clients%n",
+                mode, TimeUnit.NANOSECONDS.toMillis(worstP99), clients);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeExecutor() {
+        executor.shutdownNow();
+    }
+
+    private void handleRequest(int client) {
+        if (mode == ExecutionMode.VIRTUAL_PINNED) {
+            // One uncontended lock per client: the cost measured is pinning, not contention
+            synchronized (locks[client]) {
+                blockOnDownstream();
+            }
+        } else {
+            blockOnDownstream();
+        }
+    }
+
+    private void blockOnDownstream() {
+        try {
+            Thread.sleep(downstreamMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
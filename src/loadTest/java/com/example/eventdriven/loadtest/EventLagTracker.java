@@ -0,0 +1,140 @@
+package com.example.eventdriven.loadtest;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.example.eventdriven.model.event.OrderStatusChangedEvent;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how long order events take to be consumed.
+ * <p>
+ * The event lag runs from sending the request that changes an order until the listener acknowledges the
+ * event announcing that change, so it covers the request, the outbox relay and the consumer backlog.
+ * The delivery lag covers only the last part, from publishing the event until it is acknowledged.
+ * Changes are only tracked while recording, so events of warm-up requests are ignored. The ID of a new
+ * order is only known once its request returns, so an event may be consumed before its change is noted;
+ * whichever of the two comes second records the lag.
+ */
+public class EventLagTracker {
+
+    private final MessageConverter messageConverter;
+    private final ConcurrentHashMap<String, Mark> marks = new ConcurrentHashMap<>();
+    private final Recorder eventLag = new Recorder(3);
+    private final Recorder deliveryLag = new Recorder(3);
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile boolean recording;
+
+    public EventLagTracker(MessageConverter messageConverter) {
+        this.messageConverter = messageConverter;
+    }
+
+    /**
+     * Discard everything seen so far and start tracking changes
+     */
+    public void startRecording() {
+        marks.clear();
+        eventLag.reset();
+        deliveryLag.reset();
+        rejected.reset();
+        recording = true;
+    }
+
+    /**
+     * Note a request that moved an order to a status
+     *
+     * @param orderId the order ID
+     * @param status the status the order now has
+     * @param sentNanos when the request was sent, in {@link System#nanoTime()} units
+     */
+    public void changed(String orderId, OrderStatus status, long sentNanos) {
+        if (recording) {
+            match(key(orderId, status), new Mark(sentNanos, false));
+        }
+    }
+
+    /**
+     * Record a message handled by a listener
+     *
+     * @param delivery the delivery
+     */
+    public void delivered(LoopbackRabbitTemplate.Delivery delivery) {
+        if (!recording) {
+            return;
+        }
+        if (!delivery.acknowledged()) {
+            rejected.increment();
+            return;
+        }
+        deliveryLag.recordValue(micros(delivery.handledNanos() - delivery.publishedNanos()));
+
+        String key = switch (messageConverter.fromMessage(delivery.message())) {
+            case OrderCreatedEvent created -> key(created.getOrderId(), OrderStatus.CREATED);
+            case OrderStatusChangedEvent changed -> key(changed.getOrderId(), changed.getNewStatus());
+            default -> null;
+        };
+        if (key != null) {
+            match(key, new Mark(delivery.handledNanos(), true));
+        }
+    }
+
+    /**
+     * @return tracked changes whose event has not been consumed yet
+     */
+    public long getUnconsumed() {
+        return marks.values().stream().filter(mark -> !mark.consumed()).count();
+    }
+
+    /**
+     * @return messages rejected by a listener while recording
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the event lags recorded since the last call, in microseconds
+     */
+    public Histogram takeEventLag() {
+        return eventLag.getIntervalHistogram();
+    }
+
+    /**
+     * @return the delivery lags of acknowledged messages recorded since the last call, in microseconds
+     */
+    public Histogram takeDeliveryLag() {
+        return deliveryLag.getIntervalHistogram();
+    }
+
+    private void match(String key, Mark mark) {
+        marks.compute(key, (k, other) -> {
+            if (other == null || other.consumed() == mark.consumed()) {
+                return mark;
+            }
+            long sentNanos = mark.consumed() ? other.nanos() : mark.nanos();
+            long consumedNanos = mark.consumed() ? mark.nanos() : other.nanos();
+            eventLag.recordValue(micros(consumedNanos - sentNanos));
+            return null;
+        });
+    }
+
+    private static String key(String orderId, OrderStatus status) {
+        return orderId + ':' + status;
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * One side of a change: the request being sent or its event being consumed
+     */
+    private record Mark(long nanos, boolean consumed) {
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.eventdriven.loadtest;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.OrderStatusTransitions;
+import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.example.eventdriven.model.command.UpdateOrderStatusCommand;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a weighted mix of order API calls from concurrent clients and records their latency.
+ * <p>
+ * Without a rate each client sends its next request as soon as the previous one returns. With a rate,
+ * requests are scheduled at fixed intervals across all clients and their latency is measured from the time
+ * they were due, so a slow response also counts against the requests queued up behind it.
+ * Orders created by the run are reused: gets pick a recently created order, and status changes and
+ * cancellations take an open order so no two clients change the same order at once. Operations that have
+ * no order to work on yet create one instead.
+ */
+public class LoadDriver {
+
+    private static final int RECENT_ORDERS = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final String ordersUri;
+    private final ObjectMapper objectMapper;
+    private final LoadTestSettings settings;
+    private final EventLagTracker eventLagTracker;
+    private final OrderStatusTransitions transitions;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final AtomicReferenceArray<String> recentOrders = new AtomicReferenceArray<>(RECENT_ORDERS);
+    private final AtomicLong createdOrders = new AtomicLong();
+    private final ConcurrentLinkedQueue<OpenOrder> openOrders = new ConcurrentLinkedQueue<>();
+
+    public LoadDriver(int port, ObjectMapper objectMapper, LoadTestSettings settings, EventLagTracker eventLagTracker,
+                      OrderStatusTransitions transitions) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.ordersUri = "http://localhost:" + port + "/api/orders";
+        this.objectMapper = objectMapper;
+        this.settings = settings;
+        this.eventLagTracker = eventLagTracker;
+        this.transitions = transitions;
+
+        List<Operation> weighted = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            int weight = settings.mix().getOrDefault(operation, 0);
+            if (weight > 0) {
+                total += weight;
+                weighted.add(operation);
+                cumulative.add(total);
+            }
+        }
+        this.operations = weighted.toArray(Operation[]::new);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Send requests for the warm-up period, then for the measured duration
+     *
+     * @return what was measured after the warm-up
+     */
+    public Measurement run() {
+        runPhase(settings.warmup());
+
+        latencies.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+        eventLagTracker.startRecording();
+
+        long startNanos = System.nanoTime();
+        runPhase(settings.duration());
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        Map<Operation, Histogram> measuredLatencies = new EnumMap<>(Operation.class);
+        Map<Operation, Long> measuredErrors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            measuredLatencies.put(operation, latencies.get(operation).getIntervalHistogram());
+            measuredErrors.put(operation, errors.get(operation).sum());
+        }
+        return new Measurement(elapsedNanos, measuredLatencies, measuredErrors);
+    }
+
+    private void runPhase(Duration duration) {
+        long phaseStartNanos = System.nanoTime();
+        long deadlineNanos = phaseStartNanos + duration.toNanos();
+        AtomicLong scheduled = new AtomicLong();
+        double intervalNanos = settings.rate() > 0 ? TimeUnit.SECONDS.toNanos(1) / (double) settings.rate() : 0;
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                clients.execute(() -> {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        long dueNanos = intervalNanos > 0
+                                ? phaseStartNanos + (long) (scheduled.getAndIncrement() * intervalNanos)
+                                : System.nanoTime();
+                        if (dueNanos - deadlineNanos >= 0) {
+                            return;
+                        }
+                        parkUntil(dueNanos);
+                        execute(pickOperation(), dueNanos);
+                    }
+                });
+            }
+        }
+    }
+
+    private void execute(Operation operation, long startNanos) {
+        try {
+            switch (operation) {
+                case CREATE -> create(startNanos);
+                case GET -> get(startNanos);
+                case LIST -> list(startNanos);
+                case STATUS -> advance(openOrders.poll(), startNanos);
+                case CANCEL -> cancel(openOrders.poll(), startNanos);
+            }
+        } catch (IOException e) {
+            errors.get(operation).increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void create(long startNanos) throws IOException, InterruptedException {
+        List<CreateOrderCommand.OrderItemDto> items = new ArrayList<>(settings.items());
+        for (int i = 0; i < settings.items(); i++) {
+            int product = ThreadLocalRandom.current().nextInt(1000);
+            items.add(new CreateOrderCommand.OrderItemDto("product-" + product, "Product " + product,
+                    1 + product % 3, new BigDecimal("19.99")));
+        }
+        CreateOrderCommand command = new CreateOrderCommand(randomCustomer(), "123 Load Test Street", items);
+
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(ordersUri))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(command))));
+        if (record(Operation.CREATE, startNanos, response)) {
+            String orderId = objectMapper.readTree(response.body()).path("id").asText();
+            recentOrders.set((int) (createdOrders.getAndIncrement() % RECENT_ORDERS), orderId);
+            openOrders.offer(new OpenOrder(orderId, OrderStatus.CREATED));
+            eventLagTracker.changed(orderId, OrderStatus.CREATED, startNanos);
+        }
+    }
+
+    private void get(long startNanos) throws IOException, InterruptedException {
+        long created = createdOrders.get();
+        if (created == 0) {
+            create(startNanos);
+            return;
+        }
+        String orderId = recentOrders.get(ThreadLocalRandom.current().nextInt((int) Math.min(created, RECENT_ORDERS)));
+        if (orderId == null) {
+            create(startNanos);
+            return;
+        }
+        record(Operation.GET, startNanos, send(HttpRequest.newBuilder(URI.create(ordersUri + "/" + orderId)).GET()));
+    }
+
+    private void list(long startNanos) throws IOException, InterruptedException {
+        URI uri = URI.create(ordersUri + "/customer/" + randomCustomer() + "?limit=" + PAGE_SIZE);
+        record(Operation.LIST, startNanos, send(HttpRequest.newBuilder(uri).GET()));
+    }
+
+    private void advance(OpenOrder order, long startNanos) throws IOException, InterruptedException {
+        if (order == null) {
+            create(startNanos);
+            return;
+        }
+        OrderStatus next = nextStatus(order.status());
+        UpdateOrderStatusCommand command = new UpdateOrderStatusCommand(order.orderId(), next);
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(ordersUri + "/" + order.orderId() + "/status"))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(command))));
+        if (record(Operation.STATUS, startNanos, response)) {
+            eventLagTracker.changed(order.orderId(), next, startNanos);
+            if (nextStatus(next) != null) {
+                openOrders.offer(new OpenOrder(order.orderId(), next));
+            }
+        }
+    }
+
+    private void cancel(OpenOrder order, long startNanos) throws IOException, InterruptedException {
+        if (order == null || !transitions.canCancel(order.status())) {
+            advance(order, startNanos);
+            return;
+        }
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(ordersUri + "/" + order.orderId() + "/cancel"))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+        if (record(Operation.CANCEL, startNanos, response)) {
+            eventLagTracker.changed(order.orderId(), OrderStatus.CANCELLED, startNanos);
+        }
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private boolean record(Operation operation, long startNanos, HttpResponse<?> response) {
+        if (response.statusCode() / 100 != 2) {
+            errors.get(operation).increment();
+            return false;
+        }
+        latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        return true;
+    }
+
+    private Operation pickOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private String randomCustomer() {
+        return "load-customer-" + ThreadLocalRandom.current().nextInt(settings.customers());
+    }
+
+    /**
+     * @return the next status along the happy path, or null if the order is finished
+     */
+    private OrderStatus nextStatus(OrderStatus status) {
+        for (OrderStatus candidate : OrderStatus.values()) {
+            if (candidate != OrderStatus.CANCELLED && transitions.allows(status, candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static void parkUntil(long dueNanos) {
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * An order a client may change, with the status it was left in
+     */
+    private record OpenOrder(String orderId, OrderStatus status) {
+    }
+
+    /**
+     * Latencies in microseconds and error counts of each operation over the measured duration
+     */
+    public record Measurement(long elapsedNanos, Map<Operation, Histogram> latencies, Map<Operation, Long> errors) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.eventdriven.loadtest;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.rabbit.config.AbstractRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Replaces the broker for load tests: listener containers are never started, so no connection is
+ * opened, and everything published goes through {@link LoopbackRabbitTemplate} straight to the listeners.
+ */
+@Configuration
+public class LoadTestConfiguration {
+
+    @Bean
+    public static BeanPostProcessor listenerContainersWithoutAutoStartup() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractRabbitListenerContainerFactory<?> factory) {
+                    factory.setAutoStartup(false);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Drop the application's templates and let their names refer to the loopback, so it is the only
+     * template and is injected wherever either of them was, the log shipper's qualified one included
+     */
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor loopbackInsteadOfRabbitTemplates() {
+        return new BeanDefinitionRegistryPostProcessor() {
+            @Override
+            public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+                for (String name : List.of("rabbitTemplate", "loggingRabbitTemplate")) {
+                    registry.removeBeanDefinition(name);
+                    registry.registerAlias("loopbackRabbitTemplate", name);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public EventLagTracker eventLagTracker(MessageConverter jsonMessageConverter) {
+        return new EventLagTracker(jsonMessageConverter);
+    }
+
+    @Bean
+    public LoopbackRabbitTemplate loopbackRabbitTemplate(
+            ConnectionFactory connectionFactory,
+            MessageConverter jsonMessageConverter,
+            List<Binding> bindings,
+            RabbitListenerEndpointRegistry listenerRegistry,
+            EventLagTracker eventLagTracker,
+            @Value("${app.rabbitmq.listener.concurrency:1}") int consumersPerQueue) {
+        return new LoopbackRabbitTemplate(connectionFactory, jsonMessageConverter, bindings, listenerRegistry, consumersPerQueue,
+                eventLagTracker::delivered);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.eventdriven.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a load test run as written to JSON, so that later runs can be compared with it
+ *
+ * @param settings the settings that shaped the load
+ * @param seconds the measured duration
+ * @param throughput successful requests per second across all operations
+ * @param operations latency of each operation that was sent
+ * @param events what happened to the order events published during the measured duration
+ */
+public record LoadTestResult(Map<String, Object> settings, double seconds, double throughput,
+                             Map<String, Stats> operations, EventStats events) {
+
+    /**
+     * Throughput and latency percentiles, in milliseconds, of one kind of request or event
+     */
+    public record Stats(long count, long errors, double throughput, double p50Ms, double p99Ms, double p999Ms,
+                        double maxMs) {
+
+        static Stats of(Histogram micros, long errors, double seconds) {
+            return new Stats(micros.getTotalCount(), errors, micros.getTotalCount() / seconds,
+                    millis(micros.getValueAtPercentile(50)), millis(micros.getValueAtPercentile(99)),
+                    millis(micros.getValueAtPercentile(99.9)), millis(micros.getMaxValue()));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+
+    /**
+     * @param consumed messages acknowledged by a listener, including cache invalidations
+     * @param rejected messages rejected by a listener
+     * @param unconsumed changes whose event was still not consumed when the run ended
+     * @param lag from sending the request that changed an order until its event was acknowledged
+     * @param deliveryLag from publishing a message until it was acknowledged
+     */
+    public record EventStats(long consumed, long rejected, long unconsumed, Stats lag, Stats deliveryLag) {
+    }
+
+    /**
+     * Summarize a run
+     *
+     * @param settings the settings of the run
+     * @param measurement what the driver measured
+     * @param eventLagTracker the tracker that saw the events
+     * @return the result
+     */
+    public static LoadTestResult of(LoadTestSettings settings, LoadDriver.Measurement measurement,
+                                    EventLagTracker eventLagTracker) {
+        double seconds = measurement.elapsedNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        Map<String, Stats> operations = new LinkedHashMap<>();
+        long requests = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram latency = measurement.latencies().get(operation);
+            long errors = measurement.errors().get(operation);
+            if (latency.getTotalCount() > 0 || errors > 0) {
+                operations.put(operation.getKey(), Stats.of(latency, errors, seconds));
+                requests += latency.getTotalCount();
+            }
+        }
+
+        Stats deliveryLag = Stats.of(eventLagTracker.takeDeliveryLag(), 0, seconds);
+        EventStats events = new EventStats(deliveryLag.count(), eventLagTracker.getRejected(),
+                eventLagTracker.getUnconsumed(), Stats.of(eventLagTracker.takeEventLag(), 0, seconds), deliveryLag);
+        return new LoadTestResult(settings.describe(), seconds, requests / seconds, operations, events);
+    }
+
+    /**
+     * Print the result as a table
+     *
+     * @param out where to print it
+     */
+    public void print(PrintStream out) {
+        out.printf("%nMeasured %.1fs at %.1f requests/s with %s%n%n", seconds, throughput, settings);
+        out.printf("%-22s %9s %7s %10s %10s %10s %10s %10s%n",
+                "", "count", "errors", "per sec", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        operations.forEach((operation, stats) -> printRow(out, operation, stats));
+        printRow(out, "event lag", events.lag());
+        printRow(out, "delivery lag", events.deliveryLag());
+        out.printf("%nMessages consumed: %d, rejected: %d; changes whose event was not consumed in time: %d%n",
+                events.consumed(), events.rejected(), events.unconsumed());
+    }
+
+    /**
+     * Compare the total throughput and the p99 latencies with an earlier run
+     *
+     * @param baseline the earlier run
+     * @param threshold the percentage by which a figure may get worse
+     * @param out where to print the comparison
+     * @return the number of figures that got worse by more than the threshold
+     */
+    public int compareWith(LoadTestResult baseline, double threshold, PrintStream out) {
+        out.printf("%nCompared with baseline (threshold %.1f%%)%n", threshold);
+        out.printf("%-30s %12s %12s %9s%n", "", "baseline", "current", "change");
+        // Per operation rates follow the total through the mix, so only the total is compared
+        int regressions = compare(out, "requests per sec", baseline.throughput(), throughput, true, threshold);
+        for (Map.Entry<String, Stats> entry : operations.entrySet()) {
+            Stats before = baseline.operations().get(entry.getKey());
+            if (before != null) {
+                regressions += compare(out, entry.getKey() + " p99 ms", before.p99Ms(),
+                        entry.getValue().p99Ms(), false, threshold);
+            }
+        }
+        regressions += compare(out, "event lag p99 ms", baseline.events().lag().p99Ms(),
+                events.lag().p99Ms(), false, threshold);
+        return regressions;
+    }
+
+    private static int compare(PrintStream out, String figure, double before, double now, boolean higherIsBetter,
+                               double threshold) {
+        double change = before != 0 ? (now - before) / before * 100.0 : 0;
+        boolean regressed = (higherIsBetter ? -change : change) > threshold;
+        out.printf("%-30s %12.2f %12.2f %+8.1f%%%s%n", figure, before, now, change, regressed ? "  REGRESSION" : "");
+        return regressed ? 1 : 0;
+    }
+
+    private static void printRow(PrintStream out, String name, Stats stats) {
+        out.printf("%-22s %9d %7d %10.1f %10.2f %10.2f %10.2f %10.2f%n", name, stats.count(), stats.errors(),
+                stats.throughput(), stats.p50Ms(), stats.p99Ms(), stats.p999Ms(), stats.maxMs());
+    }
+}
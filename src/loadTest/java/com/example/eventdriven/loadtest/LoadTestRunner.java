@@ -0,0 +1,122 @@
+package com.example.eventdriven.loadtest;
+
+import com.example.eventdriven.EventDrivenApplication;
+import com.example.eventdriven.model.OrderWorkflows;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the application on a random port with the in-memory database and {@link LoopbackRabbitTemplate}
+ * in place of the broker, drives it through {@link LoadDriver}, waits for the published events to be
+ * consumed and reports throughput, latency and event lag.
+ * <p>
+ * Arguments are Spring properties such as {@code --loadtest.concurrency=32} or
+ * {@code --app.rabbitmq.listener.concurrency=4}; see {@link LoadTestSettings} for the {@code loadtest.*} ones.
+ * The exit status is 1 if the run was worse than a baseline measured with the same settings by more than
+ * the threshold.
+ */
+public final class LoadTestRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    /**
+     * Overrides of the application configuration for load tests, unless set on the command line.
+     * Per-statement SQL and INFO logging to the console would be measured rather than the application.
+     */
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "server.port", "0",
+            "spring.jpa.show-sql", "false",
+            "logging.level.root", "WARN",
+            "logging.level.com.example.eventdriven.loadtest", "INFO",
+            "management.health.rabbit.enabled", "false",
+            "app.rabbitmq.listener.simulated-processing-time", "5ms");
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int status;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                EventDrivenApplication.class, LoadTestConfiguration.class).run(withDefaults(args))) {
+            status = run(context);
+        }
+        System.exit(status);
+    }
+
+    private static int run(ConfigurableApplicationContext context) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.from(context.getEnvironment());
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        EventLagTracker eventLagTracker = context.getBean(EventLagTracker.class);
+        LoopbackRabbitTemplate broker = context.getBean(LoopbackRabbitTemplate.class);
+        OrderWorkflows workflows = context.getBean(OrderWorkflows.class);
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+        logger.info("Sending requests to port {} for {} after a {} warm-up", port, settings.duration(), settings.warmup());
+        LoadDriver.Measurement measurement = new LoadDriver(port, objectMapper, settings, eventLagTracker,
+                workflows.getDefault()).run();
+
+        logger.info("Waiting up to {} for outstanding events", settings.drainTimeout());
+        long deadline = System.currentTimeMillis() + settings.drainTimeout().toMillis();
+        while (eventLagTracker.getUnconsumed() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        broker.awaitIdle(Math.max(0, deadline - System.currentTimeMillis()));
+        broker.shutdown();
+
+        LoadTestResult result = LoadTestResult.of(settings, measurement, eventLagTracker);
+        result.print(System.out);
+
+        ObjectMapper writer = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        if (settings.output() != null) {
+            File output = new File(settings.output());
+            output.getAbsoluteFile().getParentFile().mkdirs();
+            writer.writeValue(output, result);
+            System.out.printf("%nResults written to %s%n", output);
+        }
+
+        if (settings.baseline() != null) {
+            File baselineFile = new File(settings.baseline());
+            if (!baselineFile.isFile()) {
+                System.out.printf("%nNo baseline at %s, nothing to compare with%n", baselineFile);
+                return 0;
+            }
+            LoadTestResult baseline = writer.readValue(baselineFile, LoadTestResult.class);
+            int regressions = result.compareWith(baseline, settings.threshold(), System.out);
+            if (!baseline.settings().equals(result.settings())) {
+                // Different load gives different figures, which says nothing about the code
+                System.out.printf("%nThe baseline was measured with %s, so the comparison cannot fail the run%n",
+                        baseline.settings());
+                return 0;
+            }
+            if (regressions > 0) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    private static String[] withDefaults(String[] args) {
+        Map<String, String> defaults = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 0) {
+                defaults.remove(arg.substring(2, separator));
+            }
+        }
+        List<String> combined = new ArrayList<>(args.length + defaults.size());
+        defaults.forEach((name, value) -> combined.add("--" + name + "=" + value));
+        combined.addAll(List.of(args));
+        return combined.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.eventdriven.loadtest;
+
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, read from the {@code loadtest.*} properties
+ *
+ * @param duration how long requests are measured
+ * @param warmup how long requests are sent before measuring starts
+ * @param concurrency the number of clients sending requests
+ * @param rate requests per second across all clients, or 0 for each client to send its next request as soon
+ *             as the previous one returns
+ * @param mix the relative weight of each operation
+ * @param customers the number of distinct customers orders are created for
+ * @param items the number of items per created order
+ * @param drainTimeout how long to wait for outstanding events after the last request
+ * @param output where the results are written as JSON, or null
+ * @param baseline results of an earlier run to compare with, or null
+ * @param threshold the percentage by which throughput may drop or p99 latency rise before the run fails
+ */
+public record LoadTestSettings(Duration duration, Duration warmup, int concurrency, int rate,
+                               Map<Operation, Integer> mix, int customers, int items, Duration drainTimeout,
+                               String output, String baseline, double threshold) {
+
+    public static final String DEFAULT_MIX = "create:30,get:40,list:15,status:10,cancel:5";
+
+    public LoadTestSettings {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate must not be negative");
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("At least one operation needs a positive weight");
+        }
+        mix = Map.copyOf(mix);
+    }
+
+    /**
+     * @param environment the environment of the application under test
+     * @return the settings, with defaults for whatever is not set
+     */
+    public static LoadTestSettings from(Environment environment) {
+        return new LoadTestSettings(
+                environment.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(30)),
+                environment.getProperty("loadtest.warmup", Duration.class, Duration.ofSeconds(10)),
+                environment.getProperty("loadtest.concurrency", Integer.class, 16),
+                environment.getProperty("loadtest.rate", Integer.class, 0),
+                parseMix(environment.getProperty("loadtest.mix", DEFAULT_MIX)),
+                environment.getProperty("loadtest.customers", Integer.class, 100),
+                environment.getProperty("loadtest.items", Integer.class, 3),
+                environment.getProperty("loadtest.drain-timeout", Duration.class, Duration.ofSeconds(30)),
+                environment.getProperty("loadtest.output"),
+                environment.getProperty("loadtest.baseline"),
+                environment.getProperty("loadtest.threshold", Double.class, 20.0));
+    }
+
+    /**
+     * Parse an operation mix such as {@code create:30,get:70}; operations left out are not sent
+     *
+     * @param mix the mix
+     * @return the weight of each operation
+     * @throws IllegalArgumentException if an entry is malformed or names an unknown operation
+     */
+    public static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight must not be negative: " + entry);
+            }
+            weights.put(Operation.fromKey(parts[0].trim()), weight);
+        }
+        return weights;
+    }
+
+    /**
+     * @return the settings that shape the load, as recorded with the results
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("duration", duration.toString());
+        description.put("warmup", warmup.toString());
+        description.put("concurrency", concurrency);
+        description.put("rate", rate);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        new EnumMap<>(mix).forEach((operation, weight) -> weights.put(operation.getKey(), weight));
+        description.put("mix", weights);
+        description.put("customers", customers);
+        description.put("items", items);
+        return description;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.eventdriven.loadtest;
+
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareBatchMessageListener;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for a RabbitMQ broker that delivers to the application's own listeners.
+ * <p>
+ * Published messages are routed through the declared bindings to the queues of the registered listener
+ * containers and handed to each container's listener on that queue's consumer threads, so messages are
+ * converted, dispatched and acknowledged exactly as with a broker. Publisher confirms are completed as soon
+ * as the message is queued for delivery. Messages for queues without a listener, such as the logging
+ * exchange, are dropped.
+ */
+public class LoopbackRabbitTemplate extends RabbitTemplate {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoopbackRabbitTemplate.class);
+
+    private final Collection<Binding> bindings;
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final int consumersPerQueue;
+    private final Consumer<Delivery> deliveryObserver;
+    private final AtomicLong deliveryTags = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+
+    private volatile Map<String, QueueConsumer> consumers;
+
+    /**
+     * @param connectionFactory required by the template, but never used to open a connection
+     */
+    public LoopbackRabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter,
+                                  Collection<Binding> bindings, RabbitListenerEndpointRegistry listenerRegistry,
+                                  int consumersPerQueue, Consumer<Delivery> deliveryObserver) {
+        super(connectionFactory);
+        this.bindings = bindings;
+        this.listenerRegistry = listenerRegistry;
+        this.consumersPerQueue = consumersPerQueue;
+        this.deliveryObserver = deliveryObserver;
+        setMessageConverter(messageConverter);
+    }
+
+    @Override
+    public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        List<QueueConsumer> targets = new ArrayList<>(1);
+        for (Binding binding : bindings) {
+            // Fanout bindings have no routing key and receive everything sent to their exchange
+            if (binding.getExchange().equals(exchange)
+                    && (binding.getRoutingKey().isEmpty() || binding.getRoutingKey().equals(routingKey))) {
+                QueueConsumer consumer = consumers().get(binding.getDestination());
+                if (consumer != null) {
+                    targets.add(consumer);
+                }
+            }
+        }
+
+        long publishedNanos = System.nanoTime();
+        for (QueueConsumer target : targets) {
+            target.deliver(targets.size() == 1 ? message : MessageBuilder.fromClonedMessage(message).build(),
+                    publishedNanos);
+        }
+        if (correlationData != null) {
+            correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+        }
+    }
+
+    /**
+     * Run the callback against this template; there are no channels to dedicate to it
+     */
+    @Override
+    public <T> T invoke(OperationsCallback<T> action, com.rabbitmq.client.ConfirmCallback acks,
+                        com.rabbitmq.client.ConfirmCallback nacks) {
+        return action.doInRabbit(this);
+    }
+
+    /**
+     * Wait until every delivered message has been handled
+     *
+     * @param timeoutMillis the longest time to wait
+     * @return true if nothing is pending any more
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (pending.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return pending.get() == 0;
+    }
+
+    /**
+     * Stop the consumer threads, abandoning whatever is still pending
+     */
+    public void shutdown() {
+        if (consumers != null) {
+            consumers.values().forEach(consumer -> consumer.executor.shutdownNow());
+        }
+    }
+
+    private Map<String, QueueConsumer> consumers() {
+        Map<String, QueueConsumer> current = consumers;
+        if (current == null) {
+            synchronized (this) {
+                if (consumers == null) {
+                    consumers = createConsumers();
+                }
+                current = consumers;
+            }
+        }
+        return current;
+    }
+
+    private Map<String, QueueConsumer> createConsumers() {
+        Map<String, QueueConsumer> byQueue = new HashMap<>();
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            SimpleMessageListenerContainer simpleContainer = (SimpleMessageListenerContainer) container;
+            MessageListener listener = (MessageListener) simpleContainer.getMessageListener();
+            for (String queue : simpleContainer.getQueueNames()) {
+                logger.info("Delivering messages for queue {} to {}", queue, listener.getClass().getSimpleName());
+                byQueue.put(queue, new QueueConsumer(queue, listener, simpleContainer.isConsumerBatchEnabled()));
+            }
+        }
+        return byQueue;
+    }
+
+    /**
+     * A message handed to a listener
+     *
+     * @param queue the queue it was delivered from
+     * @param message the message
+     * @param acknowledged whether the listener acknowledged it, rather than rejecting it
+     * @param publishedNanos when it was published, in {@link System#nanoTime()} units
+     * @param handledNanos when the listener returned, in {@link System#nanoTime()} units
+     */
+    public record Delivery(String queue, Message message, boolean acknowledged, long publishedNanos,
+                           long handledNanos) {
+    }
+
+    private final class QueueConsumer {
+
+        private final String queue;
+        private final MessageListener listener;
+        private final boolean batch;
+        private final ExecutorService executor;
+
+        QueueConsumer(String queue, MessageListener listener, boolean batch) {
+            this.queue = queue;
+            this.listener = listener;
+            this.batch = batch;
+            this.executor = Executors.newFixedThreadPool(consumersPerQueue,
+                    Thread.ofPlatform().name("loopback-" + queue + "-", 0).daemon().factory());
+        }
+
+        void deliver(Message message, long publishedNanos) {
+            pending.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    handle(message, publishedNanos);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+
+        private void handle(Message message, long publishedNanos) {
+            long deliveryTag = deliveryTags.incrementAndGet();
+            message.getMessageProperties().setDeliveryTag(deliveryTag);
+            message.getMessageProperties().setConsumerQueue(queue);
+            AckRecordingChannel ack = new AckRecordingChannel();
+            try {
+                if (batch) {
+                    ((ChannelAwareBatchMessageListener) listener).onMessageBatch(List.of(message), ack.channel);
+                } else {
+                    ((ChannelAwareMessageListener) listener).onMessage(message, ack.channel);
+                }
+            } catch (Exception e) {
+                logger.warn("Listener for queue {} failed", queue, e);
+            }
+            deliveryObserver.accept(new Delivery(queue, message, ack.acknowledged, publishedNanos, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Channel that only remembers whether the delivery was acknowledged
+     */
+    private static final class AckRecordingChannel {
+
+        private volatile boolean acknowledged;
+
+        private final Channel channel = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(),
+                new Class<?>[]{Channel.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "basicAck" -> acknowledged = true;
+                        case "isOpen" -> {
+                            return true;
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "toString" -> {
+                            return "LoopbackChannel";
+                        }
+                        default -> {
+                        }
+                    }
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return false;
+                    }
+                    if (returnType.isPrimitive() && returnType != void.class) {
+                        return returnType == long.class ? 0L : 0;
+                    }
+                    return null;
+                });
+    }
+}
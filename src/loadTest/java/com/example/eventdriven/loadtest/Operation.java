@@ -0,0 +1,41 @@
+package com.example.eventdriven.loadtest;
+
+/**
+ * The order API calls the load test mixes, named as in the {@code loadtest.mix} setting
+ */
+public enum Operation {
+    /** Create an order for a random customer */
+    CREATE("create"),
+    /** Get a recently created order */
+    GET("get"),
+    /** Get the first page of a random customer's orders */
+    LIST("list"),
+    /** Move an order on to its next status */
+    STATUS("status"),
+    /** Cancel an order, or move it on if it can no longer be cancelled */
+    CANCEL("cancel");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param key the operation name
+     * @return the operation with that name
+     * @throws IllegalArgumentException if there is none
+     */
+    public static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key);
+    }
+}
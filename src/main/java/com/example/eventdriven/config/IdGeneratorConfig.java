@@ -0,0 +1,39 @@
+package com.example.eventdriven.config;
+
+import com.example.eventdriven.model.EntityIds;
+import com.example.eventdriven.model.IdGenerator;
+import com.example.eventdriven.model.RandomUuidIdGenerator;
+import com.example.eventdriven.model.UuidV7IdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the entity identifier generator
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    /**
+     * Create the configured ID generator and install it for entities that
+     * assign their identifier on construction
+     *
+     * @param strategy the generator strategy: {@code uuid-v7} or {@code random-uuid}
+     * @return the ID generator
+     */
+    @Bean
+    public IdGenerator idGenerator(@Value("${app.ids.generator:uuid-v7}") String strategy) {
+        IdGenerator generator = switch (strategy) {
+            case "uuid-v7" -> new UuidV7IdGenerator();
+            case "random-uuid" -> new RandomUuidIdGenerator();
+            default -> throw new IllegalArgumentException("Unknown ID generator strategy: " + strategy);
+        };
+        EntityIds.setGenerator(generator);
+        logger.info("Using {} for entity IDs", generator.getClass().getSimpleName());
+        return generator;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.eventdriven.config;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.OrderStatusTransitions;
+import com.example.eventdriven.model.OrderWorkflows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configuration for the order status workflows
+ */
+@Configuration
+public class OrderWorkflowConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderWorkflowConfig.class);
+
+    /**
+     * Workflow name to the statuses each status may move to
+     */
+    private static final Bindable<Map<String, Map<OrderStatus, Set<OrderStatus>>>> WORKFLOWS = Bindable.of(
+            ResolvableType.forClassWithGenerics(Map.class,
+                    ResolvableType.forClass(String.class),
+                    ResolvableType.forClassWithGenerics(Map.class,
+                            ResolvableType.forClass(OrderStatus.class),
+                            ResolvableType.forClassWithGenerics(Set.class, OrderStatus.class))));
+
+    /**
+     * Build the status transition tables configured under {@code app.orders.workflows}.
+     * Startup fails if a workflow leaves a status unreachable.
+     *
+     * @param environment the environment holding the configuration
+     * @return the workflows, the standard one if none are configured
+     */
+    @Bean
+    public OrderWorkflows orderWorkflows(Environment environment) {
+        Map<String, Map<OrderStatus, Set<OrderStatus>>> configured = Binder.get(environment)
+                .bind("app.orders.workflows", WORKFLOWS)
+                .orElse(Map.of());
+
+        Map<String, OrderStatusTransitions> byType = new LinkedHashMap<>();
+        configured.forEach((type, transitions) -> {
+            try {
+                byType.put(type, OrderStatusTransitions.of(transitions));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid order workflow '" + type + "': " + e.getMessage(), e);
+            }
+            logger.info("Order workflow {}: {}", type, byType.get(type));
+        });
+        return new OrderWorkflows(byType);
+    }
+}
@@ -1,22 +1,30 @@
 package com.example.eventdriven.config;
 
+import com.example.eventdriven.listener.EventLatencyInterceptor;
+import com.example.eventdriven.listener.EventVersionInterceptor;
+import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.retry.backoff.ExponentialBackOffPolicy;
-import org.springframework.retry.support.RetryTemplate;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,6 +32,8 @@ import java.util.Map;
 @EnableRabbit
 public class RabbitMQConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(RabbitMQConfig.class);
+
     @Value("${app.rabbitmq.exchanges.command}")
     private String commandExchange;
 
@@ -33,6 +43,9 @@ public class RabbitMQConfig {
     @Value("${app.rabbitmq.exchanges.broadcast}")
     private String broadcastExchange;
 
+    @Value("${app.rabbitmq.exchanges.invalidation}")
+    private String invalidationExchange;
+
     @Value("${app.rabbitmq.exchanges.deadletter}")
     private String deadLetterExchange;
 
@@ -60,6 +73,24 @@ public class RabbitMQConfig {
     @Value("${app.rabbitmq.routing-keys.orders.broadcast}")
     private String orderBroadcastRoutingKey;
 
+    @Value("${app.rabbitmq.listener.prefetch:1}")
+    private int listenerPrefetch;
+
+    @Value("${app.rabbitmq.listener.concurrency:1}")
+    private int listenerConcurrency;
+
+    @Value("${app.rabbitmq.listener.max-concurrency:1}")
+    private int listenerMaxConcurrency;
+
+    @Value("${app.rabbitmq.listener.batch.size:50}")
+    private int listenerBatchSize;
+
+    @Value("${app.rabbitmq.listener.batch.receive-timeout:100ms}")
+    private Duration listenerBatchReceiveTimeout;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -69,27 +100,58 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public MessageConverter jsonMessageConverter(ObjectMapper objectMapper) {
-        return new Jackson2JsonMessageConverter(objectMapper);
+    public Jackson2JsonMessageConverter jsonMessageConverter(ObjectMapper objectMapper) {
+        // Listeners without a typed parameter resolve the payload type from the __TypeId__ header
+        return new Jackson2JsonMessageConverter(objectMapper,
+                OrderCreatedEvent.class.getPackageName(), CreateOrderCommand.class.getPackageName());
+    }
+
+    @Bean
+    public SmileMessageConverter smileMessageConverter(ObjectMapper objectMapper) {
+        return new SmileMessageConverter(objectMapper,
+                OrderCreatedEvent.class.getPackageName(), CreateOrderCommand.class.getPackageName());
     }
 
+    /**
+     * Converter used by the template and the listeners. Messages are read in the format named by
+     * their content type, so consumers accept every format before any producer switches to it (see
+     * {@code app.rabbitmq.content-types}); messages without a known content type are read as JSON.
+     */
     @Bean
-    public RetryTemplate retryTemplate() {
-        RetryTemplate retryTemplate = new RetryTemplate();
-        ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
-        backOffPolicy.setInitialInterval(1000);
-        backOffPolicy.setMultiplier(2.0);
-        backOffPolicy.setMaxInterval(10000);
-        retryTemplate.setBackOffPolicy(backOffPolicy);
-        return retryTemplate;
+    @Primary
+    public MessageConverter messageConverter(Jackson2JsonMessageConverter jsonMessageConverter,
+                                             SmileMessageConverter smileMessageConverter) {
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(jsonMessageConverter);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, jsonMessageConverter);
+        converter.addDelegate(SmileMessageConverter.CONTENT_TYPE, smileMessageConverter);
+        return converter;
     }
 
+    /**
+     * Publishing is confirmed asynchronously (see MessageService) rather than retried on the
+     * calling thread; unroutable messages come back because the template publishes as mandatory.
+     * Primary, so every {@code RabbitTemplate} injection point but the log shipper's gets this one.
+     */
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter jsonMessageConverter, RetryTemplate retryTemplate) {
+    @Primary
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(jsonMessageConverter);
-        rabbitTemplate.setRetryTemplate(retryTemplate);
+        rabbitTemplate.setMessageConverter(messageConverter);
         rabbitTemplate.setMandatory(true);
+        rabbitTemplate.setReturnsCallback(returned -> logger.warn("Message returned by {}/{}: {} {}",
+                returned.getExchange(), returned.getRoutingKey(), returned.getReplyCode(), returned.getReplyText()));
+        return rabbitTemplate;
+    }
+
+    /**
+     * Template for the log shipper. Nothing needs to consume the logging exchange, so log entries are
+     * not published as mandatory and the broker drops them without returning each one when no queue is bound.
+     * Only injected where asked for with {@code @Qualifier("loggingRabbitTemplate")}.
+     */
+    @Bean
+    public RabbitTemplate loggingRabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
+        RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
+        rabbitTemplate.setMessageConverter(messageConverter);
         return rabbitTemplate;
     }
 
@@ -99,13 +161,66 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory, MessageConverter jsonMessageConverter) {
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
+        return createListenerContainerFactory(connectionFactory, messageConverter);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
+        return enableBatches(createListenerContainerFactory(connectionFactory, messageConverter));
+    }
+
+    /**
+     * Containers of the order event queue, which also record the consume lag and keep unreadable events
+     * away from the listener. Other queues do not carry versioned order events.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory eventListenerContainerFactory(ConnectionFactory connectionFactory, MessageConverter messageConverter,
+                                                                              EventLatencyInterceptor eventLatencyInterceptor,
+                                                                              EventVersionInterceptor eventVersionInterceptor) {
+        return withEventAdvice(createListenerContainerFactory(connectionFactory, messageConverter),
+                eventLatencyInterceptor, eventVersionInterceptor);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchEventListenerContainerFactory(ConnectionFactory connectionFactory, MessageConverter messageConverter,
+                                                                                   EventLatencyInterceptor eventLatencyInterceptor,
+                                                                                   EventVersionInterceptor eventVersionInterceptor) {
+        return withEventAdvice(enableBatches(createListenerContainerFactory(connectionFactory, messageConverter)),
+                eventLatencyInterceptor, eventVersionInterceptor);
+    }
+
+    private SimpleRabbitListenerContainerFactory enableBatches(SimpleRabbitListenerContainerFactory factory) {
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(listenerBatchSize);
+        factory.setReceiveTimeout(listenerBatchReceiveTimeout.toMillis());
+        // A batch only fills up if the broker may deliver that many unacknowledged messages
+        factory.setPrefetchCount(Math.max(listenerPrefetch, listenerBatchSize));
+        return factory;
+    }
+
+    private SimpleRabbitListenerContainerFactory withEventAdvice(SimpleRabbitListenerContainerFactory factory,
+                                                                 EventLatencyInterceptor eventLatencyInterceptor,
+                                                                 EventVersionInterceptor eventVersionInterceptor) {
+        // Events too new to read are rejected inside the latency advice, so their lag is still recorded
+        factory.setAdviceChain(eventLatencyInterceptor, eventVersionInterceptor);
+        return factory;
+    }
+
+    private SimpleRabbitListenerContainerFactory createListenerContainerFactory(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
-        factory.setMessageConverter(jsonMessageConverter);
+        factory.setMessageConverter(messageConverter);
         factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
-        factory.setPrefetchCount(1);
+        factory.setPrefetchCount(listenerPrefetch);
+        factory.setConcurrentConsumers(listenerConcurrency);
+        factory.setMaxConcurrentConsumers(Math.max(listenerConcurrency, listenerMaxConcurrency));
         factory.setDefaultRequeueRejected(false);
+        if (virtualThreads) {
+            // Each consumer blocks on downstream work, which no longer ties up a platform thread
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-listener-"));
+        }
         return factory;
     }
 
@@ -125,6 +240,11 @@ public class RabbitMQConfig {
         return new FanoutExchange(broadcastExchange, true, false);
     }
 
+    @Bean
+    public FanoutExchange invalidationExchange() {
+        return new FanoutExchange(invalidationExchange, true, false);
+    }
+
     @Bean
     public DirectExchange deadLetterExchange() {
         return new DirectExchange(deadLetterExchange, true, false);
@@ -175,6 +295,14 @@ public class RabbitMQConfig {
                 .build();
     }
 
+    // Per-instance queue for cache invalidations, so every instance receives every invalidation.
+    // Invalidations have their own exchange: on the broadcast exchange they would also pile up in the
+    // durable broadcast queue, which nothing consumes, and be dead-lettered once expired
+    @Bean
+    public AnonymousQueue orderCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
     // Bindings
     @Bean
     public Binding orderCommandBinding() {
@@ -196,6 +324,12 @@ public class RabbitMQConfig {
                 .to(broadcastExchange());
     }
 
+    @Bean
+    public Binding orderCacheInvalidationBinding() {
+        return BindingBuilder.bind(orderCacheInvalidationQueue())
+                .to(invalidationExchange());
+    }
+
     @Bean
     public Binding orderDeadLetterBinding() {
         return BindingBuilder.bind(orderDeadLetterQueue())
@@ -1,8 +1,11 @@
 package com.example.eventdriven.controller;
 
 import com.example.eventdriven.logging.LoggingService;
+import com.example.eventdriven.service.IdempotencyService.IdempotencyKeyReusedException;
+import com.example.eventdriven.service.IdempotencyService.RequestInProgressException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -95,6 +98,88 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    /**
+     * Handle updates that lost to concurrent changes of the same entity
+     *
+     * @param ex the optimistic locking exception
+     * @return error response entity
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex) {
+
+        String message = "The resource was changed concurrently, please retry";
+
+        // Log the conflict
+        Map<String, Object> logData = new HashMap<>();
+        logData.put("detail", ex.getMessage());
+        loggingService.logWarning(message, logData);
+
+        // Create error response
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                message,
+                LocalDateTime.now(),
+                null
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    /**
+     * Handle idempotency keys sent again with a different request
+     *
+     * @param ex the key reuse exception
+     * @return error response entity
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReusedException(
+            IdempotencyKeyReusedException ex) {
+
+        String message = ex.getMessage();
+
+        // Log the error
+        Map<String, Object> logData = new HashMap<>();
+        loggingService.logWarning(message, logData);
+
+        // Create error response
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                message,
+                LocalDateTime.now(),
+                null
+        );
+
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+    }
+
+    /**
+     * Handle retries that arrive while the first request with the same idempotency key is still running
+     *
+     * @param ex the request in progress exception
+     * @return error response entity
+     */
+    @ExceptionHandler(RequestInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleRequestInProgressException(
+            RequestInProgressException ex) {
+
+        String message = ex.getMessage();
+
+        // Log the conflict
+        Map<String, Object> logData = new HashMap<>();
+        loggingService.logWarning(message, logData);
+
+        // Create error response
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                message,
+                LocalDateTime.now(),
+                null
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     /**
      * Handle all other exceptions
      *
@@ -1,18 +1,30 @@
 package com.example.eventdriven.controller;
 
 import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderPage;
 import com.example.eventdriven.model.OrderStatus;
 import com.example.eventdriven.model.command.CreateOrderCommand;
 import com.example.eventdriven.model.command.UpdateOrderStatusCommand;
+import com.example.eventdriven.service.BulkOrderImportService;
+import com.example.eventdriven.service.IdempotencyService;
 import com.example.eventdriven.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -24,23 +36,70 @@ public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     private final OrderService orderService;
+    private final BulkOrderImportService bulkOrderImportService;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyService idempotencyService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(
+            OrderService orderService,
+            BulkOrderImportService bulkOrderImportService,
+            ObjectMapper objectMapper,
+            IdempotencyService idempotencyService) {
         this.orderService = orderService;
+        this.bulkOrderImportService = bulkOrderImportService;
+        this.objectMapper = objectMapper;
+        this.idempotencyService = idempotencyService;
     }
 
     /**
-     * Create a new order
+     * Create a new order.
+     * With an Idempotency-Key header the order is created once per key: a retry with the same key and
+     * command gets the original response back, marked with the Idempotent-Replayed header.
      *
      * @param command the order creation command
+     * @param idempotencyKey the idempotency key chosen by the client
      * @return the created order
      */
     @PostMapping
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody CreateOrderCommand command) {
+    public ResponseEntity<?> createOrder(
+            @Valid @RequestBody CreateOrderCommand command,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         logger.info("Received request to create order for customer: {}", command.getCustomerId());
-        Order order = orderService.createOrder(command);
-        return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        if (idempotencyKey == null) {
+            Order order = orderService.createOrder(command);
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        }
+
+        IdempotencyService.Response response = idempotencyService.execute(idempotencyKey, command, () ->
+                new IdempotencyService.Response(HttpStatus.CREATED.value(), toJson(orderService.createOrder(command))));
+        return ResponseEntity.status(response.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(response.replayed()))
+                .body(response.body());
+    }
+
+    /**
+     * Create orders in bulk from an NDJSON body with one create command per line.
+     * The body is consumed as a stream and one NDJSON result per line is streamed back.
+     *
+     * @param body the NDJSON request body
+     * @param response the response the per-line results are written to
+     * @throws IOException if the body cannot be read or the results cannot be written
+     */
+    @PostMapping(value = "/bulk",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void createOrdersInBulk(InputStream body, HttpServletResponse response) throws IOException {
+        logger.info("Received bulk order import request");
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        bulkOrderImportService.importOrders(body, response.getOutputStream());
     }
 
     /**
@@ -58,16 +117,65 @@ public class OrderController {
     }
 
     /**
-     * Get orders by customer ID
+     * Get orders by customer ID.
+     * Without paging parameters all orders are returned; with {@code limit} or {@code cursor} one page
+     * is returned, oldest first, and the cursor for the next page is sent in the X-Next-Cursor header.
      *
      * @param customerId the customer ID
+     * @param limit the page size
+     * @param cursor the cursor from the previous page
      * @return list of orders
      */
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<Order>> getOrdersByCustomer(@PathVariable String customerId) {
-        logger.info("Received request to get orders for customer: {}", customerId);
-        List<Order> orders = orderService.getOrdersByCustomerId(customerId);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<Order>> getOrdersByCustomer(
+            @PathVariable String customerId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+
+        if (limit == null && cursor == null) {
+            logger.info("Received request to get orders for customer: {}", customerId);
+            List<Order> orders = orderService.getOrdersByCustomerId(customerId);
+            return ResponseEntity.ok(orders);
+        }
+
+        logger.info("Received request to get page of orders for customer: {}", customerId);
+        OrderPage page = orderService.getOrdersByCustomerId(
+                customerId, cursor, limit != null ? limit : DEFAULT_PAGE_SIZE);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getOrders());
+    }
+
+    /**
+     * Stream all orders of a customer as NDJSON, one order per line, oldest first.
+     * Orders are read from a database cursor and written as they arrive, so memory use
+     * does not depend on the number of orders.
+     *
+     * @param customerId the customer ID
+     * @param response the response the orders are written to
+     * @throws IOException if the response cannot be written
+     */
+    @GetMapping(value = "/customer/{customerId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamOrdersByCustomer(@PathVariable String customerId, HttpServletResponse response)
+            throws IOException {
+        logger.info("Received request to stream orders for customer: {}", customerId);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        OutputStream output = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(Order.class);
+        orderService.streamOrdersByCustomerId(customerId, order -> {
+            try {
+                output.write(writer.writeValueAsBytes(order));
+                output.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        output.flush();
     }
 
     /**
@@ -115,4 +223,12 @@ public class OrderController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
+
+    private String toJson(Order order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -8,20 +8,26 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Filter for logging HTTP requests and responses
+ * Filter for logging HTTP requests and responses.
+ * Request and response bodies are only buffered when body logging is enabled; otherwise the
+ * request is passed on unwrapped and logging a request allocates little beyond the log entries.
+ * Each request is logged once it completes, so that sampling can keep failed and slow requests.
  */
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
@@ -29,10 +35,26 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestLoggingFilter.class);
 
+    private static final int REQUEST_FIELDS = 6;
+    private static final int RESPONSE_FIELDS = 3;
+
+    /**
+     * Distinguishes request IDs of this instance from those issued before a restart
+     */
+    private final String requestIdPrefix = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX) + "-";
+    private final AtomicLong requestSequence = new AtomicLong();
+
     private final LoggingService loggingService;
+    private final boolean includeBody;
+    private final int maxBodyLength;
 
-    public RequestLoggingFilter(LoggingService loggingService) {
+    public RequestLoggingFilter(
+            LoggingService loggingService,
+            @Value("${app.logging.requests.include-body:false}") boolean includeBody,
+            @Value("${app.logging.requests.max-body-length:1024}") int maxBodyLength) {
         this.loggingService = loggingService;
+        this.includeBody = includeBody;
+        this.maxBodyLength = maxBodyLength;
     }
 
     @Override
@@ -41,32 +63,38 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
-        // Create a unique ID for the request
-        String requestId = UUID.randomUUID().toString();
+        // Cheap, monotonically increasing ID for the request
+        String requestId = requestIdPrefix + requestSequence.incrementAndGet();
+
+        // Streaming requests must reach the controller unbuffered
+        if (!includeBody || isStreaming(request)) {
+            doFilterUnbuffered(request, response, filterChain, requestId);
+            return;
+        }
 
         // Wrap request and response for multiple reads
-        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(request);
+        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(request, maxBodyLength);
         ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
 
         // Add request ID to MDC for logging
         MDC.put("requestId", requestId);
 
         long startTime = System.currentTimeMillis();
+        Map<String, Object> requestData = requestData(requestWrapper, requestId);
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
 
         try {
-            // Log request details
-            logRequest(requestWrapper, requestId);
-
             // Continue with the request
             filterChain.doFilter(requestWrapper, responseWrapper);
-
-            // Calculate request duration
+            status = responseWrapper.getStatus();
+        } finally {
+            // Log the request once its outcome is known, with the bodies read by the controller
             long duration = System.currentTimeMillis() - startTime;
+            Map<String, Object> responseData = responseData(requestId, status, duration, RESPONSE_FIELDS + 2);
+            responseData.put("requestBody", bodyOf(requestWrapper.getContentAsByteArray()));
+            responseData.put("responseBody", bodyOf(responseWrapper.getContentAsByteArray()));
+            logExchange(request, requestData, responseData, status, duration);
 
-            // Log response details
-            logResponse(responseWrapper, requestId, duration);
-
-        } finally {
             // Copy content to the original response
             responseWrapper.copyBodyToResponse();
 
@@ -76,13 +104,50 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Log request details
+     * Process a request without content caching, which would copy the whole request and
+     * response bodies into memory
+     */
+    private void doFilterUnbuffered(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain,
+            String requestId) throws ServletException, IOException {
+
+        MDC.put("requestId", requestId);
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> requestData = requestData(request, requestId);
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            long duration = System.currentTimeMillis() - startTime;
+            logExchange(request, requestData, responseData(requestId, status, duration, RESPONSE_FIELDS), status, duration);
+            MDC.remove("requestId");
+        }
+    }
+
+    /**
+     * Check whether the request streams NDJSON in either direction
+     */
+    private boolean isStreaming(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        String accept = request.getHeader("Accept");
+        return (contentType != null && contentType.startsWith(MediaType.APPLICATION_NDJSON_VALUE))
+                || (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE));
+    }
+
+    /**
+     * Collect request details
      *
      * @param request the HTTP request
      * @param requestId the unique request ID
+     * @return the request details
      */
-    private void logRequest(ContentCachingRequestWrapper request, String requestId) {
-        Map<String, Object> data = new HashMap<>();
+    private Map<String, Object> requestData(HttpServletRequest request, String requestId) {
+        // Sized for its fields so it never resizes; the logging service takes ownership of it
+        Map<String, Object> data = HashMap.newHashMap(REQUEST_FIELDS);
         data.put("requestId", requestId);
         data.put("method", request.getMethod());
         data.put("uri", request.getRequestURI());
@@ -91,29 +156,39 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
         data.put("userAgent", request.getHeader("User-Agent"));
 
         logger.info("Received HTTP request: {} {}", request.getMethod(), request.getRequestURI());
-        loggingService.logInfo("HTTP Request", data);
+        return data;
     }
 
     /**
-     * Log response details
+     * Collect response details
      *
-     * @param response the HTTP response
      * @param requestId the unique request ID
+     * @param status the response status, 500 if the request failed with an exception
      * @param duration the request duration in milliseconds
+     * @param fields the number of fields the caller will store
+     * @return the response details
      */
-    private void logResponse(ContentCachingResponseWrapper response, String requestId, long duration) {
-        Map<String, Object> data = new HashMap<>();
+    private Map<String, Object> responseData(String requestId, int status, long duration, int fields) {
+        Map<String, Object> data = HashMap.newHashMap(fields);
         data.put("requestId", requestId);
-        data.put("status", response.getStatus());
+        data.put("status", status);
         data.put("duration", duration);
+        return data;
+    }
 
-        String logMessage = String.format("HTTP Response: status=%d, duration=%dms",
-                response.getStatus(), duration);
+    /**
+     * Log request and response details; the logging service samples them as one
+     */
+    private void logExchange(HttpServletRequest request, Map<String, Object> requestData,
+                             Map<String, Object> responseData, int status, long duration) {
+        logger.info("HTTP Response: status={}, duration={}ms", status, duration);
+        loggingService.logHttpExchange(request.getRequestURI(), status, duration, requestData, responseData);
+    }
 
-        logger.info(logMessage);
-        loggingService.logInfo("HTTP Response", data);
+    private String bodyOf(byte[] content) {
+        return new String(content, 0, Math.min(content.length, maxBodyLength), StandardCharsets.UTF_8);
     }
-    
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         // This filter should process all requests
@@ -0,0 +1,109 @@
+package com.example.eventdriven.listener;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size Bloom filter of strings.
+ * Sized on construction for an expected number of entries and false positive rate; it never reports
+ * an added entry as absent, and reports absent entries as present at about that rate until more than
+ * the expected number of entries has been added. Not thread-safe.
+ */
+final class BloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+    private int size;
+
+    /**
+     * @param expectedEntries the number of entries the filter is sized for
+     * @param falsePositiveRate the rate of false positives at that number of entries
+     */
+    BloomFilter(int expectedEntries, double falsePositiveRate) {
+        if (expectedEntries < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter size: " + expectedEntries + " entries at "
+                    + falsePositiveRate + " false positive rate");
+        }
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.words = new long[(int) Math.max(1, (optimalBits + Long.SIZE - 1) / Long.SIZE)];
+        this.bitCount = (long) words.length * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * ln2));
+    }
+
+    /**
+     * Add an entry
+     *
+     * @param value the entry
+     */
+    void add(String value) {
+        long hash = mix(fnv1a(value));
+        long step = mix(hash + GOLDEN_GAMMA) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash + i * step, bitCount);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        size++;
+    }
+
+    /**
+     * Check whether an entry may have been added
+     *
+     * @param value the entry
+     * @return false if the entry was certainly not added
+     */
+    boolean mightContain(String value) {
+        long hash = mix(fnv1a(value));
+        long step = mix(hash + GOLDEN_GAMMA) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash + i * step, bitCount);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove all entries
+     */
+    void clear() {
+        Arrays.fill(words, 0L);
+        size = 0;
+    }
+
+    /**
+     * @return the number of entries added since the filter was created or cleared
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the memory taken by the bits of the filter
+     */
+    long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    private static long fnv1a(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads every input bit over the whole hash
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
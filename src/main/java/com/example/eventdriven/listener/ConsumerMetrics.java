@@ -0,0 +1,127 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.metrics.OutcomeTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics of the order event listeners: {@code messaging.consume.duration} per event type and outcome,
+ * {@code messaging.consume.dead.lettered} for messages rejected to the dead letter queue,
+ * {@code messaging.consume.duplicates} for redelivered messages that were skipped,
+ * {@code messaging.consume.duplicates.suspected} for messages processed although the Bloom filters matched them and
+ * {@code messaging.consume.in.flight} for messages being processed.
+ */
+@Component
+public class ConsumerMetrics {
+
+    /**
+     * Event type tag for messages that could not be converted
+     */
+    static final String UNKNOWN_EVENT = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, EventMeters> meters = new ConcurrentHashMap<>();
+
+    public ConsumerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("messaging.consume.in.flight", inFlight, AtomicInteger::get)
+                .description("Messages being processed by the order event listeners")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Event type of a message, read from its properties so the body need not be converted.
+     * Messages published without an envelope only carry the class name in the type ID header.
+     *
+     * @param properties the message properties
+     * @return the simple class name of the event, or {@link #UNKNOWN_EVENT} if the message does not say
+     */
+    static String eventTypeOf(MessageProperties properties) {
+        if (properties.getType() != null) {
+            return properties.getType();
+        }
+        Object typeId = properties.getHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+        if (typeId == null) {
+            return UNKNOWN_EVENT;
+        }
+        String className = typeId.toString();
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Mark the start of processing a message
+     *
+     * @return the start time to pass to {@link #finish}
+     */
+    public long start() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the end of processing a message
+     *
+     * @param eventType the simple class name of the event
+     * @param startNanos the time returned by {@link #start()}
+     * @param acknowledged true if the message was processed, false if it was rejected to the dead letter queue
+     */
+    public void finish(String eventType, long startNanos, boolean acknowledged) {
+        inFlight.decrementAndGet();
+        EventMeters eventMeters = metersFor(eventType);
+        if (acknowledged) {
+            eventMeters.timer().recordSuccess(startNanos);
+        } else {
+            eventMeters.timer().recordFailure(startNanos);
+            eventMeters.deadLettered().increment();
+        }
+    }
+
+    /**
+     * Record a message that was skipped because it had been processed before
+     *
+     * @param eventType the simple class name of the event
+     */
+    public void duplicate(String eventType) {
+        Counter.builder("messaging.consume.duplicates")
+                .description("Redelivered order events skipped because they had been processed")
+                .tag("event", eventType)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Record a message that was processed although only the Bloom filters had seen its ID,
+     * which is either a redelivery or a false positive
+     *
+     * @param eventType the simple class name of the event
+     */
+    public void suspectedDuplicate(String eventType) {
+        Counter.builder("messaging.consume.duplicates.suspected")
+                .description("Order events processed although the Bloom filters had seen their message ID")
+                .tag("event", eventType)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private EventMeters metersFor(String eventType) {
+        return meters.computeIfAbsent(eventType, event -> new EventMeters(
+                new OutcomeTimer(meterRegistry, "messaging.consume.duration", "Time spent processing order events",
+                        "event", event),
+                Counter.builder("messaging.consume.dead.lettered")
+                        .description("Order events rejected to the dead letter queue")
+                        .tag("event", event)
+                        .register(meterRegistry)));
+    }
+
+    private record EventMeters(OutcomeTimer timer, Counter deadLettered) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.service.MessageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener container advice that records, per event type, how long messages waited between
+ * being published and reaching the listener ({@code messaging.consume.lag}) and how long the
+ * listener then took until it returned, having acknowledged them ({@code messaging.consume.ack.latency}).
+ * The lag is measured against the {@link MessageService#PUBLISHED_AT_HEADER} header, so it includes
+ * any clock difference between the publishing and the consuming host.
+ */
+@Component
+public class EventLatencyInterceptor implements MethodInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, EventTimers> timers = new ConcurrentHashMap<>();
+
+    public EventLatencyInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        // The container invokes the listener with the channel and a message or a batch of messages
+        List<Message> messages = messagesOf(invocation.getArguments()[1]);
+
+        long receivedAt = System.currentTimeMillis();
+        for (Message message : messages) {
+            if (message.getMessageProperties().getHeader(MessageService.PUBLISHED_AT_HEADER) instanceof Long publishedAt) {
+                timersFor(message).lag().record(Math.max(0, receivedAt - publishedAt), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            for (Message message : messages) {
+                timersFor(message).ackLatency().record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Message> messagesOf(Object data) {
+        if (data instanceof Message message) {
+            return List.of(message);
+        }
+        return data instanceof List<?> batch ? (List<Message>) batch : List.of();
+    }
+
+    private EventTimers timersFor(Message message) {
+        return timers.computeIfAbsent(ConsumerMetrics.eventTypeOf(message.getMessageProperties()), event -> new EventTimers(
+                Timer.builder("messaging.consume.lag")
+                        .description("Time from publishing an event to its delivery to the listener")
+                        .tag("event", event)
+                        .register(meterRegistry),
+                Timer.builder("messaging.consume.ack.latency")
+                        .description("Time from delivering an event to the listener until it was acknowledged")
+                        .tag("event", event)
+                        .register(meterRegistry)));
+    }
+
+    private record EventTimers(Timer lag, Timer ackLatency) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.model.event.EventMessage;
+import com.rabbitmq.client.Channel;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Listener container advice that keeps events of a newer schema version than this release reads
+ * away from the listeners. Such events are rejected to the dead letter queue, from where they can
+ * be replayed once every consumer has been upgraded, instead of being misread or requeued in a loop.
+ * The version is taken from the {@link EventMessage#VERSION_HEADER} header, so the body is not parsed;
+ * messages without the header are treated as version 1, and those whose header is not a number are rejected too.
+ */
+@Component
+public class EventVersionInterceptor implements MethodInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventVersionInterceptor.class);
+
+    private final ConsumerMetrics consumerMetrics;
+
+    public EventVersionInterceptor(ConsumerMetrics consumerMetrics) {
+        this.consumerMetrics = consumerMetrics;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        // The container invokes the listener with the channel and a message or a batch of messages
+        Object[] arguments = invocation.getArguments();
+        Channel channel = (Channel) arguments[0];
+
+        if (arguments[1] instanceof Message message) {
+            if (!isReadable(message)) {
+                reject(channel, message);
+                return null;
+            }
+        } else if (arguments[1] instanceof List<?> batch) {
+            List<Message> readable = new ArrayList<>(batch.size());
+            for (Object element : batch) {
+                Message message = (Message) element;
+                if (isReadable(message)) {
+                    readable.add(message);
+                } else {
+                    reject(channel, message);
+                }
+            }
+            if (readable.isEmpty()) {
+                return null;
+            }
+            if (readable.size() < batch.size()) {
+                arguments[1] = readable;
+            }
+        }
+        return invocation.proceed();
+    }
+
+    private boolean isReadable(Message message) {
+        OptionalInt version = versionOf(message.getMessageProperties());
+        return version.isPresent() && version.getAsInt() <= EventMessage.SCHEMA_VERSION;
+    }
+
+    /**
+     * @return the schema version of a message, empty if its header cannot be read
+     */
+    private OptionalInt versionOf(MessageProperties properties) {
+        Object version = properties.getHeader(EventMessage.VERSION_HEADER);
+        if (version == null) {
+            return OptionalInt.of(1);
+        }
+        if (version instanceof Number number) {
+            return OptionalInt.of(number.intValue());
+        }
+        try {
+            return OptionalInt.of(Integer.parseInt(version.toString().trim()));
+        } catch (NumberFormatException e) {
+            return OptionalInt.empty();
+        }
+    }
+
+    private void reject(Channel channel, Message message) throws Exception {
+        MessageProperties properties = message.getMessageProperties();
+        String eventType = ConsumerMetrics.eventTypeOf(properties);
+        long startNanos = consumerMetrics.start();
+        logger.warn("Rejecting {} {} of version {}, this release reads up to version {}", eventType,
+                properties.getMessageId(), properties.getHeader(EventMessage.VERSION_HEADER), EventMessage.SCHEMA_VERSION);
+        try {
+            channel.basicReject(properties.getDeliveryTag(), false);
+        } finally {
+            consumerMetrics.finish(eventType, startNanos, false);
+        }
+    }
+}
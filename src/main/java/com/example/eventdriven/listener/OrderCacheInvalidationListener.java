@@ -0,0 +1,47 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.model.event.OrderInvalidatedEvent;
+import com.example.eventdriven.service.OrderCache;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Listener that drops cached orders changed on any instance, including this one
+ */
+@Component
+public class OrderCacheInvalidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCacheInvalidationListener.class);
+
+    private final OrderCache orderCache;
+
+    public OrderCacheInvalidationListener(OrderCache orderCache) {
+        this.orderCache = orderCache;
+    }
+
+    /**
+     * Listen for order invalidations on this instance's broadcast queue
+     *
+     * @param event the invalidation
+     * @param channel the RabbitMQ channel
+     * @param deliveryTag the delivery tag
+     * @throws IOException if there's an issue with acknowledging the message
+     */
+    @RabbitListener(queues = "#{orderCacheInvalidationQueue.name}")
+    public void handleOrderInvalidated(
+            OrderInvalidatedEvent event,
+            Channel channel,
+            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws IOException {
+
+        logger.debug("Received cache invalidation for order ID: {}", event.getOrderId());
+        orderCache.evictFromBroadcast(event.getOrderId());
+        channel.basicAck(deliveryTag, false);
+    }
+}
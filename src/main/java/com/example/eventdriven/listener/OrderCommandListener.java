@@ -0,0 +1,99 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.service.OrderCommandService;
+import com.example.eventdriven.service.OrderCommandService.IdentifiedCommand;
+import com.example.eventdriven.service.OrderCommandService.Outcome;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listener that consumes order commands in batches, so producers can create orders and change their
+ * status without going through the REST API. Every command must carry a message ID, which is used to
+ * apply it at most once. Commands that cannot be read, are invalid or are not allowed are rejected
+ * (and dead-lettered); the rest of the batch is acknowledged with a single multiple-ack.
+ */
+@Component
+public class OrderCommandListener {
+
+    public static final String LISTENER_ID = "orderCommandListener";
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCommandListener.class);
+
+    private final OrderCommandService orderCommandService;
+    private final MessageConverter messageConverter;
+
+    public OrderCommandListener(OrderCommandService orderCommandService, MessageConverter messageConverter) {
+        this.orderCommandService = orderCommandService;
+        this.messageConverter = messageConverter;
+    }
+
+    /**
+     * Listen for a batch of order commands
+     *
+     * @param messages the messages of the batch, in delivery order
+     * @param channel the RabbitMQ channel
+     * @throws IOException if there's an issue with acknowledging the messages
+     */
+    @RabbitListener(id = LISTENER_ID, queues = "${app.rabbitmq.queues.orders.command}",
+            containerFactory = "batchRabbitListenerContainerFactory")
+    public void handleOrderCommands(List<Message> messages, Channel channel) throws IOException {
+        List<IdentifiedCommand> commands = new ArrayList<>(messages.size());
+        List<Long> deliveryTags = new ArrayList<>(messages.size());
+
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            String messageId = message.getMessageProperties().getMessageId();
+            if (messageId == null) {
+                logger.warn("Rejecting order command without a message ID, delivery tag {}", deliveryTag);
+                channel.basicReject(deliveryTag, false);
+                continue;
+            }
+
+            try {
+                commands.add(new IdentifiedCommand(messageId, messageConverter.fromMessage(message)));
+                deliveryTags.add(deliveryTag);
+            } catch (Exception e) {
+                logger.error("Rejecting unreadable order command {}", messageId, e);
+                channel.basicReject(deliveryTag, false);
+            }
+        }
+
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        List<Outcome> outcomes = orderCommandService.apply(commands);
+
+        // Delivery tags start at 1, so 0 means nothing to acknowledge
+        long highestAcknowledgedTag = 0;
+        int rejected = 0;
+        for (int i = 0; i < outcomes.size(); i++) {
+            long deliveryTag = deliveryTags.get(i);
+            Outcome outcome = outcomes.get(i);
+            if (outcome == Outcome.APPLIED || outcome == Outcome.DUPLICATE) {
+                highestAcknowledgedTag = Math.max(highestAcknowledgedTag, deliveryTag);
+            } else {
+                logger.warn("Rejecting order command {}: {}", commands.get(i).messageId(), outcome);
+
+                // Reject before the multiple-ack below so it does not cover this message
+                channel.basicReject(deliveryTag, false);
+                rejected++;
+            }
+        }
+
+        if (highestAcknowledgedTag > 0) {
+            channel.basicAck(highestAcknowledgedTag, true);
+        }
+
+        logger.debug("Processed batch of {} order commands, {} rejected", messages.size(), rejected);
+    }
+}
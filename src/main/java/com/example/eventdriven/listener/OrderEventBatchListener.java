@@ -0,0 +1,105 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.listener.ProcessedMessageRegistry.Match;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.example.eventdriven.model.event.OrderStatusChangedEvent;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Listener that consumes order events in batches.
+ * Failed messages are rejected one by one (and dead-lettered), the rest of the batch is
+ * acknowledged with a single multiple-ack of the highest delivery tag. Events whose message ID was
+ * processed within the recent window are acknowledged without processing them again.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rabbitmq.listener.batch.enabled", havingValue = "true")
+public class OrderEventBatchListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventBatchListener.class);
+
+    private final OrderEventProcessor processor;
+    private final MessageConverter messageConverter;
+    private final ConsumerMetrics consumerMetrics;
+    private final ProcessedMessageRegistry processedMessages;
+
+    public OrderEventBatchListener(OrderEventProcessor processor, MessageConverter messageConverter,
+                                   ConsumerMetrics consumerMetrics, ProcessedMessageRegistry processedMessages) {
+        this.processor = processor;
+        this.messageConverter = messageConverter;
+        this.consumerMetrics = consumerMetrics;
+        this.processedMessages = processedMessages;
+    }
+
+    /**
+     * Listen for a batch of order events
+     *
+     * @param messages the messages of the batch, in delivery order
+     * @param channel the RabbitMQ channel
+     * @throws IOException if there's an issue with acknowledging the messages
+     */
+    @RabbitListener(queues = "${app.rabbitmq.queues.orders.event}", containerFactory = "batchEventListenerContainerFactory")
+    public void handleOrderEvents(List<Message> messages, Channel channel) throws IOException {
+        // Delivery tags start at 1, so 0 means nothing to acknowledge
+        long highestProcessedTag = 0;
+        int failed = 0;
+
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            long startNanos = consumerMetrics.start();
+            String eventType = ConsumerMetrics.eventTypeOf(message.getMessageProperties());
+            boolean processed = false;
+            try {
+                // Checked before converting, so redeliveries are skipped without parsing the body
+                String messageId = message.getMessageProperties().getMessageId();
+                Match match = processedMessages.check(messageId);
+                if (match == Match.RECENT) {
+                    logger.info("Skipping redelivered {} {}", eventType, messageId);
+                    consumerMetrics.duplicate(eventType);
+                } else {
+                    // A filter match may be a false positive, so only an exact match is skipped
+                    if (match == Match.FILTER) {
+                        consumerMetrics.suspectedDuplicate(eventType);
+                    }
+                    process(messageConverter.fromMessage(message));
+                    processedMessages.register(messageId);
+                }
+                highestProcessedTag = Math.max(highestProcessedTag, deliveryTag);
+                processed = true;
+            } catch (Exception e) {
+                logger.error("Error processing order event with delivery tag {}", deliveryTag, e);
+
+                // Reject before the multiple-ack below so it does not cover this message
+                channel.basicReject(deliveryTag, false);
+                failed++;
+            } finally {
+                consumerMetrics.finish(eventType, startNanos, processed);
+            }
+        }
+
+        if (highestProcessedTag > 0) {
+            channel.basicAck(highestProcessedTag, true);
+        }
+
+        logger.debug("Processed batch of {} order events, {} rejected", messages.size(), failed);
+    }
+
+    private void process(Object event) {
+        if (event instanceof OrderCreatedEvent orderCreated) {
+            processor.processOrderCreated(orderCreated);
+        } else if (event instanceof OrderStatusChangedEvent statusChanged) {
+            processor.processOrderStatusChanged(statusChanged);
+        } else {
+            throw new IllegalArgumentException("Unsupported order event type: " + event.getClass().getName());
+        }
+    }
+}
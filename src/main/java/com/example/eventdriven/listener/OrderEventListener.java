@@ -1,12 +1,15 @@
 package com.example.eventdriven.listener;
 
+import com.example.eventdriven.listener.ProcessedMessageRegistry.Match;
 import com.example.eventdriven.model.event.OrderCreatedEvent;
 import com.example.eventdriven.model.event.OrderStatusChangedEvent;
 import com.rabbitmq.client.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitHandler;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
@@ -14,37 +17,77 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 
 /**
- * Listener for order-related events from RabbitMQ queues
+ * Listener for order-related events from RabbitMQ queues, one message per delivery.
+ * A single consumer serves the event queue; each message is converted once to the type named in
+ * its {@code __TypeId__} header and dispatched to the matching handler. Events whose message ID
+ * was processed within the recent window are acknowledged without processing them again.
+ * Replaced by {@link OrderEventBatchListener} when batch consumption is enabled.
  */
 @Component
+@ConditionalOnProperty(name = "app.rabbitmq.listener.batch.enabled", havingValue = "false", matchIfMissing = true)
+@RabbitListener(id = OrderEventListener.LISTENER_ID, queues = "${app.rabbitmq.queues.orders.event}",
+        containerFactory = "eventListenerContainerFactory")
 public class OrderEventListener {
 
+    public static final String LISTENER_ID = "orderEventListener";
+
     private static final Logger logger = LoggerFactory.getLogger(OrderEventListener.class);
 
+    private final OrderEventProcessor processor;
+    private final ConsumerMetrics consumerMetrics;
+    private final ProcessedMessageRegistry processedMessages;
+
+    public OrderEventListener(OrderEventProcessor processor, ConsumerMetrics consumerMetrics,
+                              ProcessedMessageRegistry processedMessages) {
+        this.processor = processor;
+        this.consumerMetrics = consumerMetrics;
+        this.processedMessages = processedMessages;
+    }
+
     /**
-     * Listen for order created events
+     * Handle order created events
      *
      * @param event the event
      * @param channel the RabbitMQ channel
      * @param deliveryTag the delivery tag
+     * @param messageId the message ID, null if the publisher set none
      * @throws IOException if there's an issue with acknowledging the message
      */
-    @RabbitListener(queues = "${app.rabbitmq.queues.orders.event}")
+    @RabbitHandler
     @Retryable(maxAttempts = 3)
     public void handleOrderCreatedEvent(
             OrderCreatedEvent event,
             Channel channel,
-            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws IOException {
+            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+            @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId) throws IOException {
 
+        long startNanos = consumerMetrics.start();
+        boolean acknowledged = false;
         try {
             logger.info("Received OrderCreatedEvent for order ID: {}", event.getOrderId());
 
+            // Redeliveries of a processed event carry the message ID of the first delivery
+            Match match = processedMessages.check(messageId);
+            if (match == Match.RECENT) {
+                logger.info("Skipping redelivered OrderCreatedEvent {} for order ID: {}", messageId, event.getOrderId());
+                consumerMetrics.duplicate("OrderCreatedEvent");
+                channel.basicAck(deliveryTag, false);
+                acknowledged = true;
+                return;
+            }
+            // A filter match may be a false positive, so the event is processed anyway
+            if (match == Match.FILTER) {
+                consumerMetrics.suspectedDuplicate("OrderCreatedEvent");
+            }
+
             // Process the event - in a real application, this might trigger
             // notifications, inventory updates, etc.
-            processOrderCreated(event);
+            processor.processOrderCreated(event);
+            processedMessages.register(messageId);
 
             // Acknowledge successful processing
             channel.basicAck(deliveryTag, false);
+            acknowledged = true;
 
             logger.info("Successfully processed OrderCreatedEvent for order ID: {}", event.getOrderId());
         } catch (Exception e) {
@@ -52,34 +95,57 @@ public class OrderEventListener {
 
             // Reject the message and don't requeue (it will go to the DLQ)
             channel.basicReject(deliveryTag, false);
+        } finally {
+            consumerMetrics.finish("OrderCreatedEvent", startNanos, acknowledged);
         }
     }
 
     /**
-     * Listen for order status changed events
+     * Handle order status changed events
      *
      * @param event the event
      * @param channel the RabbitMQ channel
      * @param deliveryTag the delivery tag
+     * @param messageId the message ID, null if the publisher set none
      * @throws IOException if there's an issue with acknowledging the message
      */
-    @RabbitListener(queues = "${app.rabbitmq.queues.orders.event}")
+    @RabbitHandler
     @Retryable(maxAttempts = 3)
     public void handleOrderStatusChangedEvent(
             OrderStatusChangedEvent event,
             Channel channel,
-            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws IOException {
+            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+            @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId) throws IOException {
 
+        long startNanos = consumerMetrics.start();
+        boolean acknowledged = false;
         try {
             logger.info("Received OrderStatusChangedEvent for order ID: {}, new status: {}",
                     event.getOrderId(), event.getNewStatus());
 
+            // Redeliveries of a processed event carry the message ID of the first delivery
+            Match match = processedMessages.check(messageId);
+            if (match == Match.RECENT) {
+                logger.info("Skipping redelivered OrderStatusChangedEvent {} for order ID: {}",
+                        messageId, event.getOrderId());
+                consumerMetrics.duplicate("OrderStatusChangedEvent");
+                channel.basicAck(deliveryTag, false);
+                acknowledged = true;
+                return;
+            }
+            // A filter match may be a false positive, so the event is processed anyway
+            if (match == Match.FILTER) {
+                consumerMetrics.suspectedDuplicate("OrderStatusChangedEvent");
+            }
+
             // Process the event - in a real application, this might trigger
             // notifications, shipping requests, etc.
-            processOrderStatusChanged(event);
+            processor.processOrderStatusChanged(event);
+            processedMessages.register(messageId);
 
             // Acknowledge successful processing
             channel.basicAck(deliveryTag, false);
+            acknowledged = true;
 
             logger.info("Successfully processed OrderStatusChangedEvent for order ID: {}", event.getOrderId());
         } catch (Exception e) {
@@ -87,53 +153,31 @@ public class OrderEventListener {
 
             // Reject the message and don't requeue (it will go to the DLQ)
             channel.basicReject(deliveryTag, false);
+        } finally {
+            consumerMetrics.finish("OrderStatusChangedEvent", startNanos, acknowledged);
         }
     }
 
     /**
-     * Process order created event
+     * Dead-letter events of a type no handler accepts
      *
      * @param event the event
+     * @param channel the RabbitMQ channel
+     * @param deliveryTag the delivery tag
+     * @throws IOException if there's an issue with rejecting the message
      */
-    private void processOrderCreated(OrderCreatedEvent event) {
-        // In a real application, this would contain business logic
-        // For example:
-        // - Send notification to customer
-        // - Update inventory
-        // - Trigger payment processing
-        // etc.
-
-        logger.debug("Processing order created: {}", event.getOrderId());
+    @RabbitHandler(isDefault = true)
+    public void handleUnsupportedEvent(
+            Object event,
+            Channel channel,
+            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws IOException {
 
-        // Simulate some processing time
+        long startNanos = consumerMetrics.start();
         try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
-    /**
-     * Process order status changed event
-     *
-     * @param event the event
-     */
-    private void processOrderStatusChanged(OrderStatusChangedEvent event) {
-        // In a real application, this would contain business logic
-        // For example:
-        // - Send notification to customer about status change
-        // - If PAID, trigger fulfillment process
-        // - If SHIPPED, generate shipping notification
-        // etc.
-
-        logger.debug("Processing order status changed: {} -> {}",
-                event.getOrderId(), event.getNewStatus());
-
-        // Simulate some processing time
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            logger.error("Rejecting unsupported order event of type: {}", event.getClass().getName());
+            channel.basicReject(deliveryTag, false);
+        } finally {
+            consumerMetrics.finish(event.getClass().getSimpleName(), startNanos, false);
         }
     }
 }
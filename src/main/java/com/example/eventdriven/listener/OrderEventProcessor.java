@@ -0,0 +1,73 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.example.eventdriven.model.event.OrderStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Business handling of order events, shared by the per-message and batch listeners
+ */
+@Component
+public class OrderEventProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventProcessor.class);
+
+    private final Duration processingTime;
+
+    public OrderEventProcessor(@Value("${app.rabbitmq.listener.simulated-processing-time:100ms}") Duration processingTime) {
+        this.processingTime = processingTime;
+    }
+
+    /**
+     * Process order created event
+     *
+     * @param event the event
+     */
+    public void processOrderCreated(OrderCreatedEvent event) {
+        // In a real application, this would contain business logic
+        // For example:
+        // - Send notification to customer
+        // - Update inventory
+        // - Trigger payment processing
+        // etc.
+
+        logger.debug("Processing order created: {}", event.getOrderId());
+
+        simulateProcessing();
+    }
+
+    /**
+     * Process order status changed event
+     *
+     * @param event the event
+     */
+    public void processOrderStatusChanged(OrderStatusChangedEvent event) {
+        // In a real application, this would contain business logic
+        // For example:
+        // - Send notification to customer about status change
+        // - If PAID, trigger fulfillment process
+        // - If SHIPPED, generate shipping notification
+        // etc.
+
+        logger.debug("Processing order status changed: {} -> {}",
+                event.getOrderId(), event.getNewStatus());
+
+        simulateProcessing();
+    }
+
+    private void simulateProcessing() {
+        if (processingTime.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(processingTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
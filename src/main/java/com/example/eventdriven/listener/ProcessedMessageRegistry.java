@@ -0,0 +1,163 @@
+package com.example.eventdriven.listener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of the message IDs of processed order events, so redelivered events can be skipped.
+ * IDs processed within the recent window are kept exactly in a bounded cache. For the longer retention
+ * they are also kept in a ring of Bloom filters, one per slice of the retention: IDs go into the newest
+ * filter, and the oldest filter is cleared and reused once a slice has passed or the newest filter holds
+ * its capacity. Memory is fixed by configuration whatever the message rate; at higher rates IDs are
+ * forgotten sooner instead of being matched less accurately. A match found only in the filters is wrong
+ * at about the configured false positive rate, so only a {@link Match#RECENT} match is safe to skip.
+ */
+@Component
+public class ProcessedMessageRegistry {
+
+    /**
+     * Where a message ID was found
+     */
+    public enum Match {
+        /** Not processed before, as far as the registry remembers */
+        NONE,
+        /** Processed within the recent window */
+        RECENT,
+        /** Possibly processed within the retention, according to the Bloom filters */
+        FILTER
+    }
+
+    private final Cache<String, Boolean> recent;
+    private final BloomFilter[] filters;
+    private final int filterCapacity;
+    private final long sliceNanos;
+    private final LongSupplier nanoClock;
+
+    // Guards the filters, which are not thread-safe; held only for a few hash probes
+    private final ReentrantLock lock = new ReentrantLock();
+    private int newest;
+    private long newestStartedAt;
+
+    @Autowired
+    public ProcessedMessageRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${app.rabbitmq.listener.dedupe.window:5m}") Duration window,
+            @Value("${app.rabbitmq.listener.dedupe.window-size:20000}") long windowSize,
+            @Value("${app.rabbitmq.listener.dedupe.retention:1h}") Duration retention,
+            @Value("${app.rabbitmq.listener.dedupe.filters:6}") int filterCount,
+            @Value("${app.rabbitmq.listener.dedupe.filter-capacity:100000}") int filterCapacity,
+            @Value("${app.rabbitmq.listener.dedupe.false-positive-rate:0.000001}") double falsePositiveRate) {
+        this(meterRegistry, window, windowSize, retention, filterCount, filterCapacity, falsePositiveRate,
+                System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock the source of {@link System#nanoTime()} style timestamps
+     */
+    ProcessedMessageRegistry(MeterRegistry meterRegistry, Duration window, long windowSize, Duration retention,
+                             int filterCount, int filterCapacity, double falsePositiveRate, LongSupplier nanoClock) {
+        if (filterCount < 1) {
+            throw new IllegalArgumentException("At least one filter is needed: " + filterCount);
+        }
+        this.nanoClock = nanoClock;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(windowSize)
+                .expireAfterWrite(window)
+                .ticker(nanoClock::getAsLong)
+                .executor(Runnable::run)
+                .build();
+        this.filters = new BloomFilter[filterCount];
+        for (int i = 0; i < filterCount; i++) {
+            filters[i] = new BloomFilter(filterCapacity, falsePositiveRate);
+        }
+        this.filterCapacity = filterCapacity;
+        this.sliceNanos = Math.max(1, retention.toNanos() / filterCount);
+        this.newestStartedAt = nanoClock.getAsLong();
+
+        Gauge.builder("messaging.consume.dedupe.window.size", recent, Cache::estimatedSize)
+                .description("Message IDs of processed order events held exactly")
+                .register(meterRegistry);
+        Gauge.builder("messaging.consume.dedupe.filter.bytes", this, ProcessedMessageRegistry::filterBytes)
+                .description("Memory taken by the Bloom filters of processed order event IDs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check whether a message was processed before
+     *
+     * @param messageId the message ID, null if the message has none
+     * @return where the ID was found, NONE for messages without an ID
+     */
+    public Match check(String messageId) {
+        if (messageId == null) {
+            return Match.NONE;
+        }
+        if (recent.getIfPresent(messageId) != null) {
+            return Match.RECENT;
+        }
+
+        lock.lock();
+        try {
+            rotateIfDue();
+            for (BloomFilter filter : filters) {
+                if (filter.mightContain(messageId)) {
+                    return Match.FILTER;
+                }
+            }
+            return Match.NONE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remember a processed message
+     *
+     * @param messageId the message ID, null if the message has none
+     */
+    public void register(String messageId) {
+        if (messageId == null) {
+            return;
+        }
+        recent.put(messageId, Boolean.TRUE);
+
+        lock.lock();
+        try {
+            rotateIfDue();
+            filters[newest].add(messageId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clear the oldest filters for every slice that has passed, and start a new one early if the newest is full
+     */
+    private void rotateIfDue() {
+        long now = nanoClock.getAsLong();
+        long expired = Math.min(filters.length, (now - newestStartedAt) / sliceNanos);
+        if (expired == 0 && filters[newest].size() >= filterCapacity) {
+            expired = 1;
+        }
+        for (int i = 0; i < expired; i++) {
+            newest = (newest + 1) % filters.length;
+            filters[newest].clear();
+        }
+        if (expired > 0) {
+            newestStartedAt = now;
+        }
+    }
+
+    private double filterBytes() {
+        return (double) filters.length * filters[0].sizeInBytes();
+    }
+}
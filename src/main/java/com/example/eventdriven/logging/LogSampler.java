@@ -0,0 +1,163 @@
+package com.example.eventdriven.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which log entries are published to the logging exchange.
+ * ERROR entries are always kept. HTTP requests that fail or are slow are always kept as well;
+ * the outcome of a request is only known once it completes, so it is sampled as a whole then
+ * (tail-based sampling). Everything else is sampled by level or route and then rate limited.
+ * The settings can be changed at runtime through {@link LogSamplingEndpoint}.
+ */
+@Component
+public class LogSampler {
+
+    /**
+     * Entries logged for one HTTP request, its request and its response, which pass or are dropped together
+     */
+    public static final int REQUEST_ENTRIES = 2;
+
+    private static final Logger logger = LoggerFactory.getLogger(LogSampler.class);
+
+    private final SamplingSettings defaults;
+    private volatile Policy policy;
+
+    private final Counter sampledCounter;
+    private final Counter rateLimitedCounter;
+    private final Counter errorsKeptCounter;
+    private final Counter slowKeptCounter;
+
+    public LogSampler(
+            MeterRegistry meterRegistry,
+            @Value("${app.logging.sampling.info-rate:1.0}") double infoRate,
+            @Value("${app.logging.sampling.warning-rate:1.0}") double warningRate,
+            @Value("${app.logging.sampling.route-rates:}") String routeRates,
+            @Value("${app.logging.sampling.rate-limit:0}") double rateLimit,
+            @Value("${app.logging.sampling.burst:100}") int burst,
+            @Value("${app.logging.sampling.slow-threshold:1s}") Duration slowThreshold) {
+        this.defaults = new SamplingSettings(infoRate, warningRate, SamplingSettings.parseRouteRates(routeRates),
+                rateLimit, burst, slowThreshold);
+        this.policy = new Policy(defaults);
+
+        this.sampledCounter = Counter.builder("logging.sampling.dropped")
+                .description("Log entries left out by sampling")
+                .tag("reason", "sampled")
+                .register(meterRegistry);
+        this.rateLimitedCounter = Counter.builder("logging.sampling.dropped")
+                .description("Log entries left out by sampling")
+                .tag("reason", "rate-limited")
+                .register(meterRegistry);
+        this.errorsKeptCounter = Counter.builder("logging.sampling.tail.kept")
+                .description("HTTP requests logged regardless of sampling")
+                .tag("reason", "error")
+                .register(meterRegistry);
+        this.slowKeptCounter = Counter.builder("logging.sampling.tail.kept")
+                .description("HTTP requests logged regardless of sampling")
+                .tag("reason", "slow")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Decide whether to publish a log entry
+     *
+     * @param level the log level
+     * @return true if the entry should be published
+     */
+    public boolean sample(String level) {
+        if ("ERROR".equals(level)) {
+            return true;
+        }
+        Policy current = policy;
+        double rate = "WARNING".equals(level) ? current.settings().warningRate() : current.settings().infoRate();
+        return keep(current, rate, 1);
+    }
+
+    /**
+     * Decide whether to publish the log entries of a completed HTTP request
+     *
+     * @param route the request URI
+     * @param status the response status
+     * @param durationMillis how long the request took
+     * @param entries the number of entries logged for the request
+     * @return true if the entries should be published
+     */
+    public boolean sampleRequest(String route, int status, long durationMillis, int entries) {
+        Policy current = policy;
+        if (status >= 500) {
+            errorsKeptCounter.increment();
+            return true;
+        }
+        if (durationMillis >= current.settings().slowThreshold().toMillis()) {
+            slowKeptCounter.increment();
+            return true;
+        }
+        return keep(current, current.routeRate(route), entries);
+    }
+
+    /**
+     * @return the settings in effect
+     */
+    public SamplingSettings getSettings() {
+        return policy.settings();
+    }
+
+    /**
+     * Replace the settings in effect; the rate limit starts again with a full burst
+     *
+     * @param settings the new settings
+     */
+    public void update(SamplingSettings settings) {
+        policy = new Policy(settings);
+        logger.info("Log sampling settings changed to {}", settings);
+    }
+
+    /**
+     * Go back to the configured settings
+     */
+    public void reset() {
+        update(defaults);
+    }
+
+    private boolean keep(Policy current, double rate, int entries) {
+        if (rate < 1.0 && (rate <= 0.0 || ThreadLocalRandom.current().nextDouble() >= rate)) {
+            sampledCounter.increment(entries);
+            return false;
+        }
+        if (current.rateLimit() != null && !current.rateLimit().tryAcquire(entries)) {
+            rateLimitedCounter.increment(entries);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Settings together with the rate limiter built from them, swapped as one
+     */
+    private record Policy(SamplingSettings settings, TokenBucket rateLimit) {
+
+        Policy(SamplingSettings settings) {
+            this(settings, settings.rateLimit() > 0
+                    ? new TokenBucket(settings.rateLimit(), settings.burst(), System::nanoTime)
+                    : null);
+        }
+
+        double routeRate(String route) {
+            String longestPrefix = null;
+            for (String prefix : settings.routeRates().keySet()) {
+                if (route.startsWith(prefix) && (longestPrefix == null || prefix.length() > longestPrefix.length())) {
+                    longestPrefix = prefix;
+                }
+            }
+            return longestPrefix != null ? settings.routeRates().get(longestPrefix) : settings.infoRate();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.eventdriven.logging;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for viewing and changing log sampling at runtime ({@code /actuator/logsampling}).
+ * A POST changes only the settings it names; a DELETE goes back to the configured settings.
+ */
+@Component
+@Endpoint(id = "logsampling")
+public class LogSamplingEndpoint {
+
+    private final LogSampler logSampler;
+
+    public LogSamplingEndpoint(LogSampler logSampler) {
+        this.logSampler = logSampler;
+    }
+
+    @ReadOperation
+    public SamplingSettings settings() {
+        return logSampler.getSettings();
+    }
+
+    /**
+     * Change some of the sampling settings
+     *
+     * @param route a URI prefix whose rate is set to {@code routeRate}, or removed if no rate is given
+     * @return the settings now in effect
+     */
+    @WriteOperation
+    public SamplingSettings configure(
+            @Nullable Double infoRate,
+            @Nullable Double warningRate,
+            @Nullable String route,
+            @Nullable Double routeRate,
+            @Nullable Double rateLimit,
+            @Nullable Integer burst,
+            @Nullable Duration slowThreshold) {
+        SamplingSettings current = logSampler.getSettings();
+
+        Map<String, Double> routeRates = new HashMap<>(current.routeRates());
+        if (route != null) {
+            if (routeRate != null) {
+                routeRates.put(route, routeRate);
+            } else {
+                routeRates.remove(route);
+            }
+        }
+
+        try {
+            logSampler.update(new SamplingSettings(
+                    infoRate != null ? infoRate : current.infoRate(),
+                    warningRate != null ? warningRate : current.warningRate(),
+                    routeRates,
+                    rateLimit != null ? rateLimit : current.rateLimit(),
+                    burst != null ? burst : current.burst(),
+                    slowThreshold != null ? slowThreshold : current.slowThreshold()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return logSampler.getSettings();
+    }
+
+    @DeleteOperation
+    public SamplingSettings reset() {
+        logSampler.reset();
+        return logSampler.getSettings();
+    }
+}
@@ -1,66 +1,179 @@
 package com.example.eventdriven.logging;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Service for centralized logging through RabbitMQ
+ * Service for centralized logging through RabbitMQ.
+ * Log calls only put the entry into a bounded in-memory buffer; a background thread serializes
+ * and publishes the buffered entries in batches, so callers never wait for the broker.
+ * {@link LogSampler} decides which entries are worth publishing at all, and what happens to entries
+ * that arrive while the buffer is full is set by the {@link OverflowPolicy}.
  */
 @Service
 public class LoggingService {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingService.class);
 
+    /**
+     * Under the SAMPLE policy, one in this many INFO entries is kept while the buffer is over half full
+     */
+    static final int SAMPLE_EVERY = 10;
+
+    /**
+     * What to do with a log entry when the buffer cannot take it
+     */
+    public enum OverflowPolicy {
+        /** Drop the entry */
+        DROP,
+        /** Thin out INFO entries once the buffer is half full, drop entries when it is full */
+        SAMPLE,
+        /** Wait up to the block timeout for room, then drop the entry */
+        BLOCK
+    }
+
     private final RabbitTemplate rabbitTemplate;
     private final ObjectMapper objectMapper;
+    private final LogSampler logSampler;
     private final String applicationName;
+    private final LogRingBuffer<LogEntry> buffer;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private final AtomicLong sampleSequence = new AtomicLong();
+
+    private final Counter publishedCounter;
+    private final Counter overflowCounter;
+    private final Counter sampledCounter;
+    private final Counter publishFailedCounter;
+
+    private volatile boolean running;
+    private Thread drainer;
 
     @Value("${app.rabbitmq.exchanges.logging}")
     private String loggingExchange;
 
     public LoggingService(
-            RabbitTemplate rabbitTemplate,
+            @Qualifier("loggingRabbitTemplate") RabbitTemplate rabbitTemplate,
             ObjectMapper objectMapper,
-            @Value("${spring.application.name}") String applicationName) {
+            MeterRegistry meterRegistry,
+            LogSampler logSampler,
+            @Value("${spring.application.name}") String applicationName,
+            @Value("${app.logging.shipper.capacity:8192}") int capacity,
+            @Value("${app.logging.shipper.batch-size:256}") int batchSize,
+            @Value("${app.logging.shipper.flush-interval:50ms}") Duration flushInterval,
+            @Value("${app.logging.shipper.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+            @Value("${app.logging.shipper.block-timeout:10ms}") Duration blockTimeout) {
         this.rabbitTemplate = rabbitTemplate;
         this.objectMapper = objectMapper;
+        this.logSampler = logSampler;
         this.applicationName = applicationName;
+        this.buffer = new LogRingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+
+        this.publishedCounter = Counter.builder("logging.shipper.published")
+                .description("Log entries published to the logging exchange")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("logging.shipper.dropped")
+                .description("Log entries that were never published")
+                .tag("reason", "overflow")
+                .register(meterRegistry);
+        this.sampledCounter = Counter.builder("logging.shipper.dropped")
+                .description("Log entries that were never published")
+                .tag("reason", "sampled")
+                .register(meterRegistry);
+        this.publishFailedCounter = Counter.builder("logging.shipper.dropped")
+                .description("Log entries that were never published")
+                .tag("reason", "publish-failed")
+                .register(meterRegistry);
+        Gauge.builder("logging.shipper.buffer.size", buffer, LogRingBuffer::size)
+                .description("Log entries waiting to be published")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start the background thread that publishes buffered entries
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        drainer = Thread.ofPlatform()
+                .name("log-shipper")
+                .daemon()
+                .start(this::drainContinuously);
+    }
+
+    /**
+     * Stop the background thread and publish whatever is still buffered
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (drainer != null) {
+            LockSupport.unpark(drainer);
+            try {
+                drainer.join(flushInterval.multipliedBy(10).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
     }
 
     /**
      * Log an info message to the centralized logging system
      *
      * @param message the log message
-     * @param data additional data to include in the log
+     * @param data additional data to include in the log, not to be modified afterwards
      */
     public void logInfo(String message, Map<String, Object> data) {
-        publishLog("INFO", message, data);
+        if (logSampler.sample("INFO")) {
+            publishLog("INFO", message, data);
+        }
     }
 
     /**
      * Log a warning message to the centralized logging system
      *
      * @param message the log message
-     * @param data additional data to include in the log
+     * @param data additional data to include in the log, not to be modified afterwards
      */
     public void logWarning(String message, Map<String, Object> data) {
-        publishLog("WARNING", message, data);
+        if (logSampler.sample("WARNING")) {
+            publishLog("WARNING", message, data);
+        }
     }
 
     /**
      * Log an error message to the centralized logging system
      *
      * @param message the log message
-     * @param data additional data to include in the log
+     * @param data additional data to include in the log, not to be modified afterwards
      * @param throwable the exception to log
      */
     public void logError(String message, Map<String, Object> data, Throwable throwable) {
@@ -77,33 +190,139 @@ public class LoggingService {
     }
 
     /**
-     * Publish a log message to RabbitMQ
+     * Log a completed HTTP request and its response to the centralized logging system.
+     * Both entries are kept or left out together, depending on how the request turned out.
+     *
+     * @param route the request URI
+     * @param status the response status
+     * @param durationMillis how long the request took
+     * @param requestData details of the request, not to be modified afterwards
+     * @param responseData details of the response, not to be modified afterwards
+     */
+    public void logHttpExchange(String route, int status, long durationMillis,
+                                Map<String, Object> requestData, Map<String, Object> responseData) {
+        if (logSampler.sampleRequest(route, status, durationMillis, LogSampler.REQUEST_ENTRIES)) {
+            publishLog("INFO", "HTTP Request", requestData);
+            publishLog("INFO", "HTTP Response", responseData);
+        }
+    }
+
+    /**
+     * Publish every buffered entry on the calling thread
+     */
+    public void flush() {
+        while (drainBatch() > 0) {
+            // Keep draining until the buffer is empty
+        }
+    }
+
+    /**
+     * Queue a log message for publication
      *
      * @param level the log level
      * @param message the log message
      * @param data additional data to include in the log
      */
     private void publishLog(String level, String message, Map<String, Object> data) {
-        try {
-            Map<String, Object> logEntry = new HashMap<>();
-            logEntry.put("id", UUID.randomUUID().toString());
-            logEntry.put("timestamp", LocalDateTime.now().toString());
-            logEntry.put("level", level);
-            logEntry.put("message", message);
-            logEntry.put("service", applicationName);
-
-            if (data != null) {
-                logEntry.put("data", data);
+        if (overflowPolicy == OverflowPolicy.SAMPLE && "INFO".equals(level)
+                && buffer.size() >= buffer.capacity() / 2
+                && sampleSequence.getAndIncrement() % SAMPLE_EVERY != 0) {
+            sampledCounter.increment();
+            return;
+        }
+
+        LogEntry entry = new LogEntry(level, message, data, LocalDateTime.now());
+        if (buffer.offer(entry)) {
+            return;
+        }
+
+        if (overflowPolicy == OverflowPolicy.BLOCK && offerWithin(entry, blockTimeout)) {
+            return;
+        }
+        overflowCounter.increment();
+    }
+
+    private boolean offerWithin(LogEntry entry, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        LockSupport.unpark(drainer);
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(Duration.ofMillis(1).toNanos());
+            if (buffer.offer(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drainContinuously() {
+        while (running) {
+            if (drainBatch() < batchSize) {
+                LockSupport.parkNanos(flushInterval.toNanos());
             }
+        }
+    }
 
-            // Use routing key pattern: level.service
-            String routingKey = level.toLowerCase() + "." + applicationName.toLowerCase();
+    /**
+     * Publish up to one batch of buffered entries over a single channel
+     *
+     * @return the number of entries taken from the buffer
+     */
+    private int drainBatch() {
+        List<LogEntry> batch = new ArrayList<>(Math.min(batchSize, buffer.size()));
+        LogEntry entry;
+        while (batch.size() < batchSize && (entry = buffer.poll()) != null) {
+            batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
 
-            rabbitTemplate.convertAndSend(loggingExchange, routingKey, objectMapper.writeValueAsString(logEntry));
+        try {
+            int published = rabbitTemplate.invoke(operations -> {
+                int sent = 0;
+                for (LogEntry logEntry : batch) {
+                    String json = toJson(logEntry);
+                    if (json != null) {
+                        // Use routing key pattern: level.service
+                        String routingKey = logEntry.level().toLowerCase() + "." + applicationName.toLowerCase();
+                        operations.convertAndSend(loggingExchange, routingKey, json);
+                        sent++;
+                    }
+                }
+                return sent;
+            });
+            publishedCounter.increment(published);
         } catch (Exception e) {
             // Fallback to local logging if publishing fails
-            logger.error("Failed to publish log message to RabbitMQ", e);
-            logger.info("Log message that failed to publish: {} - {}", level, message);
+            logger.error("Failed to publish {} log messages to RabbitMQ", batch.size(), e);
+            batch.forEach(failed -> logger.info("Log message that failed to publish: {} - {}",
+                    failed.level(), failed.message()));
+            publishFailedCounter.increment(batch.size());
+        }
+        return batch.size();
+    }
+
+    private String toJson(LogEntry entry) {
+        Map<String, Object> logEntry = new HashMap<>();
+        logEntry.put("id", UUID.randomUUID().toString());
+        logEntry.put("timestamp", entry.timestamp().toString());
+        logEntry.put("level", entry.level());
+        logEntry.put("message", entry.message());
+        logEntry.put("service", applicationName);
+
+        if (entry.data() != null) {
+            logEntry.put("data", entry.data());
+        }
+
+        try {
+            return objectMapper.writeValueAsString(logEntry);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize log message: {} - {}", entry.level(), entry.message(), e);
+            publishFailedCounter.increment();
+            return null;
         }
     }
+
+    private record LogEntry(String level, String message, Map<String, Object> data, LocalDateTime timestamp) {
+    }
 }
@@ -0,0 +1,72 @@
+package com.example.eventdriven.logging;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Which log entries {@link LogSampler} lets through to the logging exchange.
+ * Rates are the fraction of entries kept, from 0 (none) to 1 (all).
+ *
+ * @param infoRate the fraction of INFO entries kept
+ * @param warningRate the fraction of WARNING entries kept
+ * @param routeRates the fraction of HTTP request logs kept per URI prefix, overriding the INFO rate;
+ *                   the longest matching prefix wins
+ * @param rateLimit the maximum number of sampled entries published per second, or 0 for no limit
+ * @param burst the number of entries that may be published at once before the rate limit applies, at least
+ *              the {@link LogSampler#REQUEST_ENTRIES} of one HTTP request, which would otherwise never pass
+ * @param slowThreshold requests taking at least this long are always logged
+ */
+public record SamplingSettings(
+        double infoRate,
+        double warningRate,
+        Map<String, Double> routeRates,
+        double rateLimit,
+        int burst,
+        Duration slowThreshold) {
+
+    public SamplingSettings {
+        requireRate("INFO", infoRate);
+        requireRate("WARNING", warningRate);
+        routeRates.forEach(SamplingSettings::requireRate);
+        routeRates = Map.copyOf(routeRates);
+        if (rateLimit < 0) {
+            throw new IllegalArgumentException("Rate limit must not be negative: " + rateLimit);
+        }
+        if (burst < LogSampler.REQUEST_ENTRIES) {
+            throw new IllegalArgumentException("Burst must be at least the " + LogSampler.REQUEST_ENTRIES
+                    + " entries of an HTTP request: " + burst);
+        }
+        if (slowThreshold.isNegative()) {
+            throw new IllegalArgumentException("Slow threshold must not be negative: " + slowThreshold);
+        }
+    }
+
+    /**
+     * Parse route rates written as {@code prefix=rate} pairs separated by commas
+     *
+     * @param routeRates the route rates, for example {@code /actuator=0,/api/orders=0.05}
+     * @return the rate for each prefix
+     * @throws IllegalArgumentException if a pair is malformed
+     */
+    public static Map<String, Double> parseRouteRates(String routeRates) {
+        Map<String, Double> rates = new HashMap<>();
+        for (String pair : routeRates.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            int separator = pair.lastIndexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Route rate must be prefix=rate: " + pair);
+            }
+            rates.put(pair.substring(0, separator).trim(), Double.parseDouble(pair.substring(separator + 1).trim()));
+        }
+        return rates;
+    }
+
+    private static void requireRate(String name, Double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Sampling rate for " + name + " must be between 0 and 1: " + rate);
+        }
+    }
+}
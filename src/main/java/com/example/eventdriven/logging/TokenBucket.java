@@ -0,0 +1,54 @@
+package com.example.eventdriven.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket that refills at a fixed rate up to a burst size.
+ * Instead of a token count it stores the time at which the bucket will be full again, so
+ * taking tokens is a single compare-and-set and no thread is needed to refill it
+ * (the generic cell rate algorithm).
+ */
+final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param tokensPerSecond the refill rate
+     * @param burst the number of tokens the bucket holds when full
+     * @param nanoClock the source of {@link System#nanoTime()} style timestamps
+     */
+    TokenBucket(double tokensPerSecond, int burst, LongSupplier nanoClock) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive: " + tokensPerSecond + ", " + burst);
+        }
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000 / tokensPerSecond));
+        this.burstNanos = nanosPerToken * burst;
+        this.nanoClock = nanoClock;
+        this.fullAt = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Take tokens if the bucket holds enough of them
+     *
+     * @param tokens the number of tokens to take
+     * @return true if they were taken, false if the caller is over the rate limit
+     */
+    boolean tryAcquire(int tokens) {
+        long cost = nanosPerToken * tokens;
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + cost;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
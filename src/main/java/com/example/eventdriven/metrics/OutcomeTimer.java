@@ -0,0 +1,85 @@
+package com.example.eventdriven.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency of one kind of operation, as a pair of timers tagged {@code outcome=success} and
+ * {@code outcome=failure}. Histogram buckets come from the
+ * {@code management.metrics.distribution.slo} settings for the timer name.
+ */
+public final class OutcomeTimer {
+
+    private final Timer success;
+    private final Timer failure;
+
+    /**
+     * @param meterRegistry the registry to register the timers with
+     * @param name the timer name
+     * @param description the timer description
+     * @param tags further tags as key/value pairs, shared by both timers
+     */
+    public OutcomeTimer(MeterRegistry meterRegistry, String name, String description, String... tags) {
+        this.success = Timer.builder(name)
+                .description(description)
+                .tags(Tags.of(tags).and("outcome", "success"))
+                .register(meterRegistry);
+        this.failure = Timer.builder(name)
+                .description(description)
+                .tags(Tags.of(tags).and("outcome", "failure"))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run an action and record how long it took; exceptions are recorded as failures and rethrown
+     *
+     * @param action the action
+     */
+    public void record(Runnable action) {
+        long startNanos = System.nanoTime();
+        try {
+            action.run();
+        } catch (RuntimeException | Error e) {
+            recordFailure(startNanos);
+            throw e;
+        }
+        recordSuccess(startNanos);
+    }
+
+    /**
+     * Get a result and record how long it took; exceptions are recorded as failures and rethrown
+     *
+     * @param action the action
+     * @param <T> the type of the result
+     * @return the result of the action
+     */
+    public <T> T record(Supplier<T> action) {
+        long startNanos = System.nanoTime();
+        try {
+            T result = action.get();
+            recordSuccess(startNanos);
+            return result;
+        } catch (RuntimeException | Error e) {
+            recordFailure(startNanos);
+            throw e;
+        }
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} at which the operation started
+     */
+    public void recordSuccess(long startNanos) {
+        success.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} at which the operation started
+     */
+    public void recordFailure(long startNanos) {
+        failure.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
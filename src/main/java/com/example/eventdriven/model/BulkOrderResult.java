@@ -0,0 +1,75 @@
+package com.example.eventdriven.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * Outcome of a single line of a bulk order import
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkOrderResult {
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        FAILED
+    }
+
+    private final long line;
+    private final Status status;
+    private final String orderId;
+    private final String message;
+    private final Map<String, String> errors;
+
+    private BulkOrderResult(long line, Status status, String orderId, String message, Map<String, String> errors) {
+        this.line = line;
+        this.status = status;
+        this.orderId = orderId;
+        this.message = message;
+        this.errors = errors;
+    }
+
+    public static BulkOrderResult created(long line, String orderId) {
+        return new BulkOrderResult(line, Status.CREATED, orderId, null, null);
+    }
+
+    public static BulkOrderResult invalid(long line, String message, Map<String, String> errors) {
+        return new BulkOrderResult(line, Status.INVALID, null, message, errors);
+    }
+
+    public static BulkOrderResult failed(long line, String message) {
+        return new BulkOrderResult(line, Status.FAILED, null, message, null);
+    }
+
+    // Getters
+    public long getLine() {
+        return line;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkOrderResult{" +
+                "line=" + line +
+                ", status=" + status +
+                ", orderId='" + orderId + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.eventdriven.model;
+
+import java.util.UUID;
+
+/**
+ * Source of identifiers for entities that assign their ID on construction.
+ * The generator is replaced at startup from configuration; see {@code IdGeneratorConfig}.
+ */
+public final class EntityIds {
+
+    private static final int UUID_STRING_LENGTH = 36;
+
+    private static volatile IdGenerator generator = new UuidV7IdGenerator();
+
+    private EntityIds() {
+    }
+
+    /**
+     * Generate a new identifier in its canonical string form
+     *
+     * @return the identifier
+     */
+    public static String nextId() {
+        return generator.generate().toString();
+    }
+
+    /**
+     * Check whether a string is a well-formed identifier
+     *
+     * @param id the identifier to check
+     * @return true if the string is a canonical UUID
+     */
+    public static boolean isValid(String id) {
+        if (id == null || id.length() != UUID_STRING_LENGTH) {
+            return false;
+        }
+        try {
+            UUID.fromString(id);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public static IdGenerator getGenerator() {
+        return generator;
+    }
+
+    public static void setGenerator(IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+}
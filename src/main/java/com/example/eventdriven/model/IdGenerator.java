@@ -0,0 +1,16 @@
+package com.example.eventdriven.model;
+
+import java.util.UUID;
+
+/**
+ * Strategy for generating entity identifiers
+ */
+public interface IdGenerator {
+
+    /**
+     * Generate a new unique identifier
+     *
+     * @return the identifier
+     */
+    UUID generate();
+}
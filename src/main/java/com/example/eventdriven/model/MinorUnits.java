@@ -0,0 +1,50 @@
+package com.example.eventdriven.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts as a whole number of cents.
+ * Adding and subtracting longs needs no allocation, so totals can be kept up to date on every change;
+ * amounts are converted to {@link BigDecimal} with two decimal places only where they leave the model.
+ */
+public final class MinorUnits {
+
+    /**
+     * Decimal places of an amount, matching the scale of the money columns
+     */
+    public static final int SCALE = 2;
+
+    private MinorUnits() {
+    }
+
+    /**
+     * @param amount the amount, rounded half up to {@link #SCALE} decimal places
+     * @return the amount in minor units
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public static long of(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @param minorUnits the amount in minor units
+     * @return the amount with {@link #SCALE} decimal places
+     */
+    public static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * @param price the unit price, or null
+     * @param quantity the quantity, or null
+     * @return the price of the line in minor units, 0 if either is missing
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long lineTotal(BigDecimal price, Integer quantity) {
+        if (price == null || quantity == null) {
+            return 0;
+        }
+        return Math.multiplyExact(of(price), quantity.longValue());
+    }
+}
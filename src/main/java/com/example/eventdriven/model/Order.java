@@ -1,23 +1,28 @@
 package com.example.eventdriven.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
-import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Type;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
-public class Order {
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_created", columnList = "customer_id, created_at, id")
+})
+public class Order implements Persistable<String> {
 
     @Id
+    @Type(UuidStringType.class)
     @Column(name = "id", nullable = false)
     private String id;
 
@@ -35,12 +40,16 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Sum of the item line totals in minor units, kept up to date as items are added, removed or changed
+     */
     @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
-    @NotNull(message = "Total amount is required")
+    @Convert(converter = MinorUnitsConverter.class)
     @Positive(message = "Total amount must be positive")
-    private BigDecimal totalAmount;
+    private long totalAmount;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     @NotEmpty(message = "Order must contain at least one item")
     private List<OrderItem> items = new ArrayList<>();
 
@@ -48,8 +57,24 @@ public class Order {
     @NotBlank(message = "Shipping address is required")
     private String shippingAddress;
 
+    /**
+     * Incremented on every change, so an update based on a stale copy of the order fails instead of
+     * overwriting the change made in between
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * IDs are assigned on construction, so Spring Data cannot tell a new entity from a
+     * detached one by its ID. Tracking this explicitly lets save() persist new entities
+     * directly instead of merging them with a SELECT per row.
+     */
+    @Transient
+    private boolean isNew = true;
+
     public Order() {
-        this.id = UUID.randomUUID().toString();
+        this.id = EntityIds.nextId();
         this.status = OrderStatus.CREATED;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = this.createdAt;
@@ -59,25 +84,44 @@ public class Order {
         this();
         this.customerId = customerId;
         this.shippingAddress = shippingAddress;
-        this.totalAmount = BigDecimal.ZERO;
+    }
+
+    /**
+     * Recreate a detached, already persisted order from its state
+     */
+    Order(String id, String customerId, OrderStatus status, LocalDateTime createdAt, LocalDateTime updatedAt,
+          String shippingAddress, long version, List<OrderItem> items) {
+        this.id = id;
+        this.customerId = customerId;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.shippingAddress = shippingAddress;
+        this.version = version;
+        this.isNew = false;
+        setItems(items);
     }
 
     public void addItem(OrderItem item) {
         items.add(item);
         item.setOrder(this);
-        recalculateTotalAmount();
+        adjustTotalAmount(item.getLineTotal());
     }
 
     public void removeItem(OrderItem item) {
-        items.remove(item);
+        if (items.remove(item)) {
+            adjustTotalAmount(-item.getLineTotal());
+        }
         item.setOrder(null);
-        recalculateTotalAmount();
     }
 
-    private void recalculateTotalAmount() {
-        this.totalAmount = items.stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Add the change in an item's line total to the order total
+     *
+     * @param minorUnits the change in minor units
+     */
+    void adjustTotalAmount(long minorUnits) {
+        this.totalAmount = Math.addExact(totalAmount, minorUnits);
     }
 
     public void updateStatus(OrderStatus newStatus) {
@@ -86,10 +130,23 @@ public class Order {
     }
 
     // Getters and Setters
+    @Override
     public String getId() {
         return id;
     }
 
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     public String getCustomerId() {
         return customerId;
     }
@@ -119,7 +176,7 @@ public class Order {
     }
 
     public BigDecimal getTotalAmount() {
-        return totalAmount;
+        return MinorUnits.toAmount(totalAmount);
     }
 
     public List<OrderItem> getItems() {
@@ -128,8 +185,12 @@ public class Order {
 
     public void setItems(List<OrderItem> items) {
         this.items = items;
-        this.items.forEach(item -> item.setOrder(this));
-        recalculateTotalAmount();
+        long total = 0;
+        for (OrderItem item : items) {
+            item.setOrder(this);
+            total = Math.addExact(total, item.getLineTotal());
+        }
+        this.totalAmount = total;
     }
 
     public String getShippingAddress() {
@@ -140,6 +201,10 @@ public class Order {
         this.shippingAddress = shippingAddress;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -159,7 +224,7 @@ public class Order {
                 "id='" + id + '\'' +
                 ", customerId='" + customerId + '\'' +
                 ", status=" + status +
-                ", totalAmount=" + totalAmount +
+                ", totalAmount=" + getTotalAmount() +
                 ", itemCount=" + (items != null ? items.size() : 0) +
                 '}';
     }
@@ -1,19 +1,22 @@
 package com.example.eventdriven.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.Type;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.util.Objects;
-import java.util.UUID;
 
 @Entity
 @Table(name = "order_items")
-public class OrderItem {
+public class OrderItem implements Persistable<String> {
 
     @Id
+    @Type(UuidStringType.class)
     @Column(name = "id", nullable = false)
     private String id;
 
@@ -39,8 +42,12 @@ public class OrderItem {
     @Positive(message = "Price must be positive")
     private BigDecimal price;
 
+    // See Order#isNew
+    @Transient
+    private boolean isNew = true;
+
     public OrderItem() {
-        this.id = UUID.randomUUID().toString();
+        this.id = EntityIds.nextId();
     }
 
     public OrderItem(String productId, String productName, Integer quantity, BigDecimal price) {
@@ -51,11 +58,37 @@ public class OrderItem {
         this.price = price;
     }
 
+    /**
+     * Recreate a detached, already persisted order item from its state
+     */
+    OrderItem(String id, String productId, String productName, Integer quantity, BigDecimal price) {
+        this.id = id;
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.price = price;
+        this.isNew = false;
+    }
+
     // Getters and Setters
+    @Override
     public String getId() {
         return id;
     }
 
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @JsonIgnore
     public Order getOrder() {
         return order;
     }
@@ -85,7 +118,9 @@ public class OrderItem {
     }
 
     public void setQuantity(Integer quantity) {
+        long lineTotal = getLineTotal();
         this.quantity = quantity;
+        lineTotalChanged(lineTotal);
     }
 
     public BigDecimal getPrice() {
@@ -93,7 +128,23 @@ public class OrderItem {
     }
 
     public void setPrice(BigDecimal price) {
+        long lineTotal = getLineTotal();
         this.price = price;
+        lineTotalChanged(lineTotal);
+    }
+
+    /**
+     * @return the price of this line in {@link MinorUnits}
+     */
+    @JsonIgnore
+    public long getLineTotal() {
+        return MinorUnits.lineTotal(price, quantity);
+    }
+
+    private void lineTotalChanged(long previousLineTotal) {
+        if (order != null) {
+            order.adjustTotalAmount(getLineTotal() - previousLineTotal);
+        }
     }
 
     @Override
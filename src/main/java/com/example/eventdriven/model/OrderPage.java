@@ -0,0 +1,28 @@
+package com.example.eventdriven.model;
+
+import java.util.List;
+
+/**
+ * A page of a customer's orders and the cursor for the next page
+ */
+public class OrderPage {
+
+    private final List<Order> orders;
+    private final String nextCursor;
+
+    public OrderPage(List<Order> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    /**
+     * @return the cursor for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
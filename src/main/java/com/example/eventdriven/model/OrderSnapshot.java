@@ -0,0 +1,70 @@
+package com.example.eventdriven.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable copy of an order and its items, safe to share between threads.
+ * Every call to {@link #toOrder()} returns a new detached Order, so callers can never
+ * modify the shared state.
+ */
+public final class OrderSnapshot {
+
+    private final String id;
+    private final String customerId;
+    private final OrderStatus status;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final String shippingAddress;
+    private final long version;
+    private final List<ItemSnapshot> items;
+
+    private OrderSnapshot(Order order) {
+        this.id = order.getId();
+        this.customerId = order.getCustomerId();
+        this.status = order.getStatus();
+        this.createdAt = order.getCreatedAt();
+        this.updatedAt = order.getUpdatedAt();
+        this.shippingAddress = order.getShippingAddress();
+        this.version = order.getVersion();
+        this.items = order.getItems().stream()
+                .map(ItemSnapshot::new)
+                .toList();
+    }
+
+    /**
+     * Capture the current state of an order; its items must be loaded
+     *
+     * @param order the order
+     * @return the snapshot
+     */
+    public static OrderSnapshot of(Order order) {
+        return new OrderSnapshot(order);
+    }
+
+    /**
+     * @return a new detached order with the captured state
+     */
+    public Order toOrder() {
+        List<OrderItem> orderItems = new ArrayList<>(items.size());
+        items.forEach(item -> orderItems.add(item.toOrderItem()));
+        return new Order(id, customerId, status, createdAt, updatedAt, shippingAddress, version, orderItems);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private record ItemSnapshot(String id, String productId, String productName, Integer quantity, BigDecimal price) {
+
+        ItemSnapshot(OrderItem item) {
+            this(item.getId(), item.getProductId(), item.getProductName(), item.getQuantity(), item.getPrice());
+        }
+
+        OrderItem toOrderItem() {
+            return new OrderItem(id, productId, productName, quantity, price);
+        }
+    }
+}
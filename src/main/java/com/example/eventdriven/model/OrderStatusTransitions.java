@@ -0,0 +1,153 @@
+package com.example.eventdriven.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable table of the status transitions an order may make.
+ * The allowed targets of each status are held as a bitset indexed by ordinal, so checking a transition
+ * is a single mask test without allocation. Every status must be reachable from {@link OrderStatus#CREATED},
+ * the status new orders start in; statuses without transitions are final.
+ */
+public final class OrderStatusTransitions {
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    /**
+     * The standard order workflow, followed unless {@code app.orders.workflows} configures a default one
+     */
+    public static final OrderStatusTransitions DEFAULT = of(Map.of(
+            OrderStatus.CREATED, EnumSet.of(OrderStatus.PAID, OrderStatus.CANCELLED),
+            OrderStatus.PAID, EnumSet.of(OrderStatus.PROCESSING, OrderStatus.CANCELLED),
+            OrderStatus.PROCESSING, EnumSet.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED),
+            OrderStatus.SHIPPED, EnumSet.of(OrderStatus.DELIVERED),
+            OrderStatus.DELIVERED, EnumSet.of(OrderStatus.REFUNDED)));
+
+    /**
+     * Bit {@code to.ordinal()} of element {@code from.ordinal()} is set if the transition is allowed
+     */
+    private final long[] allowed;
+
+    private OrderStatusTransitions(long[] allowed) {
+        this.allowed = allowed;
+    }
+
+    /**
+     * Build a transition table
+     *
+     * @param transitions the statuses each status may move to; statuses left out are final
+     * @return the table
+     * @throws IllegalArgumentException if a status may move to itself or cannot be reached from CREATED
+     */
+    public static OrderStatusTransitions of(Map<OrderStatus, ? extends Collection<OrderStatus>> transitions) {
+        long[] allowed = new long[STATUSES.length];
+        transitions.forEach((from, targets) -> {
+            for (OrderStatus to : targets) {
+                if (from == to) {
+                    throw new IllegalArgumentException("Status " + from + " cannot transition to itself");
+                }
+                allowed[from.ordinal()] |= 1L << to.ordinal();
+            }
+        });
+
+        long unreachable = ~reachableFrom(allowed, OrderStatus.CREATED) & ((1L << STATUSES.length) - 1);
+        if (unreachable != 0) {
+            throw new IllegalArgumentException("Statuses cannot be reached from " + OrderStatus.CREATED + ": "
+                    + toSet(unreachable));
+        }
+        return new OrderStatusTransitions(allowed);
+    }
+
+    /**
+     * Check whether an order may move from one status to another
+     *
+     * @param from the current status
+     * @param to the new status
+     * @return true if the transition is allowed
+     */
+    public boolean allows(OrderStatus from, OrderStatus to) {
+        return (allowed[from.ordinal()] & (1L << to.ordinal())) != 0;
+    }
+
+    /**
+     * @param from the current status
+     * @return true if an order in the status may be cancelled
+     */
+    public boolean canCancel(OrderStatus from) {
+        return allows(from, OrderStatus.CANCELLED);
+    }
+
+    /**
+     * @param from the current status
+     * @return true if no transition leads out of the status
+     */
+    public boolean isFinal(OrderStatus from) {
+        return allowed[from.ordinal()] == 0;
+    }
+
+    /**
+     * @param from the current status
+     * @return a new set of the statuses an order may move to
+     */
+    public Set<OrderStatus> nextStatuses(OrderStatus from) {
+        return toSet(allowed[from.ordinal()]);
+    }
+
+    /**
+     * @return the table as a map from each non-final status to its allowed targets
+     */
+    public Map<OrderStatus, Set<OrderStatus>> toMap() {
+        Map<OrderStatus, Set<OrderStatus>> transitions = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus from : STATUSES) {
+            if (!isFinal(from)) {
+                transitions.put(from, nextStatuses(from));
+            }
+        }
+        return transitions;
+    }
+
+    private static long reachableFrom(long[] allowed, OrderStatus start) {
+        long reached = 1L << start.ordinal();
+        long frontier = reached;
+        while (frontier != 0) {
+            long next = 0;
+            for (int i = 0; i < STATUSES.length; i++) {
+                if ((frontier & (1L << i)) != 0) {
+                    next |= allowed[i];
+                }
+            }
+            frontier = next & ~reached;
+            reached |= next;
+        }
+        return reached;
+    }
+
+    private static Set<OrderStatus> toSet(long bits) {
+        Set<OrderStatus> statuses = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : STATUSES) {
+            if ((bits & (1L << status.ordinal())) != 0) {
+                statuses.add(status);
+            }
+        }
+        return statuses;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof OrderStatusTransitions other && Arrays.equals(allowed, other.allowed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(allowed);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
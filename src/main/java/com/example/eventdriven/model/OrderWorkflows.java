@@ -0,0 +1,57 @@
+package com.example.eventdriven.model;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The status transition tables in use, one per order type.
+ * Orders of a type without a table of its own follow the default one.
+ */
+public final class OrderWorkflows {
+
+    /**
+     * Name of the workflow used for orders without a type of their own
+     */
+    public static final String DEFAULT = "default";
+
+    private final OrderStatusTransitions defaultTransitions;
+    private final Map<String, OrderStatusTransitions> byType;
+
+    /**
+     * @param byType the transition table of each order type; the {@link #DEFAULT} entry, if any,
+     *               replaces the standard workflow
+     */
+    public OrderWorkflows(Map<String, OrderStatusTransitions> byType) {
+        this.byType = Map.copyOf(byType);
+        this.defaultTransitions = byType.getOrDefault(DEFAULT, OrderStatusTransitions.DEFAULT);
+    }
+
+    /**
+     * @return workflows where every order follows the standard workflow
+     */
+    public static OrderWorkflows standard() {
+        return new OrderWorkflows(Map.of());
+    }
+
+    /**
+     * @return the transitions of orders without a type of their own
+     */
+    public OrderStatusTransitions getDefault() {
+        return defaultTransitions;
+    }
+
+    /**
+     * @param orderType the order type, or null
+     * @return the transitions of orders of the type
+     */
+    public OrderStatusTransitions forType(String orderType) {
+        return orderType != null ? byType.getOrDefault(orderType, defaultTransitions) : defaultTransitions;
+    }
+
+    /**
+     * @return the order types with a workflow of their own
+     */
+    public Set<String> getTypes() {
+        return byType.keySet();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.eventdriven.model;
+
+import com.example.eventdriven.model.event.EventMessage;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Event waiting in the transactional outbox to be relayed to RabbitMQ.
+ * Rows are written in the same transaction as the order change that produced them
+ * and deleted by the relay once the event has been handed to the broker.
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_messages_aggregate", columnList = "aggregate_id, aggregate_sequence")
+})
+public class OutboxMessage {
+
+    /**
+     * Taken from a pooled sequence so inserts can be batched. IDs of different nodes interleave,
+     * so they only roughly follow insertion order; {@link #aggregateSequence} orders the entries of an order.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_messages_seq")
+    @SequenceGenerator(name = "outbox_messages_seq", sequenceName = "outbox_messages_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    /**
+     * ID the event is published under, the same on every attempt so consumers can recognise redeliveries
+     */
+    @Column(name = "message_id", nullable = false, length = 36)
+    private String messageId;
+
+    /**
+     * ID of the request or message that caused the event, null if there was none
+     */
+    @Column(name = "correlation_id")
+    private String correlationId;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private String aggregateId;
+
+    /**
+     * Position among the pending entries of the aggregate, the order the relay publishes them in.
+     * Entries of an order are written while the transaction holds the order row, so this follows commit order.
+     */
+    @Column(name = "aggregate_sequence", nullable = false)
+    private long aggregateSequence;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "event_version", nullable = false)
+    private int eventVersion;
+
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Until when a relay instance is publishing the entry, null while no instance is
+     */
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    // Default constructor for JPA
+    protected OutboxMessage() {
+    }
+
+    public OutboxMessage(String aggregateId, long aggregateSequence, String eventType, String payload) {
+        this(aggregateId, aggregateSequence, eventType, payload, null, EventMessage.SCHEMA_VERSION);
+    }
+
+    public OutboxMessage(String aggregateId, long aggregateSequence, String eventType, String payload,
+                         String correlationId, int eventVersion) {
+        this.messageId = EntityIds.nextId();
+        this.correlationId = correlationId;
+        this.aggregateId = aggregateId;
+        this.aggregateSequence = aggregateSequence;
+        this.eventType = eventType;
+        this.eventVersion = eventVersion;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public String getAggregateId() {
+        return aggregateId;
+    }
+
+    public long getAggregateSequence() {
+        return aggregateSequence;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public int getEventVersion() {
+        return eventVersion;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OutboxMessage that = (OutboxMessage) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage{" +
+                "id=" + id +
+                ", messageId='" + messageId + '\'' +
+                ", aggregateId='" + aggregateId + '\'' +
+                ", aggregateSequence=" + aggregateSequence +
+                ", eventType='" + eventType + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
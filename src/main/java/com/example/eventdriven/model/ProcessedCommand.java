@@ -0,0 +1,74 @@
+package com.example.eventdriven.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Message ID of a command received from RabbitMQ that has been applied.
+ * Rows are written in the same transaction as the command's changes, so a redelivered
+ * command is recognised, and removed once redeliveries are no longer expected.
+ */
+@Entity
+@Table(name = "processed_commands", indexes = {
+        @Index(name = "idx_processed_commands_processed_at", columnList = "processed_at")
+})
+public class ProcessedCommand implements Persistable<String> {
+
+    @Id
+    @Column(name = "message_id", nullable = false)
+    private String messageId;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    /**
+     * The ID is the message ID, so save() needs this to insert without looking the row up first
+     */
+    @Transient
+    private boolean isNew = true;
+
+    // Default constructor for JPA
+    protected ProcessedCommand() {
+    }
+
+    public ProcessedCommand(String messageId) {
+        this.messageId = messageId;
+        this.processedAt = LocalDateTime.now();
+    }
+
+    @Override
+    public String getId() {
+        return messageId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProcessedCommand that = (ProcessedCommand) o;
+        return Objects.equals(messageId, that.messageId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(messageId);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.eventdriven.model;
+
+import java.util.UUID;
+
+/**
+ * Generates random (version 4) UUIDs.
+ * Kept for comparison and for deployments that must not expose creation time in IDs;
+ * random keys scatter inserts across the primary key index.
+ */
+public class RandomUuidIdGenerator implements IdGenerator {
+
+    @Override
+    public UUID generate() {
+        return UUID.randomUUID();
+    }
+}
@@ -4,10 +4,24 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
- * Base class for all event messages in the system.
- * Provides common properties for tracing and tracking events.
+ * Envelope of an event message.
+ * Only the payload travels in the message body; the metadata is carried in the AMQP message properties
+ * (message ID, correlation ID, timestamp, type and app ID) and the {@link #VERSION_HEADER} header,
+ * so consumers and the broker can route, deduplicate and trace events without parsing the body.
  */
-public abstract class EventMessage<T> {
+public class EventMessage<T> {
+
+    /**
+     * Header carrying the schema version of the payload
+     */
+    public static final String VERSION_HEADER = "x-event-version";
+
+    /**
+     * Schema version of the events published by this release. Raise it when a payload changes in a way
+     * older consumers cannot read; they dead-letter events of a newer version instead of misreading them.
+     */
+    public static final int SCHEMA_VERSION = 1;
+
     private String messageId;
     private String correlationId;
     private LocalDateTime timestamp;
@@ -19,10 +33,10 @@ public abstract class EventMessage<T> {
     protected EventMessage() {
         this.messageId = UUID.randomUUID().toString();
         this.timestamp = LocalDateTime.now();
-        this.version = 1;
+        this.version = SCHEMA_VERSION;
     }
 
-    protected EventMessage(T payload, String eventType, String source) {
+    public EventMessage(T payload, String eventType, String source) {
         this();
         this.payload = payload;
         this.eventType = eventType;
@@ -30,13 +44,39 @@ public abstract class EventMessage<T> {
         this.correlationId = this.messageId;
     }
 
-    protected EventMessage(T payload, String eventType, String source, String correlationId) {
+    public EventMessage(T payload, String eventType, String source, String correlationId) {
         this(payload, eventType, source);
         if (correlationId != null && !correlationId.isBlank()) {
             this.correlationId = correlationId;
         }
     }
 
+    /**
+     * Restore an envelope whose metadata was stored, e.g. in the outbox
+     */
+    public EventMessage(String messageId, String correlationId, LocalDateTime timestamp, T payload,
+                        String eventType, String source, int version) {
+        this.messageId = messageId;
+        this.correlationId = correlationId != null ? correlationId : messageId;
+        this.timestamp = timestamp;
+        this.payload = payload;
+        this.eventType = eventType;
+        this.source = source;
+        this.version = version;
+    }
+
+    /**
+     * Wrap an event in a new envelope named after its class
+     *
+     * @param payload the event
+     * @param source the application publishing the event
+     * @param <T> the type of the event
+     * @return the envelope
+     */
+    public static <T> EventMessage<T> of(T payload, String source) {
+        return new EventMessage<>(payload, payload.getClass().getSimpleName(), source);
+    }
+
     // Getters and Setters
     public String getMessageId() {
         return messageId;
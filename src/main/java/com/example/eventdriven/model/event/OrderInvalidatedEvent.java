@@ -0,0 +1,32 @@
+package com.example.eventdriven.model.event;
+
+/**
+ * Broadcast to all instances after an order has changed, so they drop cached copies of it
+ */
+public class OrderInvalidatedEvent {
+    private String orderId;
+
+    // Default constructor for JSON deserialization
+    public OrderInvalidatedEvent() {
+    }
+
+    public OrderInvalidatedEvent(String orderId) {
+        this.orderId = orderId;
+    }
+
+    // Getters and Setters
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderInvalidatedEvent{" +
+                "orderId='" + orderId + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.eventdriven.repository;
+
+import com.example.eventdriven.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for idempotency keys and their stored responses
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reserve an expired key for a new request, unless another request took it over since it was read
+     *
+     * @param key the idempotency key
+     * @param createdAt the creation time of the expired row as it was read
+     * @param fingerprint the fingerprint of the new request
+     * @param now the current time
+     * @param expiresAt when the new reservation expires
+     * @return 1 if the key was reserved, 0 if another request took it first
+     */
+    @Modifying
+    @Query("update IdempotencyRecord r set r.fingerprint = :fingerprint, r.responseStatus = 0, r.responseBody = null,"
+            + " r.createdAt = :now, r.expiresAt = :expiresAt"
+            + " where r.idempotencyKey = :key and r.createdAt = :createdAt")
+    int takeOver(
+            @Param("key") String key,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("fingerprint") String fingerprint,
+            @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Store the response of a reserved key, unless the reservation was taken over since
+     *
+     * @param key the idempotency key
+     * @param createdAt when the key was reserved
+     * @param status the HTTP status of the response
+     * @param body the response body
+     * @param expiresAt until when the response is replayed
+     * @return 1 if the response was stored, 0 if the reservation is gone
+     */
+    @Modifying
+    @Query("update IdempotencyRecord r set r.responseStatus = :status, r.responseBody = :body, r.expiresAt = :expiresAt"
+            + " where r.idempotencyKey = :key and r.createdAt = :createdAt and r.responseStatus = 0")
+    int complete(
+            @Param("key") String key,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("status") int status,
+            @Param("body") String body,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Remove the reservation of a failed request, unless it was completed or taken over since
+     *
+     * @param key the idempotency key
+     * @param fingerprint the fingerprint of the failed request
+     * @param createdAt when the failed request reserved the key
+     * @return 1 if the reservation was removed, 0 otherwise
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.idempotencyKey = :key and r.fingerprint = :fingerprint"
+            + " and r.createdAt = :createdAt and r.responseStatus = 0")
+    int release(
+            @Param("key") String key,
+            @Param("fingerprint") String fingerprint,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Remove the keys that expired before the given time, in a single statement
+     *
+     * @param now the current time
+     * @return the number of keys removed
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
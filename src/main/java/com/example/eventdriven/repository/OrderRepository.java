@@ -1,10 +1,22 @@
 package com.example.eventdriven.repository;
 
 import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for Order entity operations
@@ -12,11 +24,94 @@ import java.util.List;
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String> {
 
+    /**
+     * Find an order together with its items in a single query
+     *
+     * @param id the order ID
+     * @return optional containing the order if found
+     */
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsById(String id);
+
+    /**
+     * Read the current status of an order without loading the order
+     *
+     * @param id the order ID
+     * @return optional containing the status if the order exists
+     */
+    @Query("select o.status from Order o where o.id = :id")
+    Optional<OrderStatus> findStatusById(@Param("id") String id);
+
+    /**
+     * Move an order to a new status, but only if it is still in the expected status.
+     * Runs as a single UPDATE without loading the order and increments its version, so
+     * concurrent changes of the same order cannot both succeed. Pending changes are flushed before and
+     * the persistence context is cleared after, so orders read later in the transaction show the update.
+     *
+     * @param id the order ID
+     * @param expectedStatus the status the transition was checked against
+     * @param newStatus the new status
+     * @param updatedAt the time of the change
+     * @return 1 if the order was updated, 0 if it was not found in the expected status
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.status = :newStatus, o.updatedAt = :updatedAt, o.version = o.version + 1"
+            + " where o.id = :id and o.status = :expectedStatus")
+    int updateStatus(
+            @Param("id") String id,
+            @Param("expectedStatus") OrderStatus expectedStatus,
+            @Param("newStatus") OrderStatus newStatus,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
     /**
      * Find all orders for a specific customer
      *
      * @param customerId the customer ID
      * @return list of orders for the customer
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByCustomerId(String customerId);
+
+    /**
+     * Find the first page of a customer's orders, oldest first
+     *
+     * @param customerId the customer ID
+     * @param limit the page size
+     * @return the orders ordered by creation time and ID
+     */
+    List<Order> findByCustomerIdOrderByCreatedAtAscIdAsc(String customerId, Limit limit);
+
+    /**
+     * Find the page of a customer's orders that follows the given position (keyset pagination),
+     * using the (customer_id, created_at, id) index instead of an offset scan
+     *
+     * @param customerId the customer ID
+     * @param createdAt the creation time of the last order of the previous page
+     * @param id the ID of the last order of the previous page
+     * @param limit the page size
+     * @return the orders after the position, ordered by creation time and ID
+     */
+    @Query("select o from Order o where o.customerId = :customerId"
+            + " and (o.createdAt > :createdAt or (o.createdAt = :createdAt and o.id > :id))"
+            + " order by o.createdAt, o.id")
+    List<Order> findPageAfter(
+            @Param("customerId") String customerId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") String id,
+            Limit limit);
+
+    /**
+     * Stream all orders of a customer with their items, oldest first.
+     * Rows are fetched from the cursor in chunks and must be consumed inside a transaction.
+     *
+     * @param customerId the customer ID
+     * @return stream of the customer's orders
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o from Order o left join fetch o.items where o.customerId = :customerId"
+            + " order by o.createdAt, o.id")
+    Stream<Order> streamByCustomerId(@Param("customerId") String customerId);
 }
@@ -0,0 +1,79 @@
+package com.example.eventdriven.repository;
+
+import com.example.eventdriven.model.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for transactional outbox entries
+ */
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Lock the oldest outbox entries that no relay instance has claimed, or whose claim has expired.
+     * Rows already locked by another relay instance are skipped, so several application nodes can claim
+     * entries concurrently; the lock is only held until the claim is stored, see {@link #claim}.
+     *
+     * @param now the current time
+     * @param limit the maximum number of entries to return
+     * @return the oldest unclaimed entries in ID order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select o from OutboxMessage o where o.claimedUntil is null or o.claimedUntil < :now order by o.id")
+    List<OutboxMessage> findUnclaimed(@Param("now") LocalDateTime now, Limit limit);
+
+    /**
+     * Find the ID of the first pending entry of each aggregate, whether or not another relay has claimed it
+     *
+     * @param aggregateIds the aggregate IDs
+     * @return the ID of the entry with the lowest aggregate sequence of every aggregate that has one
+     */
+    @Query("select o.id from OutboxMessage o where o.aggregateId in :aggregateIds and o.aggregateSequence ="
+            + " (select min(p.aggregateSequence) from OutboxMessage p where p.aggregateId = o.aggregateId)")
+    List<Long> findFirstIdsByAggregateIds(@Param("aggregateIds") Collection<String> aggregateIds);
+
+    /**
+     * Find the highest sequence of the pending entries of an aggregate
+     *
+     * @param aggregateId the aggregate ID
+     * @return the highest sequence, empty if the aggregate has no pending entries
+     */
+    @Query("select max(o.aggregateSequence) from OutboxMessage o where o.aggregateId = :aggregateId")
+    Optional<Long> findLastSequence(@Param("aggregateId") String aggregateId);
+
+    /**
+     * Claim entries for one relay instance, so others leave them alone until the claim expires
+     *
+     * @param ids the entry IDs
+     * @param claimedUntil when the claim expires
+     * @return the number of entries claimed
+     */
+    @Modifying
+    @Query("update OutboxMessage o set o.claimedUntil = :claimedUntil where o.id in :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    /**
+     * Release the claim on entries that were not published, so the next run can pick them up
+     *
+     * @param ids the entry IDs
+     * @return the number of entries released
+     */
+    @Modifying
+    @Query("update OutboxMessage o set o.claimedUntil = null where o.id in :ids")
+    int release(@Param("ids") Collection<Long> ids);
+}
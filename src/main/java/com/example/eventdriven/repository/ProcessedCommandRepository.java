@@ -0,0 +1,27 @@
+package com.example.eventdriven.repository;
+
+import com.example.eventdriven.model.ProcessedCommand;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for the message IDs of applied commands
+ */
+@Repository
+public interface ProcessedCommandRepository extends JpaRepository<ProcessedCommand, String> {
+
+    /**
+     * Forget the commands processed before the given time, in a single statement
+     *
+     * @param processedBefore the cut-off time
+     * @return the number of message IDs removed
+     */
+    @Modifying
+    @Query("delete from ProcessedCommand c where c.processedAt < :processedBefore")
+    int deleteProcessedBefore(@Param("processedBefore") LocalDateTime processedBefore);
+}
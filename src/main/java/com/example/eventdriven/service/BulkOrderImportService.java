@@ -0,0 +1,211 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.BulkOrderResult;
+import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service for importing orders from newline-delimited JSON (one CreateOrderCommand per line).
+ * The input is read in chunks of {@code chunkSize} lines and the valid commands of each chunk
+ * are stored in one transaction. Per-line results are written as NDJSON in input order as soon
+ * as their chunk has been committed, so neither the request nor the response is held in memory.
+ */
+@Service
+public class BulkOrderImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkOrderImportService.class);
+
+    private static final byte NEWLINE = '\n';
+
+    private final OrderService orderService;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ObjectReader commandReader;
+    private final ObjectWriter resultWriter;
+    private final int chunkSize;
+
+    public BulkOrderImportService(
+            OrderService orderService,
+            EntityManager entityManager,
+            Validator validator,
+            ObjectMapper objectMapper,
+            @Value("${app.orders.bulk.chunk-size:500}") int chunkSize) {
+        this.orderService = orderService;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.commandReader = objectMapper.readerFor(CreateOrderCommand.class);
+        this.resultWriter = objectMapper.writerFor(BulkOrderResult.class);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Import orders from an NDJSON stream
+     *
+     * @param input the NDJSON request body
+     * @param output the stream the per-line NDJSON results are written to
+     * @return summary of the import
+     * @throws IOException if reading the input or writing the results fails
+     */
+    public ImportSummary importOrders(InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Chunk chunk = new Chunk();
+        ImportSummary summary = new ImportSummary();
+
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            chunk.add(lineNumber, parse(lineNumber, line));
+            if (chunk.lines.size() >= chunkSize) {
+                flush(chunk, output, summary);
+            }
+        }
+        flush(chunk, output, summary);
+
+        logger.info("Bulk import finished: {} created, {} invalid, {} failed",
+                summary.created, summary.invalid, summary.failed);
+        return summary;
+    }
+
+    /**
+     * Parse and validate a single line, returning either the command or the rejection
+     */
+    private Object parse(long lineNumber, String line) {
+        CreateOrderCommand command;
+        try {
+            command = commandReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            return BulkOrderResult.invalid(lineNumber, "Malformed JSON: " + e.getOriginalMessage(), null);
+        }
+
+        Set<ConstraintViolation<CreateOrderCommand>> violations = validator.validate(command);
+        if (violations.isEmpty()) {
+            return command;
+        }
+
+        Map<String, String> errors = new LinkedHashMap<>();
+        violations.forEach(violation ->
+                errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+        return BulkOrderResult.invalid(lineNumber, "Validation failed", errors);
+    }
+
+    /**
+     * Store the valid commands of the chunk in one transaction and write the results of all its lines
+     */
+    private void flush(Chunk chunk, OutputStream output, ImportSummary summary) throws IOException {
+        if (chunk.lines.isEmpty()) {
+            return;
+        }
+
+        if (!chunk.commands.isEmpty()) {
+            try {
+                List<Order> orders = orderService.createOrders(chunk.commands);
+                for (int i = 0; i < orders.size(); i++) {
+                    chunk.complete(i, BulkOrderResult.created(chunk.commandLines.get(i), orders.get(i).getId()));
+                }
+                summary.created += orders.size();
+
+                // With open-in-view the request's persistence context outlives each chunk's
+                // transaction; detach the stored orders so it does not grow with the import
+                entityManager.clear();
+            } catch (RuntimeException e) {
+                // The whole chunk was rolled back, none of its orders exist
+                logger.error("Failed to store bulk chunk of {} orders", chunk.commands.size(), e);
+                for (int i = 0; i < chunk.commands.size(); i++) {
+                    chunk.complete(i, BulkOrderResult.failed(chunk.commandLines.get(i), e.getMessage()));
+                }
+                summary.failed += chunk.commands.size();
+            }
+        }
+
+        for (Object result : chunk.lines) {
+            BulkOrderResult lineResult = (BulkOrderResult) result;
+            if (lineResult.getStatus() == BulkOrderResult.Status.INVALID) {
+                summary.invalid++;
+            }
+            output.write(resultWriter.writeValueAsBytes(lineResult));
+            output.write(NEWLINE);
+        }
+        output.flush();
+        chunk.clear();
+    }
+
+    /**
+     * Lines read since the last flush: rejected lines hold their result, valid ones hold
+     * their command until the chunk is stored
+     */
+    private static class Chunk {
+        private final List<Object> lines = new ArrayList<>();
+        private final List<CreateOrderCommand> commands = new ArrayList<>();
+        private final List<Long> commandLines = new ArrayList<>();
+        private final List<Integer> commandPositions = new ArrayList<>();
+
+        void add(long lineNumber, Object parsed) {
+            if (parsed instanceof CreateOrderCommand command) {
+                commands.add(command);
+                commandLines.add(lineNumber);
+                commandPositions.add(lines.size());
+            }
+            lines.add(parsed);
+        }
+
+        void complete(int commandIndex, BulkOrderResult result) {
+            lines.set(commandPositions.get(commandIndex), result);
+        }
+
+        void clear() {
+            lines.clear();
+            commands.clear();
+            commandLines.clear();
+            commandPositions.clear();
+        }
+    }
+
+    /**
+     * Counts of the lines of an import by outcome
+     */
+    public static class ImportSummary {
+        private int created;
+        private int invalid;
+        private int failed;
+
+        public int getCreated() {
+            return created;
+        }
+
+        public int getInvalid() {
+            return invalid;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+    }
+}
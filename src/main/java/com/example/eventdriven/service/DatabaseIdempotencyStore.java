@@ -0,0 +1,118 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.IdempotencyRecord;
+import com.example.eventdriven.repository.IdempotencyRecordRepository;
+import com.example.eventdriven.service.IdempotencyService.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency store kept in the idempotency_keys table, so a retry is recognised whichever instance it reaches.
+ * A key is reserved by inserting its row; the primary key makes concurrent reservations of the same key fail
+ * for all but one request. The response is written in the transaction of the request itself, which the
+ * order service joins, so an order is never committed without its response or the other way round.
+ * Reservations are only released or taken over while they still hold the row as it was reserved, and
+ * expired rows are purged periodically.
+ */
+@Component
+@ConditionalOnProperty(name = "app.orders.idempotency.store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseIdempotencyStore.class);
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration timeToLive;
+
+    public DatabaseIdempotencyStore(
+            IdempotencyRecordRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.idempotency.time-to-live:24h}") Duration timeToLive) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public Optional<Entry> reserve(Reservation reservation) {
+        try {
+            return transactionTemplate.execute(status -> reserveInTransaction(reservation));
+        } catch (DataIntegrityViolationException e) {
+            // Another request inserted the key first, report what it stored
+            return transactionTemplate.execute(status -> reserveInTransaction(reservation));
+        }
+    }
+
+    @Override
+    public Response complete(Reservation reservation, Supplier<Response> request) {
+        return transactionTemplate.execute(status -> {
+            Response response = request.get();
+            int updated = repository.complete(reservation.key(), reservation.reservedAt(), response.status(),
+                    response.body(), LocalDateTime.now().plus(timeToLive));
+            if (updated == 0) {
+                // Roll the request back rather than commit it without its response
+                throw new IllegalStateException("Reservation of idempotency key " + reservation.key() + " was lost");
+            }
+            return response;
+        });
+    }
+
+    @Override
+    public void release(Reservation reservation) {
+        transactionTemplate.executeWithoutResult(status ->
+                repository.release(reservation.key(), reservation.fingerprint(), reservation.reservedAt()));
+    }
+
+    @Override
+    public long size() {
+        return repository.count();
+    }
+
+    /**
+     * Remove expired keys, which are no longer replayed
+     */
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.purge-interval:600000}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        logger.debug("Purged {} expired idempotency keys", purged);
+    }
+
+    private Optional<Entry> reserveInTransaction(Reservation reservation) {
+        String key = reservation.key();
+        LocalDateTime reservedAt = reservation.reservedAt();
+        LocalDateTime expiresAt = reservedAt.plus(timeToLive);
+        Optional<IdempotencyRecord> existing = repository.findById(key);
+        if (existing.isEmpty()) {
+            repository.saveAndFlush(new IdempotencyRecord(key, reservation.fingerprint(), reservedAt, expiresAt));
+            return Optional.empty();
+        }
+
+        IdempotencyRecord record = existing.get();
+        if (record.getExpiresAt().isAfter(LocalDateTime.now())) {
+            return Optional.of(toEntry(record));
+        }
+        if (repository.takeOver(key, record.getCreatedAt(), reservation.fingerprint(), reservedAt, expiresAt) > 0) {
+            return Optional.empty();
+        }
+
+        // Another request took the expired key over first and is still running
+        return Optional.of(new Entry(reservation.fingerprint(), 0, null, reservedAt, expiresAt));
+    }
+
+    private static Entry toEntry(IdempotencyRecord record) {
+        return new Entry(record.getFingerprint(), record.getResponseStatus(), record.getResponseBody(),
+                record.getCreatedAt(), record.getExpiresAt());
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.service.IdempotencyStore.Entry;
+import com.example.eventdriven.service.IdempotencyStore.Reservation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Service running requests sent with an idempotency key at most once.
+ * The first request with a key runs and its response is stored; retries with the same key and request
+ * get the stored response back without running again. Reusing a key for a different request, or
+ * retrying while the first request is still running, is refused. Failed requests are not stored,
+ * so they can be retried with the same key; a request whose outcome is unknown, because the instance
+ * running it stopped, keeps its key refused until the time to live has passed.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    /**
+     * Longest accepted idempotency key, the size of the key column
+     */
+    static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Response of a request
+     *
+     * @param status the HTTP status
+     * @param body the response body
+     * @param replayed true if the response was stored by an earlier request with the same key
+     */
+    public record Response(int status, String body, boolean replayed) {
+
+        public Response(int status, String body) {
+            this(status, body, false);
+        }
+    }
+
+    /**
+     * Thrown when a key is sent again with a different request
+     */
+    public static class IdempotencyKeyReusedException extends RuntimeException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public IdempotencyKeyReusedException(String key) {
+            super("Idempotency key " + key + " was already used for a different request");
+        }
+    }
+
+    /**
+     * Thrown when a key is sent again while the first request with it is still running or never finished
+     */
+    public static class RequestInProgressException extends RuntimeException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public RequestInProgressException(String key) {
+            super("A request with idempotency key " + key + " is still in progress or did not finish");
+        }
+    }
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+
+    private final Counter executedCounter;
+    private final Counter replayedCounter;
+    private final Counter inProgressCounter;
+    private final Counter reusedCounter;
+
+    public IdempotencyService(IdempotencyStore store, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+
+        this.executedCounter = requestCounter(meterRegistry, "executed");
+        this.replayedCounter = requestCounter(meterRegistry, "replayed");
+        this.inProgressCounter = requestCounter(meterRegistry, "in-progress");
+        this.reusedCounter = requestCounter(meterRegistry, "key-reused");
+        Gauge.builder("idempotency.store.size", store, IdempotencyStore::size)
+                .description("Idempotency keys held in the store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a request once per idempotency key
+     *
+     * @param key the idempotency key sent by the client
+     * @param request the request, whose JSON form identifies it
+     * @param action runs the request and returns its response
+     * @return the response, stored or new
+     * @throws IllegalArgumentException if the key is blank or too long
+     * @throws IdempotencyKeyReusedException if the key was used for a different request
+     * @throws RequestInProgressException if a request with the key is still running
+     */
+    public Response execute(String key, Object request, Supplier<Response> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        // Truncated so the time reads back unchanged from the database
+        Reservation reservation = new Reservation(key, fingerprint(request),
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        Optional<Entry> existing = store.reserve(reservation);
+        if (existing.isPresent()) {
+            return replay(key, reservation.fingerprint(), existing.get());
+        }
+
+        Response response;
+        try {
+            response = store.complete(reservation, action);
+        } catch (RuntimeException e) {
+            store.release(reservation);
+            throw e;
+        }
+        executedCounter.increment();
+        return response;
+    }
+
+    private Response replay(String key, String fingerprint, Entry entry) {
+        if (!entry.fingerprint().equals(fingerprint)) {
+            reusedCounter.increment();
+            throw new IdempotencyKeyReusedException(key);
+        }
+        if (!entry.isCompleted()) {
+            inProgressCounter.increment();
+            throw new RequestInProgressException(key);
+        }
+
+        logger.debug("Replaying stored response for idempotency key {}", key);
+        replayedCounter.increment();
+        return new Response(entry.status(), entry.body(), true);
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests sent with an idempotency key")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
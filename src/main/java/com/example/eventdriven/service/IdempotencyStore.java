@@ -0,0 +1,85 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.service.IdempotencyService.Response;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Storage for the responses of requests sent with an idempotency key.
+ * A key is reserved before its request runs and then completed with the response, or released if the
+ * request failed. A reservation that is neither completed nor released leaves the outcome of its request
+ * unknown, so it is kept like a stored response until the configured time to live has passed.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Reserve a key for a request unless another request already holds or completed it
+     *
+     * @param reservation the key and request to reserve it for
+     * @return empty if the key is now reserved for the caller, otherwise what is stored under it
+     */
+    Optional<Entry> reserve(Reservation reservation);
+
+    /**
+     * Run the request of a reserved key and store its response.
+     * Where the store allows, the response is stored in the same transaction as the changes of the request,
+     * so either both are kept or neither.
+     *
+     * @param reservation the reservation made for the request
+     * @param request runs the request and returns its response
+     * @return the response of the request
+     */
+    Response complete(Reservation reservation, Supplier<Response> request);
+
+    /**
+     * Drop the reservation of a request that failed, so it can be retried with the same key.
+     * A key that was completed or reserved again by another request is left alone.
+     *
+     * @param reservation the reservation made for the request
+     */
+    void release(Reservation reservation);
+
+    /**
+     * @return the number of keys held
+     */
+    long size();
+
+    /**
+     * A key reserved for one request
+     *
+     * @param key the idempotency key
+     * @param fingerprint the fingerprint of the request
+     * @param reservedAt when the request reserved the key, which tells it apart from later reservations
+     */
+    record Reservation(String key, String fingerprint, LocalDateTime reservedAt) {
+    }
+
+    /**
+     * What is stored under a key
+     *
+     * @param fingerprint the fingerprint of the request that reserved the key
+     * @param status the HTTP status of the response, 0 while the request is still running
+     * @param body the response body, null while the request is still running
+     * @param reservedAt when the request reserved the key
+     * @param expiresAt when the key can be reused
+     */
+    record Entry(String fingerprint, int status, String body, LocalDateTime reservedAt, LocalDateTime expiresAt) {
+
+        /**
+         * @return true if the request finished and its response is stored
+         */
+        public boolean isCompleted() {
+            return status != 0;
+        }
+
+        /**
+         * @param reservation a reservation of the key
+         * @return true if this entry was stored for the given reservation
+         */
+        public boolean belongsTo(Reservation reservation) {
+            return fingerprint.equals(reservation.fingerprint()) && reservedAt.equals(reservation.reservedAt());
+        }
+    }
+}
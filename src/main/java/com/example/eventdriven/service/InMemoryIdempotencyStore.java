@@ -0,0 +1,93 @@
+package com.example.eventdriven.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.example.eventdriven.service.IdempotencyService.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency store held in a bounded in-process cache, for a single instance.
+ * Reservations and stored responses expire after the time to live; the least recently used keys are evicted
+ * beyond the maximum size. The response is stored once the request returns, which cannot be atomic with the
+ * request's own transaction, but the store does not outlive the instance running the request either.
+ */
+@Component
+@ConditionalOnProperty(name = "app.orders.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, Entry> entries;
+    private final Duration timeToLive;
+
+    public InMemoryIdempotencyStore(
+            @Value("${app.orders.idempotency.maximum-size:100000}") long maximumSize,
+            @Value("${app.orders.idempotency.time-to-live:24h}") Duration timeToLive) {
+        this.timeToLive = timeToLive;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return untilExpiry(entry);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return untilExpiry(entry);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Optional<Entry> reserve(Reservation reservation) {
+        LocalDateTime now = LocalDateTime.now();
+        Entry[] existing = new Entry[1];
+        entries.asMap().compute(reservation.key(), (k, current) -> {
+            if (current != null && current.expiresAt().isAfter(now)) {
+                existing[0] = current;
+                return current;
+            }
+            return new Entry(reservation.fingerprint(), 0, null, reservation.reservedAt(),
+                    reservation.reservedAt().plus(timeToLive));
+        });
+        return Optional.ofNullable(existing[0]);
+    }
+
+    @Override
+    public Response complete(Reservation reservation, Supplier<Response> request) {
+        Response response = request.get();
+        entries.asMap().computeIfPresent(reservation.key(), (k, current) -> current.belongsTo(reservation)
+                ? new Entry(current.fingerprint(), response.status(), response.body(), current.reservedAt(),
+                        LocalDateTime.now().plus(timeToLive))
+                : current);
+        return response;
+    }
+
+    @Override
+    public void release(Reservation reservation) {
+        entries.asMap().computeIfPresent(reservation.key(), (k, current) ->
+                current.belongsTo(reservation) && !current.isCompleted() ? null : current);
+    }
+
+    @Override
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    private static long untilExpiry(Entry entry) {
+        return Math.max(0, Duration.between(LocalDateTime.now(), entry.expiresAt()).toNanos());
+    }
+}
@@ -1,16 +1,68 @@
 package com.example.eventdriven.service;
 
+import com.example.eventdriven.metrics.OutcomeTimer;
+import com.example.eventdriven.model.event.EventMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
- * Service for sending messages to RabbitMQ
+ * Service for sending messages to RabbitMQ.
+ * The asynchronous variants complete once the broker has confirmed the message, so callers
+ * get delivery guarantees without waiting for the round-trip on their own thread.
+ * Events are sent in an {@link EventMessage} envelope whose metadata travels in the message properties.
+ * Payloads are written as JSON unless another content type is configured for the exchange.
  */
 @Service
 public class MessageService {
 
+    /**
+     * Header stamped on every message with the time it was handed to the broker, in epoch milliseconds
+     */
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
+
+    private static final MessagePostProcessor STAMP_PUBLISH_TIME = message -> {
+        message.getMessageProperties().setHeader(PUBLISHED_AT_HEADER, System.currentTimeMillis());
+        return message;
+    };
+
     private final RabbitTemplate rabbitTemplate;
+    private final Duration confirmTimeout;
+    private final Duration sendTimeout;
+
+    /**
+     * One permit per message awaiting its publisher confirm; senders wait for a permit
+     * when the window is full instead of piling up unconfirmed messages
+     */
+    private final Semaphore inFlight;
+
+    private final OutcomeTimer commandTimer;
+    private final OutcomeTimer eventTimer;
+    private final OutcomeTimer broadcastTimer;
+    private final OutcomeTimer invalidationTimer;
+    private final Timer confirmLatency;
+    private final Counter nackCounter;
+    private final Counter returnedCounter;
+    private final Counter timeoutCounter;
+    private final Counter windowFullCounter;
 
     @Value("${app.rabbitmq.exchanges.command}")
     private String commandExchange;
@@ -21,6 +73,9 @@ public class MessageService {
     @Value("${app.rabbitmq.exchanges.broadcast}")
     private String broadcastExchange;
 
+    @Value("${app.rabbitmq.exchanges.invalidation}")
+    private String invalidationExchange;
+
     @Value("${app.rabbitmq.routing-keys.orders.command}")
     private String orderCommandRoutingKey;
 
@@ -30,30 +85,127 @@ public class MessageService {
     @Value("${app.rabbitmq.routing-keys.orders.broadcast}")
     private String orderBroadcastRoutingKey;
 
-    public MessageService(RabbitTemplate rabbitTemplate) {
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    @Value("${app.rabbitmq.content-types.command:application/json}")
+    private String commandContentType;
+
+    @Value("${app.rabbitmq.content-types.event:application/json}")
+    private String eventContentType;
+
+    @Value("${app.rabbitmq.content-types.broadcast:application/json}")
+    private String broadcastContentType;
+
+    public MessageService(
+            RabbitTemplate rabbitTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.rabbitmq.publisher.max-in-flight:1000}") int maxInFlight,
+            @Value("${app.rabbitmq.publisher.confirm-timeout:10s}") Duration confirmTimeout,
+            @Value("${app.rabbitmq.publisher.send-timeout:5s}") Duration sendTimeout) {
         this.rabbitTemplate = rabbitTemplate;
+        this.confirmTimeout = confirmTimeout;
+        this.sendTimeout = sendTimeout;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.commandTimer = new OutcomeTimer(meterRegistry, "messaging.publish.duration",
+                "Time spent handing messages to the broker", "operation", "command");
+        this.eventTimer = new OutcomeTimer(meterRegistry, "messaging.publish.duration",
+                "Time spent handing messages to the broker", "operation", "event");
+        this.broadcastTimer = new OutcomeTimer(meterRegistry, "messaging.publish.duration",
+                "Time spent handing messages to the broker", "operation", "broadcast");
+        this.invalidationTimer = new OutcomeTimer(meterRegistry, "messaging.publish.duration",
+                "Time spent handing messages to the broker", "operation", "invalidation");
+        this.confirmLatency = Timer.builder("messaging.publish.confirm.latency")
+                .description("Time between publishing a message and the broker confirming it")
+                .register(meterRegistry);
+        this.nackCounter = Counter.builder("messaging.publish.failures")
+                .description("Published messages the broker did not accept")
+                .tag("reason", "nack")
+                .register(meterRegistry);
+        this.returnedCounter = Counter.builder("messaging.publish.failures")
+                .description("Published messages the broker did not accept")
+                .tag("reason", "returned")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("messaging.publish.failures")
+                .description("Published messages the broker did not accept")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+        this.windowFullCounter = Counter.builder("messaging.publish.failures")
+                .description("Published messages the broker did not accept")
+                .tag("reason", "window-full")
+                .register(meterRegistry);
+        Gauge.builder("messaging.publish.in.flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Published messages waiting for a confirm")
+                .register(meterRegistry);
     }
 
     /**
-     * Send a command message
+     * Send a command message under a new message ID
      *
      * @param command the command to send
      * @param routingKey the routing key to use
      * @param <T> the type of the command
      */
     public <T> void sendCommand(T command, String routingKey) {
-        rabbitTemplate.convertAndSend(commandExchange, routingKey, command);
+        sendCommand(command, routingKey, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Send a command message. Consumers apply a command once per message ID, so a send
+     * that is retried should reuse the ID of the first attempt.
+     *
+     * @param command the command to send
+     * @param routingKey the routing key to use
+     * @param messageId the message ID
+     * @param <T> the type of the command
+     */
+    public <T> void sendCommand(T command, String routingKey, String messageId) {
+        commandTimer.record(() -> rabbitTemplate.convertAndSend(commandExchange, routingKey,
+                encode(command, commandContentType), identifiedBy(messageId)));
     }
 
     /**
-     * Send an event message
+     * Send an event message in a new envelope
      *
      * @param event the event to send
      * @param routingKey the routing key to use
      * @param <T> the type of the event
      */
     public <T> void sendEvent(T event, String routingKey) {
-        rabbitTemplate.convertAndSend(eventExchange, routingKey, event);
+        EventMessage<T> message = EventMessage.of(event, applicationName);
+        eventTimer.record(() -> rabbitTemplate.convertAndSend(eventExchange, routingKey,
+                encode(message.getPayload(), eventContentType), withMetadata(message)));
+    }
+
+    /**
+     * Send an event message in a new envelope without waiting for the broker
+     *
+     * @param event the event to send
+     * @param routingKey the routing key to use
+     * @param <T> the type of the event
+     * @return a future completed once the broker confirms the event
+     * @see #sendEventAsync(EventMessage, String)
+     */
+    public <T> CompletableFuture<Void> sendEventAsync(T event, String routingKey) {
+        return sendEventAsync(EventMessage.of(event, applicationName), routingKey);
+    }
+
+    /**
+     * Send an event message without waiting for the broker.
+     * The payload becomes the message body and the envelope's metadata its properties and headers.
+     * Consumers skip events whose message ID they have already processed, so an event that is
+     * published again should keep its envelope.
+     *
+     * @param event the event in its envelope
+     * @param routingKey the routing key to use
+     * @return a future completed once the broker confirms the event, or completed exceptionally
+     *         with an {@link AmqpException} if it is nacked, returned as unroutable, not confirmed in time
+     *         or the in-flight window stays full
+     */
+    public CompletableFuture<Void> sendEventAsync(EventMessage<?> event, String routingKey) {
+        return sendConfirmed(eventExchange, routingKey, encode(event.getPayload(), eventContentType),
+                withMetadata(event));
     }
 
     /**
@@ -63,7 +215,25 @@ public class MessageService {
      * @param <T> the type of the message
      */
     public <T> void broadcast(T message) {
-        rabbitTemplate.convertAndSend(broadcastExchange, "", message);
+        broadcastTimer.record(() -> rabbitTemplate.convertAndSend(broadcastExchange, "",
+                encode(message, broadcastContentType), STAMP_PUBLISH_TIME));
+    }
+
+    /**
+     * Send a cache invalidation to every instance through the invalidation exchange.
+     * Copies not consumed within the time to live are dropped by the broker.
+     *
+     * @param message the invalidation
+     * @param timeToLive how long the invalidation stays relevant
+     * @param <T> the type of the message
+     */
+    public <T> void sendInvalidation(T message, Duration timeToLive) {
+        MessagePostProcessor expiring = amqpMessage -> {
+            amqpMessage.getMessageProperties().setExpiration(String.valueOf(timeToLive.toMillis()));
+            return STAMP_PUBLISH_TIME.postProcessMessage(amqpMessage);
+        };
+        invalidationTimer.record(() -> rabbitTemplate.convertAndSend(invalidationExchange, "",
+                encode(message, broadcastContentType), expiring));
     }
 
     /**
@@ -76,6 +246,18 @@ public class MessageService {
         sendCommand(command, orderCommandRoutingKey);
     }
 
+    /**
+     * Send an order command with a given message ID
+     *
+     * @param command the order command to send
+     * @param messageId the message ID, reused when the send is retried
+     * @param <T> the type of the command
+     * @see #sendCommand(Object, String, String)
+     */
+    public <T> void sendOrderCommand(T command, String messageId) {
+        sendCommand(command, orderCommandRoutingKey, messageId);
+    }
+
     /**
      * Send an order event
      *
@@ -86,6 +268,29 @@ public class MessageService {
         sendEvent(event, orderEventRoutingKey);
     }
 
+    /**
+     * Send an order event without waiting for the broker
+     *
+     * @param event the order event to send
+     * @param <T> the type of the event
+     * @return a future completed once the broker confirms the event
+     * @see #sendEventAsync(Object, String)
+     */
+    public <T> CompletableFuture<Void> sendOrderEventAsync(T event) {
+        return sendEventAsync(event, orderEventRoutingKey);
+    }
+
+    /**
+     * Send an order event in its envelope without waiting for the broker
+     *
+     * @param event the order event in its envelope
+     * @return a future completed once the broker confirms the event
+     * @see #sendEventAsync(EventMessage, String)
+     */
+    public CompletableFuture<Void> sendOrderEventAsync(EventMessage<?> event) {
+        return sendEventAsync(event, orderEventRoutingKey);
+    }
+
     /**
      * Broadcast an order message
      *
@@ -95,4 +300,91 @@ public class MessageService {
     public <T> void broadcastOrderMessage(T message) {
         broadcast(message);
     }
+
+    /**
+     * Body to publish: the payload itself, for the template to convert to JSON, or the payload already
+     * converted to another content type configured for the exchange
+     */
+    private Object encode(Object payload, String contentType) {
+        if (contentType == null || contentType.equals(MessageProperties.CONTENT_TYPE_JSON)) {
+            return payload;
+        }
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(contentType);
+        return rabbitTemplate.getMessageConverter().toMessage(payload, properties);
+    }
+
+    private static MessagePostProcessor identifiedBy(String messageId) {
+        return message -> {
+            message.getMessageProperties().setMessageId(messageId);
+            return STAMP_PUBLISH_TIME.postProcessMessage(message);
+        };
+    }
+
+    private MessagePostProcessor withMetadata(EventMessage<?> event) {
+        return message -> {
+            MessageProperties properties = message.getMessageProperties();
+            properties.setMessageId(event.getMessageId());
+            properties.setCorrelationId(event.getCorrelationId());
+            properties.setTimestamp(Date.from(event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant()));
+            properties.setType(event.getEventType());
+            properties.setAppId(event.getSource() != null ? event.getSource() : applicationName);
+            properties.setHeader(EventMessage.VERSION_HEADER, event.getVersion());
+            return STAMP_PUBLISH_TIME.postProcessMessage(message);
+        };
+    }
+
+    private CompletableFuture<Void> sendConfirmed(String exchange, String routingKey, Object payload,
+                                                  MessagePostProcessor postProcessor) {
+        try {
+            if (!inFlight.tryAcquire(sendTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                windowFullCounter.increment();
+                return CompletableFuture.failedFuture(
+                        new AmqpException("Too many unconfirmed messages in flight, gave up after " + sendTimeout));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new AmqpException("Interrupted while waiting to publish", e));
+        }
+
+        CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        long startNanos = System.nanoTime();
+        try {
+            rabbitTemplate.convertAndSend(exchange, routingKey, payload, postProcessor, correlationData);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // The channel nacks outstanding confirms when it closes, the timeout covers a silent broker
+        correlationData.getFuture()
+                .orTimeout(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((confirm, failure) -> {
+                    inFlight.release();
+                    confirmLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+                    if (failure != null) {
+                        if (failure instanceof TimeoutException) {
+                            timeoutCounter.increment();
+                        }
+                        result.completeExceptionally(new AmqpException(
+                                "No publisher confirm for message " + correlationData.getId(), failure));
+                    } else if (!confirm.isAck()) {
+                        nackCounter.increment();
+                        result.completeExceptionally(new AmqpException(
+                                "Message " + correlationData.getId() + " was nacked: " + confirm.getReason()));
+                    } else if (correlationData.getReturned() != null) {
+                        // Returns arrive before the ack, so an acked message may still have been unroutable
+                        returnedCounter.increment();
+                        ReturnedMessage returned = correlationData.getReturned();
+                        result.completeExceptionally(new AmqpException("Message " + correlationData.getId()
+                                + " was returned by " + returned.getExchange() + "/" + returned.getRoutingKey()
+                                + ": " + returned.getReplyText()));
+                    } else {
+                        result.complete(null);
+                    }
+                });
+        return result;
+    }
 }
@@ -0,0 +1,191 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderSnapshot;
+import com.example.eventdriven.model.event.OrderInvalidatedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process read-through cache of order snapshots.
+ * Entries are evicted by size and age, dropped locally when an order changes and,
+ * once the change is committed, on every other instance through the invalidation exchange.
+ * Invalidations are published from a background thread, so a slow or unreachable broker never holds up
+ * the request that changed the order; when too many are waiting, new ones are dropped and peers fall back
+ * to the time to live. Setting the maximum size to 0 disables caching.
+ */
+@Component
+public class OrderCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCache.class);
+
+    private final Cache<String, OrderSnapshot> cache;
+    private final MessageService messageService;
+    private final Duration timeToLive;
+    private final Executor publisher;
+
+    /**
+     * Incremented on every invalidation. A load that overlaps an invalidation may have read the
+     * old state, so its result is returned but not cached.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter localInvalidations;
+    private final Counter remoteInvalidations;
+    private final Counter droppedInvalidations;
+
+    @Autowired
+    public OrderCache(
+            MessageService messageService,
+            MeterRegistry meterRegistry,
+            @Value("${app.orders.cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.orders.cache.time-to-live:10m}") Duration timeToLive,
+            @Value("${app.orders.cache.pending-invalidations:10000}") int pendingInvalidations) {
+        this(messageService, meterRegistry, maximumSize, timeToLive, new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pendingInvalidations),
+                Thread.ofPlatform().name("order-cache-invalidation").daemon().factory()));
+    }
+
+    /**
+     * @param publisher runs the invalidation broadcasts, rejecting them when it cannot take more
+     */
+    OrderCache(MessageService messageService, MeterRegistry meterRegistry, long maximumSize, Duration timeToLive,
+               Executor publisher) {
+        this.messageService = messageService;
+        this.timeToLive = timeToLive;
+        this.publisher = publisher;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "orders");
+        this.localInvalidations = Counter.builder("order.cache.invalidations")
+                .description("Cached orders dropped because they changed")
+                .tag("source", "local")
+                .register(meterRegistry);
+        this.remoteInvalidations = Counter.builder("order.cache.invalidations")
+                .description("Cached orders dropped because they changed")
+                .tag("source", "broadcast")
+                .register(meterRegistry);
+        this.droppedInvalidations = Counter.builder("order.cache.invalidations.dropped")
+                .description("Invalidations not broadcast because too many were waiting to be published")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get an order from the cache, loading and caching it on a miss
+     *
+     * @param orderId the order ID
+     * @param loader loads the order with its items when it is not cached
+     * @return a detached copy of the order, or empty if the loader found none
+     */
+    public Optional<Order> get(String orderId, Function<String, Optional<Order>> loader) {
+        OrderSnapshot snapshot = cache.getIfPresent(orderId);
+        if (snapshot != null) {
+            return Optional.of(snapshot.toOrder());
+        }
+
+        long invalidationsBeforeLoad = invalidations.get();
+        Optional<Order> order = loader.apply(orderId);
+        order.ifPresent(loaded -> {
+            OrderSnapshot loadedSnapshot = OrderSnapshot.of(loaded);
+            if (invalidations.get() == invalidationsBeforeLoad) {
+                cache.put(orderId, loadedSnapshot);
+            }
+        });
+        return order;
+    }
+
+    /**
+     * Drop an order that is being changed. It is dropped immediately and again once the current
+     * transaction commits, and the other instances are told to drop it after the commit, without
+     * waiting for the broker.
+     *
+     * @param orderId the order ID
+     */
+    public void invalidate(String orderId) {
+        evict(orderId);
+        localInvalidations.increment();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            broadcastInvalidation(orderId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(orderId);
+                broadcastInvalidation(orderId);
+            }
+        });
+    }
+
+    /**
+     * Drop an order changed on another instance
+     *
+     * @param orderId the order ID
+     */
+    public void evictFromBroadcast(String orderId) {
+        evict(orderId);
+        remoteInvalidations.increment();
+    }
+
+    private void evict(String orderId) {
+        invalidations.incrementAndGet();
+        cache.invalidate(orderId);
+    }
+
+    /**
+     * Stop publishing invalidations; those still waiting are left to expiry on the peers
+     */
+    @PreDestroy
+    public void stop() {
+        if (publisher instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private void broadcastInvalidation(String orderId) {
+        try {
+            publisher.execute(() -> publishInvalidation(orderId));
+        } catch (RejectedExecutionException e) {
+            droppedInvalidations.increment();
+            logger.debug("Dropped cache invalidation for order ID: {}, too many pending", orderId);
+        }
+    }
+
+    private void publishInvalidation(String orderId) {
+        try {
+            // Peers cache for at most the time to live, so older notifications are pointless
+            messageService.sendInvalidation(new OrderInvalidatedEvent(orderId), timeToLive);
+        } catch (Exception e) {
+            // Peers fall back to expiry; the change itself is already committed
+            logger.warn("Failed to broadcast cache invalidation for order ID: {}", orderId, e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.ProcessedCommand;
+import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.example.eventdriven.model.command.UpdateOrderStatusCommand;
+import com.example.eventdriven.repository.ProcessedCommandRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service applying order commands received through RabbitMQ, at most once per message ID.
+ * A batch of commands is applied in one transaction together with the record of their message IDs,
+ * so a command redelivered after its transaction committed is recognised and skipped. Within a batch
+ * all new orders are stored together and the status changes of each order are applied with a single
+ * conditional update. If the batch fails as a whole, each command is applied again in a transaction
+ * of its own, so one bad command cannot hold back the others.
+ */
+@Service
+public class OrderCommandService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCommandService.class);
+
+    /**
+     * What became of a command
+     */
+    public enum Outcome {
+        /** The command was applied */
+        APPLIED,
+        /** A command with the same message ID was applied before */
+        DUPLICATE,
+        /** The command is invalid or not allowed for the order in its current state */
+        REJECTED,
+        /** Applying the command failed */
+        FAILED
+    }
+
+    /**
+     * A command and the ID of the message it arrived in
+     */
+    public record IdentifiedCommand(String messageId, Object command) {
+    }
+
+    private final OrderService orderService;
+    private final ProcessedCommandRepository processedCommandRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration dedupeRetention;
+
+    private final Map<Outcome, Counter> outcomeCounters = new EnumMap<>(Outcome.class);
+
+    public OrderCommandService(
+            OrderService orderService,
+            ProcessedCommandRepository processedCommandRepository,
+            Validator validator,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.orders.commands.dedupe-retention:7d}") Duration dedupeRetention) {
+        this.orderService = orderService;
+        this.processedCommandRepository = processedCommandRepository;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dedupeRetention = dedupeRetention;
+
+        for (Outcome outcome : Outcome.values()) {
+            outcomeCounters.put(outcome, Counter.builder("orders.commands")
+                    .description("Order commands received through RabbitMQ")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Apply a batch of commands
+     *
+     * @param commands the commands, in delivery order
+     * @return the outcome of each command, in the same order
+     */
+    public List<Outcome> apply(List<IdentifiedCommand> commands) {
+        List<Outcome> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> applyInTransaction(commands));
+        } catch (RuntimeException e) {
+            if (commands.size() == 1) {
+                logger.error("Failed to apply order command {}", commands.get(0).messageId(), e);
+                outcomes = List.of(Outcome.FAILED);
+            } else {
+                // The whole batch was rolled back, find out which commands can still be applied
+                logger.warn("Failed to apply batch of {} order commands, applying them one at a time",
+                        commands.size(), e);
+                outcomes = new ArrayList<>(commands.size());
+                for (IdentifiedCommand command : commands) {
+                    outcomes.addAll(apply(List.of(command)));
+                }
+                return outcomes;
+            }
+        }
+
+        outcomes.forEach(outcome -> outcomeCounters.get(outcome).increment());
+        return outcomes;
+    }
+
+    /**
+     * Forget the message IDs of commands processed longer ago than the retention, after which
+     * redeliveries are no longer expected
+     */
+    @Scheduled(fixedDelayString = "${app.orders.commands.purge-interval:3600000}")
+    public void purgeProcessedCommands() {
+        LocalDateTime processedBefore = LocalDateTime.now().minus(dedupeRetention);
+        Integer purged = transactionTemplate.execute(status ->
+                processedCommandRepository.deleteProcessedBefore(processedBefore));
+        logger.debug("Purged {} processed command IDs older than {}", purged, processedBefore);
+    }
+
+    private List<Outcome> applyInTransaction(List<IdentifiedCommand> commands) {
+        Outcome[] outcomes = new Outcome[commands.size()];
+        Set<String> seen = new HashSet<>();
+        processedCommandRepository.findAllById(commands.stream().map(IdentifiedCommand::messageId).toList())
+                .forEach(processed -> seen.add(processed.getId()));
+
+        List<ProcessedCommand> processed = new ArrayList<>(commands.size());
+        List<CreateOrderCommand> creates = new ArrayList<>();
+        List<Integer> createPositions = new ArrayList<>();
+        Map<String, List<Integer>> statusChangePositions = new LinkedHashMap<>();
+
+        for (int i = 0; i < commands.size(); i++) {
+            IdentifiedCommand identified = commands.get(i);
+            if (!seen.add(identified.messageId())) {
+                outcomes[i] = Outcome.DUPLICATE;
+                continue;
+            }
+            processed.add(new ProcessedCommand(identified.messageId()));
+
+            Object command = identified.command();
+            if (!validator.validate(command).isEmpty()) {
+                outcomes[i] = Outcome.REJECTED;
+            } else if (command instanceof CreateOrderCommand create) {
+                creates.add(create);
+                createPositions.add(i);
+            } else if (command instanceof UpdateOrderStatusCommand update) {
+                // Group by order so each order is read and updated once per batch
+                statusChangePositions.computeIfAbsent(update.getOrderId(), orderId -> new ArrayList<>()).add(i);
+            } else {
+                outcomes[i] = Outcome.REJECTED;
+            }
+        }
+
+        if (!creates.isEmpty()) {
+            orderService.createOrders(creates);
+            createPositions.forEach(position -> outcomes[position] = Outcome.APPLIED);
+        }
+
+        statusChangePositions.forEach((orderId, positions) -> {
+            List<OrderStatus> newStatuses = positions.stream()
+                    .map(position -> ((UpdateOrderStatusCommand) commands.get(position).command()).getNewStatus())
+                    .toList();
+            List<Boolean> applied = orderService.updateOrderStatuses(orderId, newStatuses);
+            for (int i = 0; i < positions.size(); i++) {
+                outcomes[positions.get(i)] = applied.get(i) ? Outcome.APPLIED : Outcome.REJECTED;
+            }
+        });
+
+        // Rejected commands are recorded too, a redelivery would be rejected again anyway
+        processedCommandRepository.saveAll(processed);
+
+        logger.debug("Applied batch of {} order commands: {}", commands.size(), Arrays.toString(outcomes));
+        return Arrays.asList(outcomes);
+    }
+}
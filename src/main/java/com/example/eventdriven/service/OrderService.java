@@ -1,11 +1,13 @@
 package com.example.eventdriven.service;
 
 import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderPage;
 import com.example.eventdriven.model.OrderStatus;
 import com.example.eventdriven.model.command.CreateOrderCommand;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service for order management operations
@@ -20,6 +22,14 @@ public interface OrderService {
      */
     Order createOrder(CreateOrderCommand command);
 
+    /**
+     * Create several orders in a single transaction
+     *
+     * @param commands the commands containing order details, already validated
+     * @return the created orders, in command order
+     */
+    List<Order> createOrders(List<CreateOrderCommand> commands);
+
     /**
      * Get order by ID
      *
@@ -36,6 +46,27 @@ public interface OrderService {
      */
     List<Order> getOrdersByCustomerId(String customerId);
 
+    /**
+     * Get one page of a customer's orders, oldest first
+     *
+     * @param customerId the customer ID
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of orders to return
+     * @return the page of orders and the cursor for the next page
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is out of range
+     */
+    OrderPage getOrdersByCustomerId(String customerId, String cursor, int limit);
+
+    /**
+     * Pass all orders of a customer to a consumer one at a time, oldest first, without
+     * holding them in memory. The consumer is called inside a transaction and each order
+     * is detached once it returns.
+     *
+     * @param customerId the customer ID
+     * @param consumer the consumer of the orders
+     */
+    void streamOrdersByCustomerId(String customerId, Consumer<Order> consumer);
+
     /**
      * Update the status of an order
      *
@@ -46,6 +77,17 @@ public interface OrderService {
      */
     Order updateOrderStatus(String orderId, OrderStatus newStatus);
 
+    /**
+     * Move an order through several statuses as if each were set by {@link #updateOrderStatus} in turn,
+     * reading and updating the order once. A status the order may not move to from the one before it
+     * is skipped and the rest still apply.
+     *
+     * @param orderId the order ID
+     * @param newStatuses the statuses to move to, in order
+     * @return for each new status whether it was applied; none are if the order is not found
+     */
+    List<Boolean> updateOrderStatuses(String orderId, List<OrderStatus> newStatuses);
+
     /**
      * Cancel an order
      *
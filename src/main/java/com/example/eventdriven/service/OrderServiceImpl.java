@@ -1,20 +1,38 @@
 package com.example.eventdriven.service;
 
+import com.example.eventdriven.model.EntityIds;
 import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderCursor;
 import com.example.eventdriven.model.OrderItem;
+import com.example.eventdriven.model.OrderPage;
 import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.OrderStatusTransitions;
+import com.example.eventdriven.model.OrderWorkflows;
 import com.example.eventdriven.model.command.CreateOrderCommand;
 import com.example.eventdriven.model.event.OrderCreatedEvent;
 import com.example.eventdriven.model.event.OrderStatusChangedEvent;
 import com.example.eventdriven.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of OrderService
@@ -24,12 +42,55 @@ public class OrderServiceImpl implements OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
 
-    private final OrderRepository orderRepository;
-    private final MessageService messageService;
+    static final int MAX_PAGE_SIZE = 500;
 
-    public OrderServiceImpl(OrderRepository orderRepository, MessageService messageService) {
+    private final OrderRepository orderRepository;
+    private final OutboxService outboxService;
+    private final OrderCache orderCache;
+    private final EntityManager entityManager;
+    private final OrderStatusTransitions transitions;
+    private final int maxStatusUpdateAttempts;
+
+    private final Counter retriedConflicts;
+    private final Counter failedConflicts;
+    private final Map<OrderStatus, Map<OrderStatus, Counter>> transitionCounters = new EnumMap<>(OrderStatus.class);
+
+    public OrderServiceImpl(
+            OrderRepository orderRepository,
+            OutboxService outboxService,
+            OrderCache orderCache,
+            EntityManager entityManager,
+            OrderWorkflows orderWorkflows,
+            MeterRegistry meterRegistry,
+            @Value("${app.orders.status-update.max-attempts:3}") int maxStatusUpdateAttempts) {
         this.orderRepository = orderRepository;
-        this.messageService = messageService;
+        this.outboxService = outboxService;
+        this.orderCache = orderCache;
+        this.entityManager = entityManager;
+        // Orders carry no type yet, so all of them follow the default workflow
+        this.transitions = orderWorkflows.getDefault();
+        this.maxStatusUpdateAttempts = maxStatusUpdateAttempts;
+
+        this.retriedConflicts = Counter.builder("orders.status.conflicts")
+                .description("Status changes that found the order changed concurrently")
+                .tag("outcome", "retried")
+                .register(meterRegistry);
+        this.failedConflicts = Counter.builder("orders.status.conflicts")
+                .description("Status changes that found the order changed concurrently")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        // One counter per transition the workflow allows, the only ones a status change can make
+        for (OrderStatus from : OrderStatus.values()) {
+            Map<OrderStatus, Counter> counters = new EnumMap<>(OrderStatus.class);
+            for (OrderStatus to : transitions.nextStatuses(from)) {
+                counters.put(to, Counter.builder("orders.status.transitions")
+                        .description("Order status changes")
+                        .tag("from", from.name())
+                        .tag("to", to.name())
+                        .register(meterRegistry));
+            }
+            transitionCounters.put(from, counters);
+        }
     }
 
     @Override
@@ -37,19 +98,7 @@ public class OrderServiceImpl implements OrderService {
     public Order createOrder(CreateOrderCommand command) {
         logger.info("Creating order for customer: {}", command.getCustomerId());
 
-        Order order = new Order(command.getCustomerId(), command.getShippingAddress());
-
-        command.getItems().forEach(itemDto -> {
-            OrderItem item = new OrderItem(
-                    itemDto.getProductId(),
-                    itemDto.getProductName(),
-                    itemDto.getQuantity(),
-                    itemDto.getPrice()
-            );
-            order.addItem(item);
-        });
-
-        Order savedOrder = orderRepository.save(order);
+        Order savedOrder = orderRepository.save(toOrder(command));
 
         // Publish order created event
         publishOrderCreatedEvent(savedOrder);
@@ -58,10 +107,28 @@ public class OrderServiceImpl implements OrderService {
         return savedOrder;
     }
 
+    @Override
+    @Transactional
+    public List<Order> createOrders(List<CreateOrderCommand> commands) {
+        logger.debug("Creating {} orders", commands.size());
+
+        List<Order> savedOrders = orderRepository.saveAll(commands.stream()
+                .map(this::toOrder)
+                .toList());
+
+        savedOrders.forEach(order -> outboxService.enqueueNewOrderEvent(order.getId(), toOrderCreatedEvent(order)));
+
+        logger.info("Created {} orders", savedOrders.size());
+        return savedOrders;
+    }
+
     @Override
     public Optional<Order> getOrderById(String orderId) {
         logger.debug("Getting order by ID: {}", orderId);
-        return orderRepository.findById(orderId);
+        if (!EntityIds.isValid(orderId)) {
+            return Optional.empty();
+        }
+        return orderCache.get(orderId, orderRepository::findWithItemsById);
     }
 
     @Override
@@ -71,29 +138,91 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    @Transactional
-    public Order updateOrderStatus(String orderId, OrderStatus newStatus) {
-        logger.info("Updating order status for order ID: {} to {}", orderId, newStatus);
+    public OrderPage getOrdersByCustomerId(String customerId, String cursor, int limit) {
+        logger.debug("Getting page of {} orders for customer: {} after cursor: {}", limit, customerId, cursor);
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
 
-        OrderStatus oldStatus = order.getStatus();
+        // Read one extra row to find out whether another page follows
+        Limit pageLimit = Limit.of(limit + 1);
+        List<Order> orders;
+        if (cursor == null) {
+            orders = orderRepository.findByCustomerIdOrderByCreatedAtAscIdAsc(customerId, pageLimit);
+        } else {
+            OrderCursor position = OrderCursor.decode(cursor);
+            orders = orderRepository.findPageAfter(customerId, position.getCreatedAt(), position.getOrderId(), pageLimit);
+        }
 
-        // Check if the status transition is valid
-        if (!isValidStatusTransition(oldStatus, newStatus)) {
-            throw new IllegalArgumentException(
-                    "Invalid status transition from " + oldStatus + " to " + newStatus);
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
         }
+        List<Order> page = orders.subList(0, limit);
+        return new OrderPage(page, OrderCursor.after(page.get(limit - 1)).encode());
+    }
 
-        order.updateStatus(newStatus);
-        Order savedOrder = orderRepository.save(order);
+    @Override
+    @Transactional
+    public void streamOrdersByCustomerId(String customerId, Consumer<Order> consumer) {
+        logger.debug("Streaming orders for customer: {}", customerId);
+
+        try (Stream<Order> orders = orderRepository.streamByCustomerId(customerId)) {
+            orders.forEach(order -> {
+                consumer.accept(order);
+                // Keep the persistence context from growing with the result set
+                entityManager.detach(order);
+            });
+        }
+    }
+
+    @Override
+    @Transactional
+    public Order updateOrderStatus(String orderId, OrderStatus newStatus) {
+        logger.info("Updating order status for order ID: {} to {}", orderId, newStatus);
 
-        // Publish order status changed event
-        publishOrderStatusChangedEvent(savedOrder, oldStatus, newStatus);
+        boolean found = changeStatus(orderId, oldStatus -> {
+            // Check if the status transition is valid
+            if (!transitions.allows(oldStatus, newStatus)) {
+                throw new IllegalArgumentException(
+                        "Invalid status transition from " + oldStatus + " to " + newStatus);
+            }
+            return List.of(newStatus);
+        });
+        if (!found) {
+            throw new IllegalArgumentException("Order not found with ID: " + orderId);
+        }
 
         logger.info("Order status updated to {} for order ID: {}", newStatus, orderId);
-        return savedOrder;
+        return findChangedOrder(orderId);
+    }
+
+    @Override
+    @Transactional
+    public List<Boolean> updateOrderStatuses(String orderId, List<OrderStatus> newStatuses) {
+        logger.info("Updating order status for order ID: {} through {}", orderId, newStatuses);
+
+        List<Boolean> applied = new ArrayList<>(newStatuses.size());
+        boolean found = changeStatus(orderId, oldStatus -> {
+            // Plan again on every attempt, the status may have changed in between
+            applied.clear();
+            List<OrderStatus> path = new ArrayList<>(newStatuses.size());
+            OrderStatus current = oldStatus;
+            for (OrderStatus newStatus : newStatuses) {
+                boolean allowed = transitions.allows(current, newStatus);
+                applied.add(allowed);
+                if (allowed) {
+                    path.add(newStatus);
+                    current = newStatus;
+                }
+            }
+            return path;
+        });
+        if (!found) {
+            applied.clear();
+            newStatuses.forEach(newStatus -> applied.add(false));
+        }
+        return applied;
     }
 
     @Override
@@ -101,67 +230,118 @@ public class OrderServiceImpl implements OrderService {
     public Order cancelOrder(String orderId) {
         logger.info("Cancelling order with ID: {}", orderId);
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
+        boolean found = changeStatus(orderId, oldStatus -> {
+            // Check if the order can be cancelled
+            if (!transitions.canCancel(oldStatus)) {
+                throw new IllegalArgumentException(
+                        "Cannot cancel order in status: " + oldStatus);
+            }
+            return List.of(OrderStatus.CANCELLED);
+        });
+        if (!found) {
+            throw new IllegalArgumentException("Order not found with ID: " + orderId);
+        }
 
-        OrderStatus oldStatus = order.getStatus();
+        logger.info("Order cancelled with ID: {}", orderId);
+        return findChangedOrder(orderId);
+    }
 
-        // Check if the order can be cancelled
-        if (!canCancel(oldStatus)) {
-            throw new IllegalArgumentException(
-                    "Cannot cancel order in status: " + oldStatus);
+    /**
+     * Move an order through a path of statuses with a conditional update that only applies while the
+     * order is still in the status the path was planned from. If another request changed the status
+     * in between, the path is planned again from the new status, up to the configured number of attempts.
+     * One status changed event is published for every step of the path.
+     *
+     * @param orderId the order ID
+     * @param planner plans the statuses to move through from the current status, or rejects the change by throwing
+     * @return false if the order is not found
+     * @throws OptimisticLockingFailureException if the order kept changing for every attempt
+     */
+    private boolean changeStatus(String orderId, Function<OrderStatus, List<OrderStatus>> planner) {
+        for (int attempt = 1; ; attempt++) {
+            Optional<OrderStatus> currentStatus = findStatus(orderId);
+            if (currentStatus.isEmpty()) {
+                return false;
+            }
+            OrderStatus oldStatus = currentStatus.get();
+            List<OrderStatus> path = planner.apply(oldStatus);
+            if (path.isEmpty()) {
+                return true;
+            }
+
+            OrderStatus newStatus = path.get(path.size() - 1);
+            if (orderRepository.updateStatus(orderId, oldStatus, newStatus, LocalDateTime.now()) > 0) {
+                orderCache.invalidate(orderId);
+
+                // Publish order status changed events
+                OrderStatus from = oldStatus;
+                for (OrderStatus to : path) {
+                    publishOrderStatusChangedEvent(orderId, from, to);
+                    from = to;
+                }
+                return true;
+            }
+
+            if (attempt >= maxStatusUpdateAttempts) {
+                failedConflicts.increment();
+                throw new OptimisticLockingFailureException("Order " + orderId
+                        + " changed concurrently on each of " + attempt + " attempts to move it to " + newStatus);
+            }
+            retriedConflicts.increment();
+            logger.debug("Order ID: {} left status {} concurrently, retrying the change to {}",
+                    orderId, oldStatus, newStatus);
         }
+    }
+
+    /**
+     * Find an order that was just changed in the current transaction, with its items
+     */
+    private Order findChangedOrder(String orderId) {
+        return orderRepository.findWithItemsById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
+    }
 
-        order.updateStatus(OrderStatus.CANCELLED);
-        Order savedOrder = orderRepository.save(order);
+    /**
+     * Build a new order from a create command
+     */
+    private Order toOrder(CreateOrderCommand command) {
+        Order order = new Order(command.getCustomerId(), command.getShippingAddress());
 
-        // Publish order status changed event
-        publishOrderStatusChangedEvent(savedOrder, oldStatus, OrderStatus.CANCELLED);
+        command.getItems().forEach(itemDto -> {
+            OrderItem item = new OrderItem(
+                    itemDto.getProductId(),
+                    itemDto.getProductName(),
+                    itemDto.getQuantity(),
+                    itemDto.getPrice()
+            );
+            order.addItem(item);
+        });
 
-        logger.info("Order cancelled with ID: {}", orderId);
-        return savedOrder;
+        return order;
     }
 
     /**
-     * Check if the status transition is valid
+     * Find the status of an order, treating malformed IDs as unknown instead of sending them to the database
      */
-    private boolean isValidStatusTransition(OrderStatus oldStatus, OrderStatus newStatus) {
-        if (oldStatus == newStatus) {
-            return false;
-        }
-
-        switch (oldStatus) {
-            case CREATED:
-                return newStatus == OrderStatus.PAID || newStatus == OrderStatus.CANCELLED;
-            case PAID:
-                return newStatus == OrderStatus.PROCESSING || newStatus == OrderStatus.CANCELLED;
-            case PROCESSING:
-                return newStatus == OrderStatus.SHIPPED || newStatus == OrderStatus.CANCELLED;
-            case SHIPPED:
-                return newStatus == OrderStatus.DELIVERED;
-            case DELIVERED:
-                return newStatus == OrderStatus.REFUNDED;
-            case CANCELLED:
-            case REFUNDED:
-                return false;
-            default:
-                return false;
+    private Optional<OrderStatus> findStatus(String orderId) {
+        if (!EntityIds.isValid(orderId)) {
+            return Optional.empty();
         }
+        return orderRepository.findStatusById(orderId);
     }
 
     /**
-     * Check if an order can be cancelled based on its current status
+     * Publish order created event through the transactional outbox
      */
-    private boolean canCancel(OrderStatus status) {
-        return status == OrderStatus.CREATED ||
-                status == OrderStatus.PAID ||
-                status == OrderStatus.PROCESSING;
+    private void publishOrderCreatedEvent(Order order) {
+        outboxService.enqueueNewOrderEvent(order.getId(), toOrderCreatedEvent(order));
+        logger.info("Queued OrderCreatedEvent for order ID: {}", order.getId());
     }
 
     /**
-     * Publish order created event
+     * Build the order created event for an order
      */
-    private void publishOrderCreatedEvent(Order order) {
+    private OrderCreatedEvent toOrderCreatedEvent(Order order) {
         List<OrderCreatedEvent.OrderItemDto> itemDtos = order.getItems().stream()
                 .map(item -> new OrderCreatedEvent.OrderItemDto(
                         item.getProductId(),
@@ -170,7 +350,7 @@ public class OrderServiceImpl implements OrderService {
                         item.getPrice()))
                 .collect(Collectors.toList());
 
-        OrderCreatedEvent event = new OrderCreatedEvent(
+        return new OrderCreatedEvent(
                 order.getId(),
                 order.getCustomerId(),
                 order.getStatus(),
@@ -179,22 +359,21 @@ public class OrderServiceImpl implements OrderService {
                 order.getShippingAddress(),
                 itemDtos
         );
-
-        messageService.sendOrderEvent(event);
-        logger.info("Published OrderCreatedEvent for order ID: {}", order.getId());
     }
 
     /**
-     * Publish order status changed event
+     * Publish order status changed event through the transactional outbox
      */
-    private void publishOrderStatusChangedEvent(Order order, OrderStatus oldStatus, OrderStatus newStatus) {
+    private void publishOrderStatusChangedEvent(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
         OrderStatusChangedEvent event = new OrderStatusChangedEvent(
-                order.getId(),
+                orderId,
                 oldStatus,
                 newStatus
         );
 
-        messageService.sendOrderEvent(event);
-        logger.info("Published OrderStatusChangedEvent for order ID: {}", order.getId());
+        outboxService.enqueueOrderEvent(orderId, event);
+        logger.info("Queued OrderStatusChangedEvent for order ID: {}", orderId);
+
+        transitionCounters.get(oldStatus).get(newStatus).increment();
     }
 }
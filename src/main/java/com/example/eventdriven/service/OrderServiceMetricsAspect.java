@@ -0,0 +1,48 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.metrics.OutcomeTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every call to the {@link OrderService} as {@code orders.service.duration}, tagged with the
+ * method name as {@code operation} and the {@code outcome}.
+ * It runs outside the transaction advice, so the time includes the commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OrderServiceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, OutcomeTimer> timers = new ConcurrentHashMap<>();
+
+    public OrderServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.example.eventdriven.service.OrderService+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        OutcomeTimer timer = timers.computeIfAbsent(joinPoint.getSignature().getName(), operation ->
+                new OutcomeTimer(meterRegistry, "orders.service.duration", "Time spent in order service operations",
+                        "operation", operation));
+
+        long startNanos = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            timer.recordSuccess(startNanos);
+            return result;
+        } catch (Throwable e) {
+            timer.recordFailure(startNanos);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.OutboxMessage;
+import com.example.eventdriven.model.event.EventMessage;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.example.eventdriven.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background relay that drains the transactional outbox to the event exchange.
+ * A batch is claimed in one short transaction, published without holding a transaction or row locks,
+ * and its confirmed entries are deleted in a second transaction, so an entry is removed only after
+ * RabbitMQ has confirmed it (at-least-once delivery). The claim keeps other relay instances away from
+ * the entries; if this instance stops, they are picked up again once the claim expires.
+ * Entries are published in an {@link EventMessage} envelope restored from the stored metadata, so an
+ * entry keeps its message ID when it is published again and consumers can skip the copies.
+ * <p>
+ * The events of an order are published in the order of their aggregate sequence, which follows commit
+ * order: an entry is only sent once the previous entry of its order is confirmed, and an order whose
+ * first entry is held by another relay instance is left to that instance. Events of different orders
+ * may overtake each other.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String EVENT_PACKAGE = OrderCreatedEvent.class.getPackageName() + ".";
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final MessageService messageService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration claimTimeout;
+    private final long pendingCountIntervalNanos;
+
+    // Counted by the relay every pending count interval, rather than on every scrape of the gauge
+    private final AtomicLong pending = new AtomicLong();
+    private long pendingCountDueAt = System.nanoTime();
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter discardedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchTimer;
+    private final Timer lagTimer;
+
+    public OutboxRelay(
+            OutboxMessageRepository outboxMessageRepository,
+            MessageService messageService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.outbox.relay.batch-size:100}") int batchSize,
+            @Value("${app.outbox.relay.max-batches-per-run:10}") int maxBatchesPerRun,
+            @Value("${app.outbox.relay.claim-timeout:1m}") Duration claimTimeout,
+            @Value("${app.outbox.relay.pending-count-interval:10s}") Duration pendingCountInterval) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.messageService = messageService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.claimTimeout = claimTimeout;
+        this.pendingCountIntervalNanos = pendingCountInterval.toNanos();
+
+        this.publishedCounter = Counter.builder("outbox.relay.published")
+                .description("Outbox entries published to the event exchange")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.relay.failures")
+                .description("Publish attempts that failed and were left in the outbox")
+                .register(meterRegistry);
+        this.discardedCounter = Counter.builder("outbox.relay.discarded")
+                .description("Outbox entries removed because they could not be deserialized")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Entries published per relay batch")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch.duration")
+                .description("Time to claim, publish and delete one relay batch")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("outbox.relay.lag")
+                .description("Time between an event being stored in the outbox and its publication")
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending", pending, AtomicLong::get)
+                .description("Entries waiting in the outbox, as last counted by the relay")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drain pending outbox entries batch by batch until the outbox is empty or the per-run
+     * batch limit is reached, and count the entries left once the pending count interval has passed
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval:200}")
+    public void relayPendingMessages() {
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (relayBatch() < batchSize) {
+                    return;
+                }
+            }
+        } finally {
+            countPendingIfDue();
+        }
+    }
+
+    /**
+     * Relay a single batch of outbox entries
+     *
+     * @return the number of entries removed from the outbox
+     */
+    public int relayBatch() {
+        LocalDateTime claimedUntil = LocalDateTime.now().plus(claimTimeout);
+        Batch batch = transactionTemplate.execute(status -> claimBatch(claimedUntil));
+        if (batch == null || batch.size() == 0) {
+            return 0;
+        }
+
+        Timer.Sample sample = Timer.start();
+        List<Long> processedIds = new ArrayList<>(batch.claimedIds().size());
+        int published = publishClaimed(batch.queues(), claimedUntil, processedIds);
+
+        Set<Long> unprocessedIds = new HashSet<>(batch.claimedIds());
+        processedIds.forEach(unprocessedIds::remove);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!processedIds.isEmpty()) {
+                outboxMessageRepository.deleteAllByIdInBatch(processedIds);
+            }
+            if (!unprocessedIds.isEmpty()) {
+                outboxMessageRepository.release(unprocessedIds);
+            }
+        });
+
+        publishedCounter.increment(published);
+        batchSizeSummary.record(published);
+        sample.stop(batchTimer);
+
+        logger.debug("Relayed {} of {} outbox entries", published, batch.size());
+        return processedIds.size();
+    }
+
+    /**
+     * Lock the oldest unclaimed entries and claim those that can be published now
+     */
+    private Batch claimBatch(LocalDateTime claimedUntil) {
+        List<OutboxMessage> entries = outboxMessageRepository.findUnclaimed(LocalDateTime.now(), Limit.of(batchSize));
+        if (entries.isEmpty()) {
+            return new Batch(Map.of(), List.of(), 0);
+        }
+
+        Map<String, Deque<OutboxMessage>> queues = queuesByAggregate(entries);
+        List<Long> claimedIds = queues.values().stream()
+                .flatMap(Deque::stream)
+                .map(OutboxMessage::getId)
+                .toList();
+        if (!claimedIds.isEmpty()) {
+            outboxMessageRepository.claim(claimedIds, claimedUntil);
+        }
+        return new Batch(queues, claimedIds, entries.size());
+    }
+
+    /**
+     * Publish the claimed entries, adding the IDs of those confirmed or discarded to the processed IDs
+     *
+     * @return the number of entries published
+     */
+    private int publishClaimed(Map<String, Deque<OutboxMessage>> queues, LocalDateTime claimedUntil,
+                               List<Long> processedIds) {
+        int published = 0;
+
+        // Publish the next entry of every order at once so their confirms arrive in one round-trip, but
+        // an order's next entry only once its previous one is confirmed: an entry that is nacked or times
+        // out is published again later, and nothing behind it may overtake it. Once the claim has expired
+        // another relay may have taken the entries, so no further round is started.
+        boolean sendFailed = false;
+        while (!queues.isEmpty() && !sendFailed && LocalDateTime.now().isBefore(claimedUntil)) {
+            List<PendingConfirm> round = new ArrayList<>(queues.size());
+            for (Deque<OutboxMessage> queue : queues.values()) {
+                CompletableFuture<Void> confirm = publish(queue.peek());
+                round.add(new PendingConfirm(queue.peek(), confirm));
+                if (confirm != null && confirm.isCompletedExceptionally()) {
+                    // The broker is unreachable or the window is full, the rest waits for the next run
+                    sendFailed = true;
+                    break;
+                }
+            }
+
+            for (PendingConfirm entry : round) {
+                OutboxMessage message = entry.message();
+                if (entry.confirm() != null) {
+                    try {
+                        entry.confirm().join();
+                    } catch (CompletionException e) {
+                        // Later entries of the order stay in the outbox behind this one
+                        logger.warn("Failed to relay outbox entry {} for order ID: {}, will retry",
+                                message.getId(), message.getAggregateId(), e.getCause());
+                        failedCounter.increment();
+                        queues.remove(message.getAggregateId());
+                        continue;
+                    }
+                    lagTimer.record(Duration.between(message.getCreatedAt(), LocalDateTime.now()));
+                    published++;
+                }
+                processedIds.add(message.getId());
+
+                Deque<OutboxMessage> queue = queues.get(message.getAggregateId());
+                queue.poll();
+                if (queue.isEmpty()) {
+                    queues.remove(message.getAggregateId());
+                }
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Group entries by aggregate, in aggregate sequence order. Aggregates whose first pending entry is not
+     * among them are left out: that entry is claimed by another relay or not yet read, and has to be
+     * published before these.
+     */
+    private Map<String, Deque<OutboxMessage>> queuesByAggregate(List<OutboxMessage> entries) {
+        Map<String, List<OutboxMessage>> byAggregate = new LinkedHashMap<>();
+        for (OutboxMessage message : entries) {
+            byAggregate.computeIfAbsent(message.getAggregateId(), aggregateId -> new ArrayList<>()).add(message);
+        }
+
+        Set<Long> firstIds = new HashSet<>(outboxMessageRepository.findFirstIdsByAggregateIds(byAggregate.keySet()));
+        Map<String, Deque<OutboxMessage>> queues = new LinkedHashMap<>();
+        byAggregate.forEach((aggregateId, messages) -> {
+            messages.sort(Comparator.comparingLong(OutboxMessage::getAggregateSequence));
+            if (firstIds.contains(messages.get(0).getId())) {
+                queues.put(aggregateId, new ArrayDeque<>(messages));
+            }
+        });
+        return queues;
+    }
+
+    private void countPendingIfDue() {
+        long now = System.nanoTime();
+        if (now - pendingCountDueAt < 0) {
+            return;
+        }
+        pendingCountDueAt = now + pendingCountIntervalNanos;
+        try {
+            pending.set(outboxMessageRepository.count());
+        } catch (Exception e) {
+            logger.warn("Failed to count pending outbox entries", e);
+        }
+    }
+
+    /**
+     * Publish an outbox entry
+     *
+     * @return the confirm of the publication, or null if the entry cannot be read and was discarded
+     */
+    private CompletableFuture<Void> publish(OutboxMessage message) {
+        EventMessage<Object> event;
+        try {
+            event = toEvent(message);
+        } catch (Exception e) {
+            // A poison entry must not block the outbox forever
+            logger.error("Discarding unreadable outbox entry {} of type {}: {}",
+                    message.getId(), message.getEventType(), message.getPayload(), e);
+            discardedCounter.increment();
+            return null;
+        }
+        return messageService.sendOrderEventAsync(event);
+    }
+
+    private EventMessage<Object> toEvent(OutboxMessage message) throws Exception {
+        if (!message.getEventType().startsWith(EVENT_PACKAGE)) {
+            throw new IllegalArgumentException("Unsupported outbox event type: " + message.getEventType());
+        }
+        Class<?> eventClass = Class.forName(message.getEventType());
+        return new EventMessage<>(message.getMessageId(), message.getCorrelationId(), message.getCreatedAt(),
+                objectMapper.readValue(message.getPayload(), eventClass), eventClass.getSimpleName(), null,
+                message.getEventVersion());
+    }
+
+    /**
+     * Entries claimed for one batch
+     *
+     * @param queues the claimed entries by aggregate, in the order to publish them
+     * @param claimedIds the IDs of the claimed entries
+     * @param size the number of entries read, including those left to other relays
+     */
+    private record Batch(Map<String, Deque<OutboxMessage>> queues, List<Long> claimedIds, int size) {
+    }
+
+    /**
+     * An outbox entry and the confirm of its publication, null if the entry was discarded
+     */
+    private record PendingConfirm(OutboxMessage message, CompletableFuture<Void> confirm) {
+    }
+}
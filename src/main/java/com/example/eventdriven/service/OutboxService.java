@@ -0,0 +1,75 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.OutboxMessage;
+import com.example.eventdriven.model.event.EventMessage;
+import com.example.eventdriven.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for writing events to the transactional outbox.
+ * Events are stored in the caller's transaction, together with the metadata of their envelope,
+ * and published later by {@link OutboxRelay}.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    /**
+     * MDC key of the ID of the HTTP request being served, set by {@code RequestLoggingFilter}
+     */
+    static final String REQUEST_ID_KEY = "requestId";
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository, ObjectMapper objectMapper) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Store an order event in the outbox as part of the current transaction.
+     * The event is correlated with the HTTP request that caused it, if any. The caller must hold the
+     * order row, so the events of an order are sequenced in commit order.
+     *
+     * @param orderId the ID of the order the event belongs to
+     * @param event the event to publish
+     * @throws IllegalStateException if the event cannot be serialized
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueueOrderEvent(String orderId, Object event) {
+        long sequence = outboxMessageRepository.findLastSequence(orderId).orElse(0L) + 1;
+        enqueue(orderId, sequence, event);
+    }
+
+    /**
+     * Store the first event of an order created in the current transaction, which has no earlier
+     * entries to be sequenced after
+     *
+     * @param orderId the ID of the new order
+     * @param event the event to publish
+     * @throws IllegalStateException if the event cannot be serialized
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueueNewOrderEvent(String orderId, Object event) {
+        enqueue(orderId, 1, event);
+    }
+
+    private void enqueue(String orderId, long sequence, Object event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            outboxMessageRepository.save(new OutboxMessage(orderId, sequence, event.getClass().getName(), payload,
+                    MDC.get(REQUEST_ID_KEY), EventMessage.SCHEMA_VERSION));
+            logger.debug("Stored {} for order ID: {} in outbox", event.getClass().getSimpleName(), orderId);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize event for order ID: " + orderId, e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.eventdriven.config;
+
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for a RabbitMQ broker.
+ * Messages are converted exactly as the real template would and recorded instead of being sent,
+ * publisher confirms are completed immediately, and the broker can be taken offline or made to
+ * nack messages to simulate outages.
+ */
+public class InMemoryRabbitTemplate extends RabbitTemplate {
+
+    private final ConcurrentLinkedQueue<PublishedMessage> published = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger remainingBeforeOutage = new AtomicInteger(Integer.MAX_VALUE);
+    private final AtomicInteger remainingBeforeNacks = new AtomicInteger(Integer.MAX_VALUE);
+
+    public InMemoryRabbitTemplate(MessageConverter messageConverter) {
+        setMessageConverter(messageConverter);
+    }
+
+    @Override
+    public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        if (remainingBeforeOutage.getAndDecrement() <= 0) {
+            throw new AmqpConnectException(new ConnectException("Broker unavailable"));
+        }
+        boolean ack = remainingBeforeNacks.getAndDecrement() > 0;
+        if (ack) {
+            published.add(new PublishedMessage(exchange, routingKey, message));
+        }
+        if (correlationData != null) {
+            correlationData.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "Broker rejected message"));
+        }
+    }
+
+    /**
+     * Accept the given number of messages, then reject every further publish
+     *
+     * @param messages the number of messages to accept before the outage
+     */
+    public void failAfter(int messages) {
+        remainingBeforeOutage.set(messages);
+    }
+
+    /**
+     * Confirm the given number of messages, then nack every further publish
+     *
+     * @param messages the number of messages to confirm before nacking
+     */
+    public void nackAfter(int messages) {
+        remainingBeforeNacks.set(messages);
+    }
+
+    /**
+     * Bring the broker back after an outage
+     */
+    public void recover() {
+        remainingBeforeOutage.set(Integer.MAX_VALUE);
+        remainingBeforeNacks.set(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return all messages accepted so far, in publish order
+     */
+    public List<PublishedMessage> getPublished() {
+        return new ArrayList<>(published);
+    }
+
+    /**
+     * @param exchange the exchange name
+     * @return the converted payloads of the messages published to the exchange, in publish order
+     */
+    public List<Object> getPayloads(String exchange) {
+        return published.stream()
+                .filter(m -> m.exchange().equals(exchange))
+                .map(m -> getMessageConverter().fromMessage(m.message()))
+                .toList();
+    }
+
+    public void clear() {
+        published.clear();
+    }
+
+    public record PublishedMessage(String exchange, String routingKey, Message message) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.eventdriven.config;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.OrderStatusTransitions;
+import com.example.eventdriven.model.OrderWorkflows;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderWorkflowConfigTest {
+
+    private final OrderWorkflowConfig config = new OrderWorkflowConfig();
+
+    @Test
+    void orderWorkflows_shouldUseStandardWorkflowWithoutConfiguration() {
+        // Act
+        OrderWorkflows workflows = config.orderWorkflows(new MockEnvironment());
+
+        // Assert
+        assertSame(OrderStatusTransitions.DEFAULT, workflows.getDefault());
+        assertSame(OrderStatusTransitions.DEFAULT, workflows.forType("anything"));
+    }
+
+    @Test
+    void orderWorkflows_shouldBindNamedWorkflows() {
+        // Arrange - digital orders may be delivered without shipping
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.orders.workflows.digital.CREATED", "PAID,CANCELLED")
+                .withProperty("app.orders.workflows.digital.PAID", "PROCESSING,DELIVERED,CANCELLED")
+                .withProperty("app.orders.workflows.digital.DELIVERED", "REFUNDED")
+                .withProperty("app.orders.workflows.digital.PROCESSING", "SHIPPED")
+                .withProperty("app.orders.workflows.digital.SHIPPED", "DELIVERED");
+
+        // Act
+        OrderWorkflows workflows = config.orderWorkflows(environment);
+
+        // Assert
+        OrderStatusTransitions digital = workflows.forType("digital");
+        assertTrue(digital.allows(OrderStatus.PAID, OrderStatus.DELIVERED));
+        assertFalse(OrderStatusTransitions.DEFAULT.allows(OrderStatus.PAID, OrderStatus.DELIVERED));
+        assertSame(OrderStatusTransitions.DEFAULT, workflows.getDefault());
+    }
+
+    @Test
+    void orderWorkflows_shouldFailOnUnreachableStatus() {
+        // Arrange
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.orders.workflows.default.CREATED", "PAID");
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> config.orderWorkflows(environment));
+        assertTrue(exception.getMessage().startsWith("Invalid order workflow 'default'"), exception.getMessage());
+    }
+}
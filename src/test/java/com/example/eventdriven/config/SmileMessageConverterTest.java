@@ -0,0 +1,105 @@
+package com.example.eventdriven.config;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmileMessageConverterTest {
+
+    private Jackson2JsonMessageConverter jsonMessageConverter;
+    private SmileMessageConverter smileMessageConverter;
+    private MessageConverter messageConverter;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        RabbitMQConfig config = new RabbitMQConfig();
+        jsonMessageConverter = config.jsonMessageConverter(objectMapper);
+        smileMessageConverter = config.smileMessageConverter(objectMapper);
+        messageConverter = config.messageConverter(jsonMessageConverter, smileMessageConverter);
+    }
+
+    @Test
+    void toMessage_shouldWriteSmallerMessagesThanJsonThatReadBackTheSame() {
+        // Arrange
+        OrderCreatedEvent event = createOrderCreatedEvent(50);
+
+        // Act
+        Message smile = messageConverter.toMessage(event, contentType(SmileMessageConverter.CONTENT_TYPE));
+        Message json = messageConverter.toMessage(event, contentType(MessageProperties.CONTENT_TYPE_JSON));
+        OrderCreatedEvent read = (OrderCreatedEvent) messageConverter.fromMessage(smile);
+
+        // Assert
+        assertEquals(SmileMessageConverter.CONTENT_TYPE, smile.getMessageProperties().getContentType());
+        assertTrue(smile.getBody().length < json.getBody().length,
+                smile.getBody().length + " bytes as Smile, " + json.getBody().length + " as JSON");
+        assertEquals(event.getOrderId(), read.getOrderId());
+        assertEquals(event.getCreatedAt(), read.getCreatedAt());
+        assertEquals(0, event.getTotalAmount().compareTo(read.getTotalAmount()));
+        assertEquals(50, read.getItems().size());
+        assertEquals(event.getItems().get(49).getProductId(), read.getItems().get(49).getProductId());
+    }
+
+    @Test
+    void fromMessage_shouldReadJsonAndMessagesWithoutContentType() {
+        // Arrange
+        OrderCreatedEvent event = createOrderCreatedEvent(1);
+        Message json = jsonMessageConverter.toMessage(event, new MessageProperties());
+        Message untyped = jsonMessageConverter.toMessage(event, new MessageProperties());
+        untyped.getMessageProperties().setContentType(null);
+
+        // Act & Assert
+        assertEquals(event.getOrderId(), ((OrderCreatedEvent) messageConverter.fromMessage(json)).getOrderId());
+        assertEquals(event.getOrderId(), ((OrderCreatedEvent) messageConverter.fromMessage(untyped)).getOrderId());
+    }
+
+    @Test
+    void toMessage_shouldWriteJsonByDefault() {
+        // Act
+        Message message = messageConverter.toMessage(createOrderCreatedEvent(1), new MessageProperties());
+
+        // Assert
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, message.getMessageProperties().getContentType());
+    }
+
+    // Helper methods
+    private MessageProperties contentType(String contentType) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(contentType);
+        return properties;
+    }
+
+    private OrderCreatedEvent createOrderCreatedEvent(int items) {
+        List<OrderCreatedEvent.OrderItemDto> itemDtos = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            itemDtos.add(new OrderCreatedEvent.OrderItemDto("product-" + i, "Product " + i, 2, new BigDecimal("19.99")));
+        }
+        return new OrderCreatedEvent(
+                "order-1",
+                "customer-123",
+                OrderStatus.CREATED,
+                LocalDateTime.now(),
+                new BigDecimal("39.98").multiply(BigDecimal.valueOf(items)),
+                "123 Test Street, Test City",
+                itemDtos
+        );
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.eventdriven.controller;
 
+import com.example.eventdriven.logging.LoggingService;
 import com.example.eventdriven.model.Order;
 import com.example.eventdriven.model.OrderItem;
+import com.example.eventdriven.model.OrderPage;
 import com.example.eventdriven.model.OrderStatus;
 import com.example.eventdriven.model.command.CreateOrderCommand;
 import com.example.eventdriven.model.command.UpdateOrderStatusCommand;
+import com.example.eventdriven.service.BulkOrderImportService;
+import com.example.eventdriven.service.IdempotencyService;
+import com.example.eventdriven.service.InMemoryIdempotencyStore;
 import com.example.eventdriven.service.OrderService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -17,12 +23,20 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -39,6 +53,9 @@ class OrderControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private BulkOrderImportService bulkOrderImportService;
+
     @InjectMocks
     private OrderController orderController;
 
@@ -74,6 +91,75 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.status", is("CREATED")));
     }
 
+    @Test
+    void createOrder_shouldReplayResponseForRepeatedIdempotencyKey() throws Exception {
+        // Arrange
+        CreateOrderCommand command = createSampleOrderCommand();
+        MockMvc idempotentMockMvc = idempotentMockMvc();
+
+        when(orderService.createOrder(any(CreateOrderCommand.class))).thenReturn(createSampleOrder());
+
+        // Act & Assert
+        for (String replayed : List.of("false", "true")) {
+            idempotentMockMvc.perform(post("/api/orders")
+                            .header(OrderController.IDEMPOTENCY_KEY_HEADER, "key-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(command)))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string(OrderController.IDEMPOTENT_REPLAYED_HEADER, replayed))
+                    .andExpect(jsonPath("$.id", is("order-123")))
+                    .andExpect(jsonPath("$.items", hasSize(2)));
+        }
+        verify(orderService, times(1)).createOrder(any(CreateOrderCommand.class));
+    }
+
+    @Test
+    void createOrder_shouldRejectIdempotencyKeyReusedForDifferentOrder() throws Exception {
+        // Arrange
+        CreateOrderCommand command = createSampleOrderCommand();
+        CreateOrderCommand otherCommand = createSampleOrderCommand();
+        otherCommand.setCustomerId("customer-456");
+        MockMvc idempotentMockMvc = idempotentMockMvc();
+
+        when(orderService.createOrder(any(CreateOrderCommand.class))).thenReturn(createSampleOrder());
+        idempotentMockMvc.perform(post("/api/orders")
+                        .header(OrderController.IDEMPOTENCY_KEY_HEADER, "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isCreated());
+
+        // Act & Assert
+        idempotentMockMvc.perform(post("/api/orders")
+                        .header(OrderController.IDEMPOTENCY_KEY_HEADER, "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(otherCommand)))
+                .andExpect(status().isUnprocessableEntity());
+        verify(orderService, times(1)).createOrder(any(CreateOrderCommand.class));
+    }
+
+    @Test
+    void createOrdersInBulk_shouldStreamResultsOfImport() throws Exception {
+        // Arrange
+        String body = objectMapper.writeValueAsString(createSampleOrderCommand()) + "\n";
+
+        when(bulkOrderImportService.importOrders(any(), any())).thenAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(1);
+            output.write("{\"line\":1,\"status\":\"CREATED\",\"orderId\":\"order-123\"}\n".getBytes());
+            return new BulkOrderImportService.ImportSummary();
+        });
+
+        // Act & Assert
+        mockMvc.perform(post("/api/orders/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"orderId\":\"order-123\"")));
+
+        verify(bulkOrderImportService).importOrders(any(), any());
+    }
+
     @Test
     void getOrder_shouldReturnOrder() throws Exception {
         // Arrange
@@ -119,6 +205,52 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$[1].customerId", is(customerId)));
     }
 
+    @Test
+    void getOrdersByCustomer_shouldReturnPageWithNextCursorHeader() throws Exception {
+        // Arrange
+        String customerId = "customer-123";
+        OrderPage page = new OrderPage(List.of(createSampleOrder()), "next-cursor");
+
+        when(orderService.getOrdersByCustomerId(customerId, "cursor-1", 1)).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/orders/customer/{customerId}", customerId)
+                        .param("limit", "1")
+                        .param("cursor", "cursor-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(OrderController.NEXT_CURSOR_HEADER, "next-cursor"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is("order-123")));
+    }
+
+    @Test
+    void streamOrdersByCustomer_shouldWriteOneOrderPerLine() throws Exception {
+        // Arrange
+        String customerId = "customer-123";
+        MockMvc streamingMockMvc = MockMvcBuilders.standaloneSetup(
+                new OrderController(orderService, bulkOrderImportService, objectMapper, null)).build();
+
+        doAnswer(invocation -> {
+            Consumer<Order> consumer = invocation.getArgument(1);
+            consumer.accept(createSampleOrder());
+            consumer.accept(createSampleOrder());
+            return null;
+        }).when(orderService).streamOrdersByCustomerId(eq(customerId), any());
+
+        // Act
+        String body = streamingMockMvc.perform(get("/api/orders/customer/{customerId}/stream", customerId)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        // Assert
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("order-123", objectMapper.readTree(lines[0]).get("id").asText());
+        assertEquals(2, objectMapper.readTree(lines[1]).get("items").size());
+    }
+
     @Test
     void updateOrderStatus_shouldUpdateStatusAndReturnOrder() throws Exception {
         // Arrange
@@ -157,6 +289,16 @@ class OrderControllerTest {
     }
 
     // Helper methods
+    private MockMvc idempotentMockMvc() {
+        IdempotencyService idempotencyService = new IdempotencyService(
+                new InMemoryIdempotencyStore(100, Duration.ofHours(1)),
+                objectMapper, new SimpleMeterRegistry());
+        return MockMvcBuilders.standaloneSetup(
+                        new OrderController(orderService, bulkOrderImportService, objectMapper, idempotencyService))
+                .setControllerAdvice(new GlobalExceptionHandler(mock(LoggingService.class)))
+                .build();
+    }
+
     private CreateOrderCommand createSampleOrderCommand() {
         CreateOrderCommand.OrderItemDto item1 = new CreateOrderCommand.OrderItemDto(
                 "product-1", "Product 1", 2, new BigDecimal("10.00"));
@@ -40,7 +40,7 @@ class RequestLoggingFilterTest {
 
     @BeforeEach
     void setUp() {
-        requestLoggingFilter = new RequestLoggingFilter(loggingService);
+        requestLoggingFilter = new RequestLoggingFilter(loggingService, false, 1024);
         request = new MockHttpServletRequest();
         response = new MockHttpServletResponse();
 
@@ -58,13 +58,16 @@ class RequestLoggingFilterTest {
         requestLoggingFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        // Verify filter chain was called
-        verify(filterChain).doFilter(any(ContentCachingRequestWrapper.class), any(ContentCachingResponseWrapper.class));
+        // Verify filter chain was called without buffering the bodies
+        verify(filterChain).doFilter(request, response);
 
-        // Verify request logging
+        // Verify request and response logging
         @SuppressWarnings("unchecked")
         ArgumentCaptor<Map<String, Object>> requestDataCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(loggingService).logInfo(eq("HTTP Request"), requestDataCaptor.capture());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> responseDataCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(loggingService).logHttpExchange(eq("/api/orders"), eq(200), anyLong(),
+                requestDataCaptor.capture(), responseDataCaptor.capture());
 
         Map<String, Object> requestData = requestDataCaptor.getValue();
         assertNotNull(requestData.get("requestId"));
@@ -74,15 +77,70 @@ class RequestLoggingFilterTest {
         assertEquals("127.0.0.1", requestData.get("clientIp"));
         assertEquals("Test Agent", requestData.get("userAgent"));
 
-        // Verify response logging
-        @SuppressWarnings("unchecked")
-        ArgumentCaptor<Map<String, Object>> responseDataCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(loggingService).logInfo(eq("HTTP Response"), responseDataCaptor.capture());
-
         Map<String, Object> responseData = responseDataCaptor.getValue();
-        assertNotNull(responseData.get("requestId"));
+        assertEquals(requestData.get("requestId"), responseData.get("requestId"));
         assertEquals(200, responseData.get("status"));
         assertTrue((Long) responseData.get("duration") >= 0);
+        assertFalse(responseData.containsKey("responseBody"));
+    }
+
+    @Test
+    void doFilterInternal_shouldIssueIncreasingRequestIds() throws ServletException, IOException {
+        // Act
+        requestLoggingFilter.doFilterInternal(request, response, filterChain);
+        requestLoggingFilter.doFilterInternal(request, new MockHttpServletResponse(), filterChain);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> requestDataCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(loggingService, times(2)).logHttpExchange(anyString(), anyInt(), anyLong(),
+                requestDataCaptor.capture(), any());
+
+        String first = (String) requestDataCaptor.getAllValues().get(0).get("requestId");
+        String second = (String) requestDataCaptor.getAllValues().get(1).get("requestId");
+        String prefix = first.substring(0, first.lastIndexOf('-') + 1);
+        assertEquals(prefix, second.substring(0, second.lastIndexOf('-') + 1));
+        assertEquals(Long.parseLong(first.substring(prefix.length())) + 1, Long.parseLong(second.substring(prefix.length())));
+    }
+
+    @Test
+    void doFilterInternal_shouldBufferAndLogBodiesWhenEnabled() throws ServletException, IOException {
+        // Arrange
+        requestLoggingFilter = new RequestLoggingFilter(loggingService, true, 8);
+        request.setMethod("POST");
+        request.setContent("{\"customerId\":\"customer-1\"}".getBytes());
+        doAnswer(invocation -> {
+            ContentCachingRequestWrapper wrappedRequest = invocation.getArgument(0);
+            wrappedRequest.getInputStream().readAllBytes();
+            invocation.<HttpServletResponse>getArgument(1).getWriter().write("{\"id\":\"order-1\"}");
+            return null;
+        }).when(filterChain).doFilter(any(ContentCachingRequestWrapper.class), any(ContentCachingResponseWrapper.class));
+
+        // Act
+        requestLoggingFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert - bodies are truncated to the limit and the response still reaches the client
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> responseDataCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(loggingService).logHttpExchange(anyString(), anyInt(), anyLong(), any(), responseDataCaptor.capture());
+        assertEquals("{\"custom", responseDataCaptor.getValue().get("requestBody"));
+        assertEquals("{\"id\":\"o", responseDataCaptor.getValue().get("responseBody"));
+        assertEquals("{\"id\":\"order-1\"}", response.getContentAsString());
+    }
+
+    @Test
+    void doFilterInternal_shouldNotBufferStreamingRequests() throws ServletException, IOException {
+        // Arrange
+        request.setMethod("POST");
+        request.setRequestURI("/api/orders/bulk");
+        request.setContentType("application/x-ndjson");
+
+        // Act
+        requestLoggingFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert - the original request and response are passed on unwrapped
+        verify(filterChain).doFilter(request, response);
+        verify(loggingService).logHttpExchange(eq("/api/orders/bulk"), eq(200), anyLong(), any(), any());
     }
 
     @Test
@@ -95,14 +153,17 @@ class RequestLoggingFilterTest {
         assertThrows(RuntimeException.class, () ->
                 requestLoggingFilter.doFilterInternal(request, response, filterChain));
 
-        // Verify request was still logged
-        verify(loggingService).logInfo(eq("HTTP Request"), any());
+        // Verify the request was still logged, as a server error
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> responseDataCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(loggingService).logHttpExchange(eq("/api/orders"), eq(500), anyLong(), any(), responseDataCaptor.capture());
+        assertEquals(500, responseDataCaptor.getValue().get("status"));
     }
 
     // Create a test-only subclass to expose the protected method
     static class TestableRequestLoggingFilter extends RequestLoggingFilter {
         public TestableRequestLoggingFilter(LoggingService loggingService) {
-            super(loggingService);
+            super(loggingService, false, 1024);
         }
         
         @Override
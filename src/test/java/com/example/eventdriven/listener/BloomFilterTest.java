@@ -0,0 +1,68 @@
+package com.example.eventdriven.listener;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_shouldFindEveryAddedEntry() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        String[] entries = new String[10_000];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = UUID.randomUUID().toString();
+            filter.add(entries[i]);
+        }
+
+        // Act & Assert
+        for (String entry : entries) {
+            assertTrue(filter.mightContain(entry));
+        }
+        assertEquals(10_000, filter.size());
+    }
+
+    @Test
+    void mightContain_shouldStayNearFalsePositiveRateWhenFull() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("message-" + i);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert - 1% of 100k is 1000, allow for variance
+        assertTrue(falsePositives < 1_500, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void clear_shouldForgetEntries() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        filter.add("message-1");
+
+        // Act
+        filter.clear();
+
+        // Assert
+        assertFalse(filter.mightContain("message-1"));
+        assertEquals(0, filter.size());
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidSizes() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.service.MessageService;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventLatencyInterceptorTest {
+
+    @Mock
+    private MethodInvocation invocation;
+
+    @Mock
+    private Channel channel;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventLatencyInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new EventLatencyInterceptor(meterRegistry);
+    }
+
+    @Test
+    void invoke_shouldRecordLagAndAckLatencyPerEventType() throws Throwable {
+        // Arrange - published two seconds ago
+        Message message = createMessage("com.example.eventdriven.model.event.OrderCreatedEvent",
+                System.currentTimeMillis() - 2000);
+        when(invocation.getArguments()).thenReturn(new Object[]{channel, message});
+        when(invocation.proceed()).thenReturn(null);
+
+        // Act
+        interceptor.invoke(invocation);
+
+        // Assert
+        double lag = meterRegistry.get("messaging.consume.lag").tag("event", "OrderCreatedEvent").timer()
+                .totalTime(TimeUnit.MILLISECONDS);
+        assertTrue(lag >= 2000 && lag < 60_000, "lag was " + lag);
+        assertEquals(1, meterRegistry.get("messaging.consume.ack.latency").tag("event", "OrderCreatedEvent")
+                .timer().count());
+    }
+
+    @Test
+    void invoke_shouldRecordEveryMessageOfABatchEvenWhenTheListenerFails() throws Throwable {
+        // Arrange - the second message has no publish time
+        List<Message> batch = List.of(
+                createMessage("com.example.eventdriven.model.event.OrderStatusChangedEvent", System.currentTimeMillis()),
+                createMessage("com.example.eventdriven.model.event.OrderStatusChangedEvent", null));
+        when(invocation.getArguments()).thenReturn(new Object[]{channel, batch});
+        when(invocation.proceed()).thenThrow(new IllegalStateException("Listener failed"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> interceptor.invoke(invocation));
+        assertEquals(1, meterRegistry.get("messaging.consume.lag").tag("event", "OrderStatusChangedEvent")
+                .timer().count());
+        assertEquals(2, meterRegistry.get("messaging.consume.ack.latency").tag("event", "OrderStatusChangedEvent")
+                .timer().count());
+    }
+
+    // Helper methods
+    private Message createMessage(String typeId, Long publishedAt) {
+        MessageProperties properties = new MessageProperties();
+        properties.setHeader("__TypeId__", typeId);
+        if (publishedAt != null) {
+            properties.setHeader(MessageService.PUBLISHED_AT_HEADER, publishedAt);
+        }
+        return new Message(new byte[0], properties);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.model.event.EventMessage;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventVersionInterceptorTest {
+
+    @Mock
+    private MethodInvocation invocation;
+
+    @Mock
+    private Channel channel;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventVersionInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new EventVersionInterceptor(new ConsumerMetrics(meterRegistry));
+    }
+
+    @Test
+    void invoke_shouldPassOnEventsOfTheCurrentVersionOrWithoutVersion() throws Throwable {
+        // Arrange
+        Object[] arguments = {channel, List.of(createMessage(1, EventMessage.SCHEMA_VERSION), createMessage(2, null))};
+        when(invocation.getArguments()).thenReturn(arguments);
+
+        // Act
+        interceptor.invoke(invocation);
+
+        // Assert
+        verify(invocation).proceed();
+        assertEquals(2, ((List<?>) arguments[1]).size());
+        verifyNoInteractions(channel);
+    }
+
+    @Test
+    void invoke_shouldDeadLetterAnEventOfANewerVersionWithoutCallingTheListener() throws Throwable {
+        // Arrange
+        when(invocation.getArguments()).thenReturn(new Object[]{channel, createMessage(7, EventMessage.SCHEMA_VERSION + 1)});
+
+        // Act
+        interceptor.invoke(invocation);
+
+        // Assert
+        verify(channel).basicReject(7, false);
+        verify(invocation, never()).proceed();
+        assertEquals(1.0, meterRegistry.get("messaging.consume.dead.lettered").tag("event", "OrderCreatedEvent")
+                .counter().count());
+    }
+
+    @Test
+    void invoke_shouldDeadLetterAnEventWithAMalformedVersion() throws Throwable {
+        // Arrange
+        Message malformed = createMessage(3, "v2");
+        Message numeric = createMessage(4, String.valueOf(EventMessage.SCHEMA_VERSION));
+        Object[] arguments = {channel, List.of(malformed, numeric)};
+        when(invocation.getArguments()).thenReturn(arguments);
+
+        // Act
+        interceptor.invoke(invocation);
+
+        // Assert
+        verify(channel).basicReject(3, false);
+        verify(invocation).proceed();
+        assertEquals(List.of(numeric), arguments[1]);
+    }
+
+    @Test
+    void invoke_shouldPassOnTheRestOfABatch() throws Throwable {
+        // Arrange
+        Message current = createMessage(1, EventMessage.SCHEMA_VERSION);
+        Message newer = createMessage(2, EventMessage.SCHEMA_VERSION + 1);
+        Object[] arguments = {channel, List.of(current, newer)};
+        when(invocation.getArguments()).thenReturn(arguments);
+
+        // Act
+        interceptor.invoke(invocation);
+
+        // Assert
+        verify(channel).basicReject(2, false);
+        verify(invocation).proceed();
+        assertEquals(List.of(current), arguments[1]);
+    }
+
+    @Test
+    void invoke_shouldNotCallTheListenerWhenTheWholeBatchIsRejected() throws Throwable {
+        // Arrange
+        when(invocation.getArguments()).thenReturn(new Object[]{channel,
+                List.of(createMessage(1, EventMessage.SCHEMA_VERSION + 1))});
+
+        // Act
+        interceptor.invoke(invocation);
+
+        // Assert
+        verify(channel).basicReject(1, false);
+        verify(invocation, never()).proceed();
+    }
+
+    // Helper methods
+    private Message createMessage(long deliveryTag, Object version) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        properties.setType("OrderCreatedEvent");
+        if (version != null) {
+            properties.setHeader(EventMessage.VERSION_HEADER, version);
+        }
+        return new Message(new byte[0], properties);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.example.eventdriven.model.command.UpdateOrderStatusCommand;
+import com.example.eventdriven.service.OrderCommandService;
+import com.example.eventdriven.service.OrderCommandService.IdentifiedCommand;
+import com.example.eventdriven.service.OrderCommandService.Outcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCommandListenerTest {
+
+    @Mock
+    private OrderCommandService orderCommandService;
+
+    @Mock
+    private Channel channel;
+
+    private Jackson2JsonMessageConverter messageConverter;
+    private OrderCommandListener listener;
+
+    @BeforeEach
+    void setUp() {
+        messageConverter = new Jackson2JsonMessageConverter(new ObjectMapper(),
+                CreateOrderCommand.class.getPackageName());
+        listener = new OrderCommandListener(orderCommandService, messageConverter);
+    }
+
+    @Test
+    void handleOrderCommands_shouldApplyBatchAndRejectFailedCommandsBeforeAckingTheRest() throws IOException {
+        // Arrange
+        when(orderCommandService.apply(anyList()))
+                .thenReturn(List.of(Outcome.APPLIED, Outcome.REJECTED, Outcome.DUPLICATE));
+        Message withoutId = toMessage(new UpdateOrderStatusCommand("order-1", OrderStatus.PAID), 2, null);
+        Message unreadable = new Message("{not json".getBytes(), new MessageProperties());
+        unreadable.getMessageProperties().setMessageId("m-unreadable");
+        unreadable.getMessageProperties().setDeliveryTag(4);
+        List<Message> batch = List.of(
+                toMessage(createOrderCommand(), 1, "m1"),
+                withoutId,
+                toMessage(new UpdateOrderStatusCommand("order-1", OrderStatus.PAID), 3, "m3"),
+                unreadable,
+                toMessage(new UpdateOrderStatusCommand("order-1", OrderStatus.PAID), 5, "m3"));
+
+        // Act
+        listener.handleOrderCommands(batch, channel);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<IdentifiedCommand>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderCommandService).apply(captor.capture());
+        List<IdentifiedCommand> commands = captor.getValue();
+        assertEquals(List.of("m1", "m3", "m3"), commands.stream().map(IdentifiedCommand::messageId).toList());
+        assertInstanceOf(CreateOrderCommand.class, commands.get(0).command());
+        assertInstanceOf(UpdateOrderStatusCommand.class, commands.get(1).command());
+
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicReject(2, false);
+        inOrder.verify(channel).basicReject(4, false);
+        inOrder.verify(channel).basicReject(3, false);
+        inOrder.verify(channel).basicAck(5, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void handleOrderCommands_shouldNotAckWhenEveryCommandFails() throws IOException {
+        // Arrange
+        when(orderCommandService.apply(anyList())).thenReturn(List.of(Outcome.FAILED));
+
+        // Act
+        listener.handleOrderCommands(List.of(toMessage(createOrderCommand(), 1, "m1")), channel);
+
+        // Assert
+        verify(channel).basicReject(1, false);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    // Helper methods
+    private Message toMessage(Object command, long deliveryTag, String messageId) {
+        Message message = messageConverter.toMessage(command, new MessageProperties());
+        message.getMessageProperties().setDeliveryTag(deliveryTag);
+        message.getMessageProperties().setMessageId(messageId);
+        return message;
+    }
+
+    private CreateOrderCommand createOrderCommand() {
+        return new CreateOrderCommand("customer-1", "123 Test Street, Test City", List.of(
+                new CreateOrderCommand.OrderItemDto("product-1", "Product 1", 2, new BigDecimal("10.00"))));
+    }
+}
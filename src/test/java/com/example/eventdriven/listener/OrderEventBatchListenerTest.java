@@ -0,0 +1,211 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.example.eventdriven.model.event.OrderStatusChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderEventBatchListenerTest {
+
+    @Mock
+    private OrderEventProcessor processor;
+
+    @Mock
+    private Channel channel;
+
+    private Jackson2JsonMessageConverter messageConverter;
+    private SimpleMeterRegistry meterRegistry;
+    private OrderEventBatchListener listener;
+    private AtomicLong nanoTime;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        messageConverter = new Jackson2JsonMessageConverter(objectMapper, OrderCreatedEvent.class.getPackageName());
+        meterRegistry = new SimpleMeterRegistry();
+        nanoTime = new AtomicLong();
+        ProcessedMessageRegistry processedMessages = new ProcessedMessageRegistry(
+                meterRegistry, Duration.ofMinutes(5), 100, Duration.ofHours(1), 6, 1000, 0.000001, nanoTime::get);
+        listener = new OrderEventBatchListener(processor, messageConverter, new ConsumerMetrics(meterRegistry),
+                processedMessages);
+    }
+
+    @Test
+    void handleOrderEvents_shouldDispatchByTypeAndAckBatchOnce() throws IOException {
+        // Arrange
+        List<Message> batch = List.of(
+                toMessage(createOrderCreatedEvent("order-1"), 1),
+                toMessage(new OrderStatusChangedEvent("order-1", OrderStatus.CREATED, OrderStatus.PAID), 2),
+                toMessage(createOrderCreatedEvent("order-2"), 3));
+
+        // Act
+        listener.handleOrderEvents(batch, channel);
+
+        // Assert
+        verify(processor, times(2)).processOrderCreated(any(OrderCreatedEvent.class));
+        verify(processor).processOrderStatusChanged(any(OrderStatusChangedEvent.class));
+        verify(channel).basicAck(3, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void handleOrderEvents_shouldRejectFailedMessagesBeforeAckingTheRest() throws IOException {
+        // Arrange
+        doNothing()
+                .doThrow(new IllegalStateException("Inventory unavailable"))
+                .when(processor).processOrderCreated(any(OrderCreatedEvent.class));
+        Message unreadable = new Message("{not json".getBytes(), new MessageProperties());
+        unreadable.getMessageProperties().setDeliveryTag(3);
+        List<Message> batch = List.of(
+                toMessage(createOrderCreatedEvent("order-1"), 1),
+                toMessage(createOrderCreatedEvent("order-2"), 2),
+                unreadable);
+
+        // Act
+        listener.handleOrderEvents(batch, channel);
+
+        // Assert
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicReject(2, false);
+        inOrder.verify(channel).basicReject(3, false);
+        inOrder.verify(channel).basicAck(1, true);
+        verifyNoMoreInteractions(channel);
+
+        assertEquals(1.0, meterRegistry.counter("messaging.consume.dead.lettered", "event", "OrderCreatedEvent").count());
+        assertEquals(1.0, meterRegistry.counter("messaging.consume.dead.lettered", "event", "unknown").count());
+        assertEquals(1, meterRegistry.get("messaging.consume.duration")
+                .tags("event", "OrderCreatedEvent", "outcome", "success").timer().count());
+        assertEquals(0.0, meterRegistry.get("messaging.consume.in.flight").gauge().value());
+    }
+
+    @Test
+    void handleOrderEvents_shouldNotAckWhenEveryMessageFails() throws IOException {
+        // Arrange
+        doThrow(new IllegalStateException("Inventory unavailable"))
+                .when(processor).processOrderCreated(any(OrderCreatedEvent.class));
+
+        // Act
+        listener.handleOrderEvents(List.of(toMessage(createOrderCreatedEvent("order-1"), 1)), channel);
+
+        // Assert
+        verify(channel).basicReject(1, false);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void handleOrderEvents_shouldSkipRedeliveredMessages() throws IOException {
+        // Arrange
+        Message first = toMessage(createOrderCreatedEvent("order-1"), 1);
+        first.getMessageProperties().setMessageId("event-1");
+        listener.handleOrderEvents(List.of(first), channel);
+
+        Message redelivered = toMessage(createOrderCreatedEvent("order-1"), 2);
+        redelivered.getMessageProperties().setMessageId("event-1");
+        Message next = toMessage(createOrderCreatedEvent("order-2"), 3);
+        next.getMessageProperties().setMessageId("event-2");
+
+        // Act
+        listener.handleOrderEvents(List.of(redelivered, next), channel);
+
+        // Assert
+        verify(processor, times(2)).processOrderCreated(any(OrderCreatedEvent.class));
+        verify(channel).basicAck(3, true);
+        assertEquals(1.0, meterRegistry.counter("messaging.consume.duplicates",
+                "event", "OrderCreatedEvent").count());
+    }
+
+    @Test
+    void handleOrderEvents_shouldSkipRedeliveredMessagesWithoutConvertingThem() throws IOException {
+        // Arrange - the redelivery could not even be read, but the ID and type are in its properties
+        Message first = toMessage(createOrderCreatedEvent("order-1"), 1);
+        first.getMessageProperties().setMessageId("event-1");
+        listener.handleOrderEvents(List.of(first), channel);
+
+        MessageProperties properties = new MessageProperties();
+        properties.setMessageId("event-1");
+        properties.setType("OrderCreatedEvent");
+        properties.setDeliveryTag(2);
+        Message redelivered = new Message("not json".getBytes(), properties);
+
+        // Act
+        listener.handleOrderEvents(List.of(redelivered), channel);
+
+        // Assert
+        verify(processor).processOrderCreated(any(OrderCreatedEvent.class));
+        verify(channel).basicAck(2, true);
+        verify(channel, never()).basicReject(anyLong(), anyBoolean());
+        assertEquals(1.0, meterRegistry.counter("messaging.consume.duplicates",
+                "event", "OrderCreatedEvent").count());
+    }
+
+    @Test
+    void handleOrderEvents_shouldProcessMessagesOnlyTheFiltersMatch() throws IOException {
+        // Arrange - past the recent window the ID is only in the Bloom filters, which may be a false positive
+        Message first = toMessage(createOrderCreatedEvent("order-1"), 1);
+        first.getMessageProperties().setMessageId("event-1");
+        listener.handleOrderEvents(List.of(first), channel);
+        nanoTime.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        Message redelivered = toMessage(createOrderCreatedEvent("order-1"), 2);
+        redelivered.getMessageProperties().setMessageId("event-1");
+
+        // Act
+        listener.handleOrderEvents(List.of(redelivered), channel);
+
+        // Assert
+        verify(processor, times(2)).processOrderCreated(any(OrderCreatedEvent.class));
+        verify(channel).basicAck(2, true);
+        assertEquals(1.0, meterRegistry.counter("messaging.consume.duplicates.suspected",
+                "event", "OrderCreatedEvent").count());
+        assertEquals(0.0, meterRegistry.counter("messaging.consume.duplicates",
+                "event", "OrderCreatedEvent").count());
+    }
+
+    // Helper methods
+    private Message toMessage(Object event, long deliveryTag) {
+        Message message = messageConverter.toMessage(event, new MessageProperties());
+        message.getMessageProperties().setDeliveryTag(deliveryTag);
+        return message;
+    }
+
+    private OrderCreatedEvent createOrderCreatedEvent(String orderId) {
+        return new OrderCreatedEvent(
+                orderId,
+                "customer-123",
+                OrderStatus.CREATED,
+                LocalDateTime.now(),
+                new BigDecimal("20.00"),
+                "123 Test Street, Test City",
+                List.of(new OrderCreatedEvent.OrderItemDto("product-1", "Product 1", 2, new BigDecimal("10.00")))
+        );
+    }
+}
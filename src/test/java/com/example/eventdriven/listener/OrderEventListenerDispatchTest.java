@@ -0,0 +1,183 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.example.eventdriven.model.event.OrderInvalidatedEvent;
+import com.example.eventdriven.model.event.OrderStatusChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives the registered order event listener through the real annotation-driven dispatch,
+ * without a broker, to check that every message reaches the handler for its type
+ */
+@SpringJUnitConfig(OrderEventListenerDispatchTest.ListenerConfig.class)
+@TestPropertySource(properties = "app.rabbitmq.queues.orders.event=orders.event.queue.test")
+class OrderEventListenerDispatchTest {
+
+    private static final int MESSAGES = 10_000;
+
+    @Autowired
+    private RabbitListenerEndpointRegistry registry;
+
+    @Autowired
+    private Jackson2JsonMessageConverter messageConverter;
+
+    @Autowired
+    private OrderEventProcessor processor;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private Channel channel;
+    private ChannelAwareMessageListener messageListener;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.reset(processor);
+        channel = mock(Channel.class);
+        AbstractMessageListenerContainer container =
+                (AbstractMessageListenerContainer) registry.getListenerContainer(OrderEventListener.LISTENER_ID);
+        messageListener = (ChannelAwareMessageListener) container.getMessageListener();
+    }
+
+    @Test
+    void onMessage_shouldDispatchMixedEventsWithoutRejectingAny() throws Exception {
+        // Act - alternate event types as they arrive on the shared queue
+        for (int i = 1; i <= MESSAGES; i++) {
+            Object event = i % 2 == 0
+                    ? new OrderStatusChangedEvent("order-" + i, OrderStatus.CREATED, OrderStatus.PAID)
+                    : createOrderCreatedEvent("order-" + i);
+            messageListener.onMessage(toMessage(event, i), channel);
+        }
+
+        // Assert
+        verify(processor, times(MESSAGES / 2)).processOrderCreated(any(OrderCreatedEvent.class));
+        verify(processor, times(MESSAGES / 2)).processOrderStatusChanged(any(OrderStatusChangedEvent.class));
+        verify(channel, times(MESSAGES)).basicAck(anyLong(), eq(false));
+        verify(channel, never()).basicReject(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void onMessage_shouldRejectEventsNoHandlerAccepts() throws Exception {
+        // Act
+        messageListener.onMessage(toMessage(new OrderInvalidatedEvent("order-1"), 1), channel);
+
+        // Assert
+        verify(channel).basicReject(1, false);
+        verifyNoInteractions(processor);
+        assertEquals(1.0, meterRegistry.counter("messaging.consume.dead.lettered", "event", "OrderInvalidatedEvent").count());
+    }
+
+    @Test
+    void onMessage_shouldAckRedeliveredEventsWithoutProcessingThemAgain() throws Exception {
+        // Arrange
+        Message message = toMessage(createOrderCreatedEvent("order-1"), 1);
+        message.getMessageProperties().setMessageId("event-redelivered");
+        messageListener.onMessage(message, channel);
+
+        Message redelivered = toMessage(createOrderCreatedEvent("order-1"), 2);
+        redelivered.getMessageProperties().setMessageId("event-redelivered");
+        redelivered.getMessageProperties().setRedelivered(true);
+
+        // Act
+        messageListener.onMessage(redelivered, channel);
+
+        // Assert
+        verify(processor, times(1)).processOrderCreated(any(OrderCreatedEvent.class));
+        verify(channel).basicAck(2, false);
+        assertEquals(1.0, meterRegistry.counter("messaging.consume.duplicates",
+                "event", "OrderCreatedEvent").count());
+    }
+
+    // Helper methods
+    private Message toMessage(Object event, long deliveryTag) {
+        Message message = messageConverter.toMessage(event, new MessageProperties());
+        message.getMessageProperties().setDeliveryTag(deliveryTag);
+        return message;
+    }
+
+    private OrderCreatedEvent createOrderCreatedEvent(String orderId) {
+        return new OrderCreatedEvent(
+                orderId,
+                "customer-123",
+                OrderStatus.CREATED,
+                LocalDateTime.now(),
+                new BigDecimal("20.00"),
+                "123 Test Street, Test City",
+                List.of(new OrderCreatedEvent.OrderItemDto("product-1", "Product 1", 2, new BigDecimal("10.00")))
+        );
+    }
+
+    @Configuration
+    @EnableRabbit
+    @Import({OrderEventListener.class, ConsumerMetrics.class})
+    static class ListenerConfig {
+
+        @Bean
+        public Jackson2JsonMessageConverter messageConverter() {
+            ObjectMapper objectMapper = new ObjectMapper();
+            objectMapper.registerModule(new JavaTimeModule());
+            objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+            return new Jackson2JsonMessageConverter(objectMapper, OrderCreatedEvent.class.getPackageName());
+        }
+
+        @Bean
+        public SimpleMeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        public ProcessedMessageRegistry processedMessageRegistry(SimpleMeterRegistry meterRegistry) {
+            return new ProcessedMessageRegistry(meterRegistry, Duration.ofMinutes(5), 100, Duration.ofHours(1),
+                    6, 1000, 0.000001);
+        }
+
+        @Bean
+        public OrderEventProcessor orderEventProcessor() {
+            return mock(OrderEventProcessor.class);
+        }
+
+        @Bean
+        public SimpleRabbitListenerContainerFactory eventListenerContainerFactory(Jackson2JsonMessageConverter messageConverter) {
+            SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+            factory.setConnectionFactory(mock(ConnectionFactory.class));
+            factory.setMessageConverter(messageConverter);
+            factory.setAutoStartup(false);
+            return factory;
+        }
+    }
+}
@@ -90,7 +90,7 @@ class OrderEventListenerIntegrationTest {
         // Assert
         await().atMost(10, TimeUnit.SECONDS)
                 .untilAsserted(() -> verify(orderEventListener, times(1))
-                        .handleOrderCreatedEvent(any(OrderCreatedEvent.class), any(), any()));
+                        .handleOrderCreatedEvent(any(OrderCreatedEvent.class), any(), any(), any()));
     }
 
     @Test
@@ -104,7 +104,7 @@ class OrderEventListenerIntegrationTest {
         // Assert
         await().atMost(10, TimeUnit.SECONDS)
                 .untilAsserted(() -> verify(orderEventListener, times(1))
-                        .handleOrderStatusChangedEvent(any(OrderStatusChangedEvent.class), any(), any()));
+                        .handleOrderStatusChangedEvent(any(OrderStatusChangedEvent.class), any(), any(), any()));
     }
 
     // Helper methods
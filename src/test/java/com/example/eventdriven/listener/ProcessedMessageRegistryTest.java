@@ -0,0 +1,116 @@
+package com.example.eventdriven.listener;
+
+import com.example.eventdriven.listener.ProcessedMessageRegistry.Match;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessedMessageRegistryTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(5);
+    private static final Duration RETENTION = Duration.ofHours(1);
+    private static final int FILTERS = 6;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong nanoTime;
+    private ProcessedMessageRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nanoTime = new AtomicLong();
+        registry = createRegistry(1_000);
+    }
+
+    @Test
+    void check_shouldMatchRecentlyRegisteredMessage() {
+        // Arrange
+        registry.register("message-1");
+
+        // Act & Assert
+        assertEquals(Match.RECENT, registry.check("message-1"));
+        assertEquals(Match.NONE, registry.check("message-2"));
+        assertEquals(1.0, meterRegistry.get("messaging.consume.dedupe.window.size").gauge().value());
+    }
+
+    @Test
+    void check_shouldMatchFromFiltersAfterWindow() {
+        // Arrange
+        registry.register("message-1");
+
+        // Act
+        advance(WINDOW.plusMinutes(1));
+
+        // Assert
+        assertEquals(Match.FILTER, registry.check("message-1"));
+    }
+
+    @Test
+    void check_shouldForgetMessagesAfterRetention() {
+        // Arrange
+        registry.register("message-1");
+
+        // Act
+        advance(RETENTION);
+
+        // Assert
+        assertEquals(Match.NONE, registry.check("message-1"));
+    }
+
+    @Test
+    void check_shouldKeepMessagesForRetentionLessOneSlice() {
+        // Arrange
+        registry.register("message-1");
+
+        // Act
+        for (int i = 0; i < FILTERS - 1; i++) {
+            advance(RETENTION.dividedBy(FILTERS));
+            registry.register("message-" + (i + 2));
+        }
+
+        // Assert
+        assertEquals(Match.FILTER, registry.check("message-1"));
+    }
+
+    @Test
+    void register_shouldRotateEarlyWhenFilterIsFull() {
+        // Arrange - filters of 2 entries each, far below the rate
+        registry = createRegistry(2);
+        registry.register("message-0");
+        advance(WINDOW.plusMinutes(1));
+
+        // Act - fill every filter once more
+        for (int i = 1; i <= FILTERS * 2; i++) {
+            registry.register("message-" + i);
+        }
+        advance(WINDOW.plusMinutes(1));
+
+        // Assert - the oldest message is forgotten before the retention, the newest is kept
+        assertEquals(Match.NONE, registry.check("message-0"));
+        assertEquals(Match.FILTER, registry.check("message-" + FILTERS * 2));
+    }
+
+    @Test
+    void check_shouldIgnoreMessagesWithoutId() {
+        // Act
+        registry.register(null);
+
+        // Assert
+        assertEquals(Match.NONE, registry.check(null));
+    }
+
+    // Helper methods
+    private ProcessedMessageRegistry createRegistry(int filterCapacity) {
+        return new ProcessedMessageRegistry(meterRegistry, WINDOW, 100, RETENTION, FILTERS, filterCapacity,
+                0.000001, nanoTime::get);
+    }
+
+    private void advance(Duration duration) {
+        nanoTime.addAndGet(duration.toNanos());
+    }
+}
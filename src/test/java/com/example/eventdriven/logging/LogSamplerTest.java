@@ -0,0 +1,128 @@
+package com.example.eventdriven.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSamplerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void sample_shouldApplyLevelRatesButAlwaysKeepErrors() {
+        // Arrange
+        LogSampler logSampler = createLogSampler(0.0, "", 0);
+
+        // Act & Assert
+        assertFalse(logSampler.sample("INFO"));
+        assertTrue(logSampler.sample("WARNING"));
+        assertTrue(logSampler.sample("ERROR"));
+        assertEquals(1.0, meterRegistry.counter("logging.sampling.dropped", "reason", "sampled").count());
+    }
+
+    @Test
+    void sampleRequest_shouldUseLongestMatchingRoutePrefix() {
+        // Arrange
+        LogSampler logSampler = createLogSampler(1.0, "/api=0, /api/orders=1.0, /actuator=0", 0);
+
+        // Act & Assert
+        assertTrue(logSampler.sampleRequest("/api/orders/123", 200, 5, 2));
+        assertFalse(logSampler.sampleRequest("/api/customers", 200, 5, 2));
+        assertFalse(logSampler.sampleRequest("/actuator/health", 200, 5, 2));
+        assertTrue(logSampler.sampleRequest("/other", 200, 5, 2));
+        assertEquals(4.0, meterRegistry.counter("logging.sampling.dropped", "reason", "sampled").count());
+    }
+
+    @Test
+    void sampleRequest_shouldAlwaysKeepFailedAndSlowRequests() {
+        // Arrange - nothing else is kept
+        LogSampler logSampler = createLogSampler(0.0, "/api=0", 0);
+
+        // Act & Assert
+        assertTrue(logSampler.sampleRequest("/api/orders", 500, 5, 2));
+        assertTrue(logSampler.sampleRequest("/api/orders", 200, 1000, 2));
+        assertFalse(logSampler.sampleRequest("/api/orders", 404, 999, 2));
+        assertEquals(1.0, meterRegistry.counter("logging.sampling.tail.kept", "reason", "error").count());
+        assertEquals(1.0, meterRegistry.counter("logging.sampling.tail.kept", "reason", "slow").count());
+    }
+
+    @Test
+    void sample_shouldRateLimitToBurstAndKeepErrors() {
+        // Arrange - one entry a minute, at most 3 at once
+        LogSampler logSampler = createLogSampler(1.0, "", 1.0 / 60);
+
+        // Act
+        int kept = 0;
+        for (int i = 0; i < 10; i++) {
+            if (logSampler.sample("INFO")) {
+                kept++;
+            }
+        }
+
+        // Assert
+        assertEquals(3, kept);
+        assertTrue(logSampler.sample("ERROR"));
+        assertEquals(7.0, meterRegistry.counter("logging.sampling.dropped", "reason", "rate-limited").count());
+    }
+
+    @Test
+    void update_shouldReplaceSettingsUntilReset() {
+        // Arrange
+        LogSampler logSampler = createLogSampler(1.0, "", 0);
+
+        // Act
+        logSampler.update(new SamplingSettings(0.0, 0.0, Map.of(), 0, 2, Duration.ofSeconds(1)));
+        boolean keptWhileUpdated = logSampler.sample("INFO");
+        logSampler.reset();
+
+        // Assert
+        assertFalse(keptWhileUpdated);
+        assertTrue(logSampler.sample("INFO"));
+        assertEquals(1.0, logSampler.getSettings().infoRate());
+    }
+
+    @Test
+    void tokenBucket_shouldRefillAtTheConfiguredRate() {
+        // Arrange - 10 tokens a second, at most 2 at once
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+
+        // Act & Assert
+        assertTrue(bucket.tryAcquire(2));
+        assertFalse(bucket.tryAcquire(1));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(bucket.tryAcquire(1));
+        assertFalse(bucket.tryAcquire(1));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertFalse(bucket.tryAcquire(3));
+        assertTrue(bucket.tryAcquire(2));
+    }
+
+    @Test
+    void settings_shouldRejectInvalidValues() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> createLogSampler(1.5, "", 0));
+        assertThrows(IllegalArgumentException.class, () -> createLogSampler(1.0, "/api=-1", 0));
+        assertThrows(IllegalArgumentException.class, () -> createLogSampler(1.0, "/api", 0));
+        assertThrows(IllegalArgumentException.class, () -> createLogSampler(1.0, "", -1));
+        assertThrows(IllegalArgumentException.class, () -> new LogSampler(meterRegistry, 1.0, 1.0, "", 10,
+                LogSampler.REQUEST_ENTRIES - 1, Duration.ofSeconds(1)));
+    }
+
+    // Helper methods
+    private LogSampler createLogSampler(double infoRate, String routeRates, double rateLimit) {
+        return new LogSampler(meterRegistry, infoRate, 1.0, routeRates, rateLimit, 3, Duration.ofSeconds(1));
+    }
+}
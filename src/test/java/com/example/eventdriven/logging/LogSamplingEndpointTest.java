@@ -0,0 +1,71 @@
+package com.example.eventdriven.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSamplingEndpointTest {
+
+    private LogSampler logSampler;
+    private LogSamplingEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        logSampler = new LogSampler(new SimpleMeterRegistry(), 1.0, 1.0, "/actuator=0", 0, 100,
+                Duration.ofSeconds(1));
+        endpoint = new LogSamplingEndpoint(logSampler);
+    }
+
+    @Test
+    void configure_shouldChangeOnlyTheGivenSettings() {
+        // Act
+        SamplingSettings settings = endpoint.configure(0.05, null, "/api/orders", 0.01, 500.0, null,
+                Duration.ofMillis(250));
+
+        // Assert
+        assertEquals(0.05, settings.infoRate());
+        assertEquals(1.0, settings.warningRate());
+        assertEquals(Map.of("/actuator", 0.0, "/api/orders", 0.01), settings.routeRates());
+        assertEquals(500.0, settings.rateLimit());
+        assertEquals(100, settings.burst());
+        assertEquals(Duration.ofMillis(250), settings.slowThreshold());
+        assertSame(settings, logSampler.getSettings());
+    }
+
+    @Test
+    void configure_shouldRemoveRouteWithoutRate() {
+        // Act
+        SamplingSettings settings = endpoint.configure(null, null, "/actuator", null, null, null, null);
+
+        // Assert
+        assertTrue(settings.routeRates().isEmpty());
+    }
+
+    @Test
+    void configure_shouldRejectInvalidSettings() {
+        // Act & Assert
+        assertThrows(InvalidEndpointRequestException.class,
+                () -> endpoint.configure(2.0, null, null, null, null, null, null));
+        assertEquals(1.0, endpoint.settings().infoRate());
+    }
+
+    @Test
+    void reset_shouldRestoreConfiguredSettings() {
+        // Arrange
+        endpoint.configure(0.0, 0.0, null, null, 10.0, 2, null);
+
+        // Act
+        SamplingSettings settings = endpoint.reset();
+
+        // Assert
+        assertEquals(1.0, settings.infoRate());
+        assertEquals(0.0, settings.rateLimit());
+        assertEquals(Map.of("/actuator", 0.0), settings.routeRates());
+    }
+}
@@ -1,19 +1,23 @@
 package com.example.eventdriven.logging;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -28,15 +32,17 @@ class LoggingServiceTest {
     private RabbitTemplate rabbitTemplate;
 
     private ObjectMapper objectMapper;
+    private SimpleMeterRegistry meterRegistry;
     private LoggingService loggingService;
 
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
-        loggingService = new LoggingService(rabbitTemplate, objectMapper, APPLICATION_NAME);
-
-        // Set properties via reflection since we're not loading the application context
-        ReflectionTestUtils.setField(loggingService, "loggingExchange", LOGGING_EXCHANGE);
+        meterRegistry = new SimpleMeterRegistry();
+        // Run batches against the mock itself, as the real template would on a pooled channel
+        lenient().when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+        loggingService = createLoggingService(16, LoggingService.OverflowPolicy.DROP);
     }
 
     @Test
@@ -49,6 +55,7 @@ class LoggingServiceTest {
 
         // Act
         loggingService.logInfo(message, data);
+        loggingService.flush();
 
         // Assert
         ArgumentCaptor<String> routingKeyCaptor = ArgumentCaptor.forClass(String.class);
@@ -80,6 +87,7 @@ class LoggingServiceTest {
 
         // Act
         loggingService.logWarning(message, data);
+        loggingService.flush();
 
         // Assert
         ArgumentCaptor<String> routingKeyCaptor = ArgumentCaptor.forClass(String.class);
@@ -109,6 +117,7 @@ class LoggingServiceTest {
 
         // Act
         loggingService.logError(message, data, exception);
+        loggingService.flush();
 
         // Assert
         ArgumentCaptor<String> routingKeyCaptor = ArgumentCaptor.forClass(String.class);
@@ -138,6 +147,7 @@ class LoggingServiceTest {
 
         // Act
         loggingService.logError(message, null, exception);
+        loggingService.flush();
 
         // Assert
         verify(rabbitTemplate).convertAndSend(
@@ -155,6 +165,7 @@ class LoggingServiceTest {
 
         // Act
         loggingService.logError(message, data, null);
+        loggingService.flush();
 
         // Assert
         verify(rabbitTemplate).convertAndSend(
@@ -176,6 +187,7 @@ class LoggingServiceTest {
 
         // Act - This should not throw an exception
         loggingService.logInfo(message, data);
+        loggingService.flush();
 
         // Assert - Verify that rabbitTemplate was called
         verify(rabbitTemplate).convertAndSend(
@@ -185,4 +197,116 @@ class LoggingServiceTest {
         );
         // If we get here, the test passed because no exception was propagated
     }
+
+    @Test
+    void logInfo_shouldNotPublishOnTheCallingThread() {
+        // Act
+        loggingService.logInfo("Buffered message", new HashMap<>());
+
+        // Assert
+        verifyNoInteractions(rabbitTemplate);
+        assertEquals(1.0, meterRegistry.get("logging.shipper.buffer.size").gauge().value());
+    }
+
+    @Test
+    void flush_shouldPublishBufferedEntriesInBatchesOverOneChannel() {
+        // Arrange
+        for (int i = 0; i < 12; i++) {
+            loggingService.logInfo("Message " + i, null);
+        }
+
+        // Act
+        loggingService.flush();
+
+        // Assert - batches of 5
+        verify(rabbitTemplate, times(3)).invoke(any());
+        verify(rabbitTemplate, times(12)).convertAndSend(eq(LOGGING_EXCHANGE), eq("info.test-service"), anyString());
+        assertEquals(12.0, meterRegistry.counter("logging.shipper.published").count());
+    }
+
+    @Test
+    void logInfo_shouldDropEntriesWhenBufferIsFull() {
+        // Act
+        for (int i = 0; i < 20; i++) {
+            loggingService.logInfo("Message " + i, null);
+        }
+        loggingService.flush();
+
+        // Assert
+        verify(rabbitTemplate, times(16)).convertAndSend(eq(LOGGING_EXCHANGE), anyString(), anyString());
+        assertEquals(4.0, meterRegistry.counter("logging.shipper.dropped", "reason", "overflow").count());
+    }
+
+    @Test
+    void logInfo_shouldSampleInfoEntriesWhenBufferIsHalfFull() {
+        // Arrange
+        loggingService = createLoggingService(16, LoggingService.OverflowPolicy.SAMPLE);
+        for (int i = 0; i < 8; i++) {
+            loggingService.logInfo("Message " + i, null);
+        }
+
+        // Act - the buffer is half full from here on
+        for (int i = 0; i < 20; i++) {
+            loggingService.logInfo("Sampled " + i, null);
+        }
+        loggingService.logError("Never sampled", null, null);
+        loggingService.flush();
+
+        // Assert - 8 + 2 sampled INFO entries + the ERROR entry
+        verify(rabbitTemplate, times(11)).convertAndSend(eq(LOGGING_EXCHANGE), anyString(), anyString());
+        assertEquals(18.0, meterRegistry.counter("logging.shipper.dropped", "reason", "sampled").count());
+    }
+
+    @Test
+    void logInfo_shouldWaitForRoomUnderBlockPolicy() {
+        // Arrange
+        loggingService = createLoggingService(2, LoggingService.OverflowPolicy.BLOCK);
+        loggingService.start();
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            loggingService.logInfo("Message " + i, null);
+        }
+        loggingService.stop();
+
+        // Assert
+        verify(rabbitTemplate, times(50)).convertAndSend(eq(LOGGING_EXCHANGE), anyString(), anyString());
+        assertEquals(0.0, meterRegistry.counter("logging.shipper.dropped", "reason", "overflow").count());
+    }
+
+    @Test
+    void logHttpExchange_shouldKeepOrDropRequestAndResponseTogether() {
+        // Arrange - no ordinary requests are kept
+        loggingService = createLoggingService(16, LoggingService.OverflowPolicy.DROP,
+                new LogSampler(meterRegistry, 0.0, 1.0, "", 0, 100, Duration.ofSeconds(1)));
+
+        // Act
+        loggingService.logHttpExchange("/api/orders", 200, 5, new HashMap<>(), new HashMap<>());
+        loggingService.logHttpExchange("/api/orders", 503, 5, new HashMap<>(), new HashMap<>());
+        loggingService.logInfo("Sampled out", null);
+        loggingService.logWarning("Kept", null);
+        loggingService.flush();
+
+        // Assert - the failed request and the warning
+        verify(rabbitTemplate, times(3)).convertAndSend(eq(LOGGING_EXCHANGE), anyString(), anyString());
+        verify(rabbitTemplate).convertAndSend(eq(LOGGING_EXCHANGE), anyString(), contains("\"message\":\"HTTP Request\""));
+        verify(rabbitTemplate).convertAndSend(eq(LOGGING_EXCHANGE), anyString(), contains("\"message\":\"HTTP Response\""));
+        assertEquals(3.0, meterRegistry.counter("logging.sampling.dropped", "reason", "sampled").count());
+    }
+
+    // Helper methods
+    private LoggingService createLoggingService(int capacity, LoggingService.OverflowPolicy overflowPolicy) {
+        return createLoggingService(capacity, overflowPolicy, new LogSampler(meterRegistry, 1.0, 1.0, "", 0, 100,
+                Duration.ofSeconds(1)));
+    }
+
+    private LoggingService createLoggingService(int capacity, LoggingService.OverflowPolicy overflowPolicy,
+                                                LogSampler logSampler) {
+        LoggingService service = new LoggingService(rabbitTemplate, objectMapper, meterRegistry, logSampler,
+                APPLICATION_NAME, capacity, 5, Duration.ofMillis(1), overflowPolicy, Duration.ofSeconds(1));
+
+        // Set properties via reflection since we're not loading the application context
+        ReflectionTestUtils.setField(service, "loggingExchange", LOGGING_EXCHANGE);
+        return service;
+    }
 }
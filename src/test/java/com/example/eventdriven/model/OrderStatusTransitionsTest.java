@@ -0,0 +1,82 @@
+package com.example.eventdriven.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatusTransitionsTest {
+
+    private final OrderStatusTransitions transitions = OrderStatusTransitions.DEFAULT;
+
+    @Test
+    void default_shouldAllowOnlyTheStandardWorkflow() {
+        // Assert
+        assertEquals(Map.of(
+                OrderStatus.CREATED, EnumSet.of(OrderStatus.PAID, OrderStatus.CANCELLED),
+                OrderStatus.PAID, EnumSet.of(OrderStatus.PROCESSING, OrderStatus.CANCELLED),
+                OrderStatus.PROCESSING, EnumSet.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED),
+                OrderStatus.SHIPPED, EnumSet.of(OrderStatus.DELIVERED),
+                OrderStatus.DELIVERED, EnumSet.of(OrderStatus.REFUNDED)), transitions.toMap());
+
+        for (OrderStatus from : OrderStatus.values()) {
+            for (OrderStatus to : OrderStatus.values()) {
+                assertEquals(transitions.nextStatuses(from).contains(to), transitions.allows(from, to),
+                        from + " -> " + to);
+            }
+        }
+    }
+
+    @Test
+    void default_shouldAllowCancellingOnlyBeforeShipping() {
+        // Assert
+        assertTrue(transitions.canCancel(OrderStatus.CREATED));
+        assertTrue(transitions.canCancel(OrderStatus.PAID));
+        assertTrue(transitions.canCancel(OrderStatus.PROCESSING));
+        assertFalse(transitions.canCancel(OrderStatus.SHIPPED));
+        assertFalse(transitions.canCancel(OrderStatus.DELIVERED));
+        assertFalse(transitions.canCancel(OrderStatus.CANCELLED));
+        assertTrue(transitions.isFinal(OrderStatus.CANCELLED));
+        assertTrue(transitions.isFinal(OrderStatus.REFUNDED));
+        assertFalse(transitions.isFinal(OrderStatus.SHIPPED));
+    }
+
+    @Test
+    void of_shouldRejectUnreachableStatuses() {
+        // Arrange - nothing leads to REFUNDED
+        Map<OrderStatus, Set<OrderStatus>> workflow = Map.of(
+                OrderStatus.CREATED, EnumSet.of(OrderStatus.PAID, OrderStatus.CANCELLED),
+                OrderStatus.PAID, EnumSet.of(OrderStatus.PROCESSING),
+                OrderStatus.PROCESSING, EnumSet.of(OrderStatus.SHIPPED),
+                OrderStatus.SHIPPED, EnumSet.of(OrderStatus.DELIVERED),
+                // Only reachable from a status that is itself unreachable
+                OrderStatus.REFUNDED, EnumSet.of(OrderStatus.CANCELLED));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> OrderStatusTransitions.of(workflow));
+        assertTrue(exception.getMessage().contains("[REFUNDED]"), exception.getMessage());
+    }
+
+    @Test
+    void of_shouldRejectSelfTransitions() {
+        // Arrange
+        Map<OrderStatus, Set<OrderStatus>> workflow = Map.of(
+                OrderStatus.CREATED, EnumSet.allOf(OrderStatus.class));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> OrderStatusTransitions.of(workflow));
+    }
+
+    @Test
+    void nextStatuses_shouldReturnIndependentCopies() {
+        // Act
+        transitions.nextStatuses(OrderStatus.CREATED).clear();
+
+        // Assert
+        assertTrue(transitions.allows(OrderStatus.CREATED, OrderStatus.PAID));
+    }
+}
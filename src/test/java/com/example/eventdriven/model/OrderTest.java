@@ -0,0 +1,135 @@
+package com.example.eventdriven.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTest {
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        order = new Order("customer-123", "123 Test Street, Test City");
+    }
+
+    @Test
+    void newOrder_shouldHaveZeroTotalWithTwoDecimals() {
+        // Assert
+        assertEquals(new BigDecimal("0.00"), order.getTotalAmount());
+    }
+
+    @Test
+    void addItem_shouldAddLineTotal() {
+        // Act
+        order.addItem(item(2, "10.50"));
+        order.addItem(item(3, "0.99"));
+
+        // Assert
+        assertEquals(new BigDecimal("23.97"), order.getTotalAmount());
+    }
+
+    @Test
+    void addItem_shouldRoundPricesToCents() {
+        // Act
+        order.addItem(item(1, "10.005"));
+        order.addItem(item(1, "5"));
+
+        // Assert
+        assertEquals(new BigDecimal("15.01"), order.getTotalAmount());
+    }
+
+    @Test
+    void removeItem_shouldSubtractLineTotalOnlyForContainedItems() {
+        // Arrange
+        OrderItem kept = item(1, "5.00");
+        OrderItem removed = item(4, "2.25");
+        order.addItem(kept);
+        order.addItem(removed);
+
+        // Act
+        order.removeItem(removed);
+        order.removeItem(removed);
+        order.removeItem(item(1, "100.00"));
+
+        // Assert
+        assertEquals(new BigDecimal("5.00"), order.getTotalAmount());
+        assertNull(removed.getOrder());
+        assertEquals(List.of(kept), order.getItems());
+    }
+
+    @Test
+    void itemChanges_shouldUpdateTotalOfOwningOrder() {
+        // Arrange
+        OrderItem item = item(2, "10.00");
+        order.addItem(item);
+
+        // Act
+        item.setQuantity(3);
+        item.setPrice(new BigDecimal("7.50"));
+
+        // Assert
+        assertEquals(new BigDecimal("22.50"), order.getTotalAmount());
+    }
+
+    @Test
+    void itemChanges_shouldNotAffectOrderAfterRemoval() {
+        // Arrange
+        OrderItem item = item(2, "10.00");
+        order.addItem(item);
+        order.removeItem(item);
+
+        // Act
+        item.setQuantity(5);
+
+        // Assert
+        assertEquals(new BigDecimal("0.00"), order.getTotalAmount());
+    }
+
+    @Test
+    void setItems_shouldReplaceTotal() {
+        // Arrange
+        order.addItem(item(1, "99.99"));
+        List<OrderItem> items = new ArrayList<>(List.of(item(1, "1.00"), item(2, "2.00")));
+
+        // Act
+        order.setItems(items);
+
+        // Assert
+        assertEquals(new BigDecimal("5.00"), order.getTotalAmount());
+        items.forEach(item -> assertSame(order, item.getOrder()));
+    }
+
+    @Test
+    void addItem_shouldKeepExactTotalForManyItems() {
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            order.addItem(item(3, "0.10"));
+        }
+
+        // Assert
+        assertEquals(new BigDecimal("3000.00"), order.getTotalAmount());
+    }
+
+    @Test
+    void minorUnitsConverter_shouldRoundTripAmounts() {
+        // Arrange
+        MinorUnitsConverter converter = new MinorUnitsConverter();
+
+        // Act & Assert
+        assertEquals(new BigDecimal("12345678.90"), converter.convertToDatabaseColumn(1_234_567_890L));
+        assertEquals(1_234_567_890L, converter.convertToEntityAttribute(new BigDecimal("12345678.9")));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    // Helper methods
+    private OrderItem item(int quantity, String price) {
+        return new OrderItem("product-1", "Product 1", quantity, new BigDecimal(price));
+    }
+}
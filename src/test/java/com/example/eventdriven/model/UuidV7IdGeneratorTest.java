@@ -0,0 +1,88 @@
+package com.example.eventdriven.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7IdGeneratorTest {
+
+    private final UuidV7IdGenerator generator = new UuidV7IdGenerator();
+
+    @Test
+    void generate_shouldProduceVersion7RfcVariantUuids() {
+        // Act
+        UUID uuid = generator.generate();
+
+        // Assert
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void generate_shouldEmbedCurrentTimestamp() {
+        // Arrange
+        long before = System.currentTimeMillis();
+
+        // Act
+        UUID uuid = generator.generate();
+
+        // Assert
+        long timestamp = UuidV7IdGenerator.timestampOf(uuid);
+        assertTrue(timestamp >= before);
+        assertTrue(timestamp <= System.currentTimeMillis());
+    }
+
+    @Test
+    void generate_shouldBeStrictlyIncreasingWithinTheSameMillisecond() {
+        // Act
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            uuids.add(generator.generate());
+        }
+
+        // Assert - both the binary and the string form sort in generation order
+        for (int i = 1; i < uuids.size(); i++) {
+            UUID previous = uuids.get(i - 1);
+            UUID current = uuids.get(i);
+            assertTrue(Long.compareUnsigned(previous.getMostSignificantBits(), current.getMostSignificantBits()) < 0);
+            assertTrue(previous.toString().compareTo(current.toString()) < 0);
+        }
+    }
+
+    @Test
+    void generate_shouldBeUniqueAcrossThreads() throws InterruptedException {
+        // Arrange
+        Set<UUID> uuids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    uuids.add(generator.generate());
+                }
+            }));
+        }
+
+        // Act
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assert
+        assertEquals(20_000, uuids.size());
+    }
+
+    @Test
+    void entityIds_shouldValidateCanonicalUuidStrings() {
+        assertTrue(EntityIds.isValid(EntityIds.nextId()));
+        assertFalse(EntityIds.isValid("order-123"));
+        assertFalse(EntityIds.isValid("1-1-1-1-1"));
+        assertFalse(EntityIds.isValid(null));
+    }
+}
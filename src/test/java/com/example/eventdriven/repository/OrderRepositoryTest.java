@@ -0,0 +1,134 @@
+package com.example.eventdriven.repository;
+
+import com.example.eventdriven.model.EntityIds;
+import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderItem;
+import com.example.eventdriven.model.OrderStatus;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void updateStatus_shouldOnlyUpdateOrderInExpectedStatus() {
+        // Arrange
+        String orderId = saveOrder();
+
+        // Act
+        int fromWrongStatus = orderRepository.updateStatus(orderId, OrderStatus.PAID, OrderStatus.SHIPPED,
+                LocalDateTime.now());
+        int fromExpectedStatus = orderRepository.updateStatus(orderId, OrderStatus.CREATED, OrderStatus.PAID,
+                LocalDateTime.now());
+
+        // Assert
+        assertEquals(0, fromWrongStatus);
+        assertEquals(1, fromExpectedStatus);
+        assertEquals(Optional.of(OrderStatus.PAID), orderRepository.findStatusById(orderId));
+    }
+
+    @Test
+    void updateStatus_shouldBumpVersionOfOrderReadInTheSameTransaction() {
+        // Arrange
+        String orderId = saveOrder();
+        Order before = orderRepository.findWithItemsById(orderId).orElseThrow();
+        long version = before.getVersion();
+
+        // Act
+        orderRepository.updateStatus(orderId, OrderStatus.CREATED, OrderStatus.PAID, LocalDateTime.now());
+        Order after = orderRepository.findWithItemsById(orderId).orElseThrow();
+
+        // Assert
+        assertEquals(OrderStatus.PAID, after.getStatus());
+        assertEquals(version + 1, after.getVersion());
+        assertEquals(1, after.getItems().size());
+    }
+
+    @Test
+    void findStatusById_shouldBeEmptyForUnknownOrder() {
+        // Act & Assert
+        assertTrue(orderRepository.findStatusById(EntityIds.nextId()).isEmpty());
+    }
+
+    @Test
+    void findPageAfter_shouldReturnEveryOrderOnceInCreationOrder() {
+        // Arrange
+        List<String> orderIds = saveOrders("customer-123", 7, 3);
+        saveOrders("customer-456", 2, 1);
+        entityManager.clear();
+
+        // Act
+        List<String> pagedIds = new ArrayList<>();
+        List<Order> page = orderRepository.findByCustomerIdOrderByCreatedAtAscIdAsc("customer-123", Limit.of(3));
+        while (!page.isEmpty()) {
+            page.forEach(order -> pagedIds.add(order.getId()));
+            Order last = page.get(page.size() - 1);
+            page = orderRepository.findPageAfter("customer-123", last.getCreatedAt(), last.getId(), Limit.of(3));
+        }
+
+        // Assert
+        assertEquals(orderIds, pagedIds);
+    }
+
+    @Test
+    void streamByCustomerId_shouldReturnEveryOrderWithAllItems() {
+        // Arrange
+        List<String> orderIds = saveOrders("customer-123", 7, 3);
+        entityManager.clear();
+
+        // Act
+        List<String> streamedIds = new ArrayList<>();
+        List<Integer> itemCounts = new ArrayList<>();
+        try (Stream<Order> orders = orderRepository.streamByCustomerId("customer-123")) {
+            orders.forEach(order -> {
+                streamedIds.add(order.getId());
+                itemCounts.add(order.getItems().size());
+                entityManager.detach(order);
+            });
+        }
+
+        // Assert
+        assertEquals(orderIds, streamedIds);
+        assertEquals(List.of(3, 3, 3, 3, 3, 3, 3), itemCounts);
+    }
+
+    // Helper methods
+    private String saveOrder() {
+        Order order = new Order("customer-123", "123 Test Street, Test City");
+        order.addItem(new OrderItem("product-1", "Test Product", 2, new BigDecimal("19.99")));
+        return orderRepository.saveAndFlush(order).getId();
+    }
+
+    private List<String> saveOrders(String customerId, int count, int items) {
+        List<String> orderIds = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            Order order = new Order(customerId, "123 Test Street, Test City");
+            for (int i = 0; i < items; i++) {
+                order.addItem(new OrderItem("product-" + i, "Test Product", 2, new BigDecimal("1.50")));
+            }
+            orderIds.add(orderRepository.save(order).getId());
+        }
+        orderRepository.flush();
+        return orderIds;
+    }
+}
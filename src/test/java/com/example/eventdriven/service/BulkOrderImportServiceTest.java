@@ -0,0 +1,151 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkOrderImportServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BulkOrderImportService bulkOrderImportService;
+
+    @BeforeEach
+    void setUp() {
+        bulkOrderImportService = new BulkOrderImportService(
+                orderService,
+                entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                objectMapper,
+                2
+        );
+    }
+
+    @Test
+    void importOrders_shouldStoreValidLinesInChunksAndReportEachLine() throws IOException {
+        // Arrange
+        when(orderService.createOrders(anyList())).thenAnswer(invocation -> toOrders(invocation.getArgument(0)));
+        String body = validLine("customer-1") + "\n"
+                + validLine("customer-2") + "\n"
+                + "\n"
+                + validLine("customer-3") + "\n";
+
+        // Act
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BulkOrderImportService.ImportSummary summary = bulkOrderImportService.importOrders(toStream(body), output);
+
+        // Assert
+        assertEquals(3, summary.getCreated());
+        verify(orderService, times(2)).createOrders(anyList());
+        verify(entityManager, times(2)).clear();
+
+        List<JsonNode> results = readResults(output);
+        assertEquals(3, results.size());
+        assertEquals(List.of(1, 2, 4), results.stream().map(r -> r.get("line").asInt()).toList());
+        assertTrue(results.stream().allMatch(r -> r.get("status").asText().equals("CREATED")));
+        assertTrue(results.stream().allMatch(r -> r.hasNonNull("orderId")));
+    }
+
+    @Test
+    void importOrders_shouldRejectMalformedAndInvalidLinesInPlace() throws IOException {
+        // Arrange
+        when(orderService.createOrders(anyList())).thenAnswer(invocation -> toOrders(invocation.getArgument(0)));
+        String body = "{not json\n"
+                + validLine("customer-1") + "\n"
+                + "{\"customerId\":\"\",\"shippingAddress\":\"Somewhere\",\"items\":[]}\n";
+
+        // Act
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BulkOrderImportService.ImportSummary summary = bulkOrderImportService.importOrders(toStream(body), output);
+
+        // Assert
+        assertEquals(1, summary.getCreated());
+        assertEquals(2, summary.getInvalid());
+
+        List<JsonNode> results = readResults(output);
+        assertEquals("INVALID", results.get(0).get("status").asText());
+        assertTrue(results.get(0).get("message").asText().startsWith("Malformed JSON"));
+        assertEquals("CREATED", results.get(1).get("status").asText());
+        assertEquals("INVALID", results.get(2).get("status").asText());
+        assertEquals("Customer ID is required", results.get(2).get("errors").get("customerId").asText());
+        assertEquals("Order items cannot be empty", results.get(2).get("errors").get("items").asText());
+    }
+
+    @Test
+    void importOrders_shouldReportFailedChunkAndContinue() throws IOException {
+        // Arrange
+        when(orderService.createOrders(anyList()))
+                .thenThrow(new IllegalStateException("Database unavailable"))
+                .thenAnswer(invocation -> toOrders(invocation.getArgument(0)));
+        String body = validLine("customer-1") + "\n"
+                + validLine("customer-2") + "\n"
+                + validLine("customer-3") + "\n";
+
+        // Act
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BulkOrderImportService.ImportSummary summary = bulkOrderImportService.importOrders(toStream(body), output);
+
+        // Assert
+        assertEquals(2, summary.getFailed());
+        assertEquals(1, summary.getCreated());
+
+        List<JsonNode> results = readResults(output);
+        assertEquals("FAILED", results.get(0).get("status").asText());
+        assertEquals("Database unavailable", results.get(1).get("message").asText());
+        assertEquals("CREATED", results.get(2).get("status").asText());
+    }
+
+    // Helper methods
+    private String validLine(String customerId) throws IOException {
+        return objectMapper.writeValueAsString(new CreateOrderCommand(
+                customerId,
+                "123 Test Street, Test City",
+                List.of(new CreateOrderCommand.OrderItemDto("product-1", "Product 1", 2, new BigDecimal("10.00")))
+        ));
+    }
+
+    private List<Order> toOrders(List<CreateOrderCommand> commands) {
+        return commands.stream()
+                .map(command -> new Order(command.getCustomerId(), command.getShippingAddress()))
+                .toList();
+    }
+
+    private ByteArrayInputStream toStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<JsonNode> readResults(ByteArrayOutputStream output) throws IOException {
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+}
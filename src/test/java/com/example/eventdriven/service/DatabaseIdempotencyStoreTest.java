@@ -0,0 +1,129 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.IdempotencyRecord;
+import com.example.eventdriven.repository.IdempotencyRecordRepository;
+import com.example.eventdriven.service.IdempotencyService.Response;
+import com.example.eventdriven.service.IdempotencyStore.Entry;
+import com.example.eventdriven.service.IdempotencyStore.Reservation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // The store runs its own transactions
+class DatabaseIdempotencyStoreTest {
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void complete_shouldStoreResponseInTheTransactionOfTheRequest() {
+        // Arrange
+        DatabaseIdempotencyStore store = createStore(Duration.ofHours(1));
+        Reservation reservation = createReservation("fingerprint-1", 0);
+        store.reserve(reservation);
+
+        // Act - the request writes its own row and then fails
+        assertThrows(IllegalStateException.class, () -> store.complete(reservation, () -> {
+            repository.save(new IdempotencyRecord("written-by-request", "fingerprint-2", LocalDateTime.now(),
+                    LocalDateTime.now().plusHours(1)));
+            throw new IllegalStateException("Order rejected");
+        }));
+
+        // Assert
+        assertFalse(repository.existsById("written-by-request"));
+        assertEquals(0, repository.findById("key-1").orElseThrow().getResponseStatus());
+    }
+
+    @Test
+    void complete_shouldStoreResponse() {
+        // Arrange
+        DatabaseIdempotencyStore store = createStore(Duration.ofHours(1));
+        Reservation reservation = createReservation("fingerprint-1", 0);
+        store.reserve(reservation);
+
+        // Act
+        store.complete(reservation, () -> new Response(201, "{\"id\":\"order-123\"}"));
+        Entry entry = store.reserve(createReservation("fingerprint-1", 1)).orElseThrow();
+
+        // Assert
+        assertTrue(entry.isCompleted());
+        assertEquals("{\"id\":\"order-123\"}", entry.body());
+    }
+
+    @Test
+    void reserve_shouldRefuseKeyOfUnfinishedRequestUntilTimeToLive() {
+        // Arrange
+        DatabaseIdempotencyStore store = createStore(Duration.ofHours(1));
+        store.reserve(createReservation("fingerprint-1", 0));
+
+        // Act
+        Entry entry = store.reserve(createReservation("fingerprint-1", 60)).orElseThrow();
+
+        // Assert
+        assertFalse(entry.isCompleted());
+    }
+
+    @Test
+    void release_shouldKeepKeyTakenOverByAnotherRequest() {
+        // Arrange
+        DatabaseIdempotencyStore store = createStore(Duration.ZERO);
+        Reservation abandoned = createReservation("fingerprint-1", -2);
+        store.reserve(abandoned);
+        assertTrue(store.reserve(createReservation("fingerprint-2", -1)).isEmpty());
+
+        // Act
+        store.release(abandoned);
+
+        // Assert
+        assertEquals("fingerprint-2", repository.findById("key-1").orElseThrow().getFingerprint());
+    }
+
+    @Test
+    void complete_shouldRollBackRequestWhoseReservationWasTakenOver() {
+        // Arrange
+        DatabaseIdempotencyStore store = createStore(Duration.ZERO);
+        Reservation abandoned = createReservation("fingerprint-1", -2);
+        store.reserve(abandoned);
+        store.reserve(createReservation("fingerprint-2", -1));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> store.complete(abandoned, () -> {
+            repository.save(new IdempotencyRecord("written-by-request", "fingerprint-1", LocalDateTime.now(),
+                    LocalDateTime.now().plusHours(1)));
+            return new Response(201, "{}");
+        }));
+        assertFalse(repository.existsById("written-by-request"));
+        assertEquals(0, repository.findById("key-1").orElseThrow().getResponseStatus());
+    }
+
+    // Helper methods
+    private DatabaseIdempotencyStore createStore(Duration timeToLive) {
+        return new DatabaseIdempotencyStore(repository, transactionManager, timeToLive);
+    }
+
+    private Reservation createReservation(String fingerprint, int secondsLater) {
+        return new Reservation("key-1", fingerprint,
+                LocalDateTime.now().plusSeconds(secondsLater).truncatedTo(ChronoUnit.MILLIS));
+    }
+}
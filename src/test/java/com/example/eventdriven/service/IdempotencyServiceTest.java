@@ -0,0 +1,109 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.example.eventdriven.service.IdempotencyService.IdempotencyKeyReusedException;
+import com.example.eventdriven.service.IdempotencyService.RequestInProgressException;
+import com.example.eventdriven.service.IdempotencyService.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyService idempotencyService;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(100, Duration.ofHours(1));
+        idempotencyService = new IdempotencyService(store, new ObjectMapper(), meterRegistry);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void execute_shouldRunOnceAndReplayStoredResponse() {
+        // Act
+        Response first = idempotencyService.execute("key-1", createCommand("customer-123"), this::createOrder);
+        Response second = idempotencyService.execute("key-1", createCommand("customer-123"), this::createOrder);
+
+        // Assert
+        assertEquals(1, executions.get());
+        assertEquals(new Response(201, "{\"id\":\"order-1\"}", false), first);
+        assertEquals(new Response(201, "{\"id\":\"order-1\"}", true), second);
+        assertEquals(1.0, meterRegistry.counter("idempotency.requests", "outcome", "executed").count());
+        assertEquals(1.0, meterRegistry.counter("idempotency.requests", "outcome", "replayed").count());
+        assertEquals(1.0, meterRegistry.get("idempotency.store.size").gauge().value());
+    }
+
+    @Test
+    void execute_shouldRejectKeyReusedForDifferentRequest() {
+        // Arrange
+        idempotencyService.execute("key-1", createCommand("customer-123"), this::createOrder);
+
+        // Act & Assert
+        assertThrows(IdempotencyKeyReusedException.class, () ->
+                idempotencyService.execute("key-1", createCommand("customer-456"), this::createOrder));
+        assertEquals(1, executions.get());
+        assertEquals(1.0, meterRegistry.counter("idempotency.requests", "outcome", "key-reused").count());
+    }
+
+    @Test
+    void execute_shouldRejectRetryWhileRequestInProgress() {
+        // Arrange
+        CreateOrderCommand command = createCommand("customer-123");
+
+        // Act - the retry arrives while the first request is still running
+        Response first = idempotencyService.execute("key-1", command, () -> {
+            assertThrows(RequestInProgressException.class, () ->
+                    idempotencyService.execute("key-1", command, this::createOrder));
+            return createOrder();
+        });
+
+        // Assert
+        assertFalse(first.replayed());
+        assertEquals(1, executions.get());
+        assertEquals(1.0, meterRegistry.counter("idempotency.requests", "outcome", "in-progress").count());
+    }
+
+    @Test
+    void execute_shouldReleaseKeyWhenRequestFails() {
+        // Arrange
+        CreateOrderCommand command = createCommand("customer-123");
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("key-1", command, () -> {
+            throw new IllegalStateException("Database unavailable");
+        }));
+        Response retried = idempotencyService.execute("key-1", command, this::createOrder);
+
+        // Assert
+        assertFalse(retried.replayed());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_shouldRejectBlankKey() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+                idempotencyService.execute(" ", createCommand("customer-123"), this::createOrder));
+        assertEquals(0, executions.get());
+    }
+
+    // Helper methods
+    private Response createOrder() {
+        return new Response(201, "{\"id\":\"order-" + executions.incrementAndGet() + "\"}");
+    }
+
+    private CreateOrderCommand createCommand(String customerId) {
+        return new CreateOrderCommand(customerId, "123 Test Street, Test City", new ArrayList<>());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.service.IdempotencyService.Response;
+import com.example.eventdriven.service.IdempotencyStore.Entry;
+import com.example.eventdriven.service.IdempotencyStore.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryIdempotencyStoreTest {
+
+    private InMemoryIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryIdempotencyStore(100, Duration.ofHours(1));
+    }
+
+    @Test
+    void reserve_shouldReserveNewKeyOnce() {
+        // Act
+        Optional<Entry> first = store.reserve(createReservation("fingerprint-1", 0));
+        Optional<Entry> second = store.reserve(createReservation("fingerprint-2", 1));
+
+        // Assert
+        assertTrue(first.isEmpty());
+        assertTrue(second.isPresent());
+        assertEquals("fingerprint-1", second.get().fingerprint());
+        assertFalse(second.get().isCompleted());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void complete_shouldStoreResponse() {
+        // Arrange
+        Reservation reservation = createReservation("fingerprint-1", 0);
+        store.reserve(reservation);
+
+        // Act
+        Response response = store.complete(reservation, () -> new Response(201, "{\"id\":\"order-123\"}"));
+        Entry entry = store.reserve(createReservation("fingerprint-1", 1)).orElseThrow();
+
+        // Assert
+        assertEquals(201, response.status());
+        assertTrue(entry.isCompleted());
+        assertEquals(201, entry.status());
+        assertEquals("{\"id\":\"order-123\"}", entry.body());
+    }
+
+    @Test
+    void release_shouldFreeKey() {
+        // Arrange
+        Reservation reservation = createReservation("fingerprint-1", 0);
+        store.reserve(reservation);
+
+        // Act
+        store.release(reservation);
+
+        // Assert
+        assertTrue(store.reserve(createReservation("fingerprint-2", 1)).isEmpty());
+    }
+
+    @Test
+    void release_shouldKeepKeyReservedByAnotherRequest() {
+        // Arrange
+        store.reserve(createReservation("fingerprint-1", 1));
+
+        // Act - an earlier reservation of the key is released late
+        store.release(createReservation("fingerprint-1", 0));
+
+        // Assert
+        assertTrue(store.reserve(createReservation("fingerprint-2", 2)).isPresent());
+    }
+
+    @Test
+    void release_shouldKeepCompletedKey() {
+        // Arrange
+        Reservation reservation = createReservation("fingerprint-1", 0);
+        store.reserve(reservation);
+        store.complete(reservation, () -> new Response(201, "{}"));
+
+        // Act
+        store.release(reservation);
+
+        // Assert
+        assertTrue(store.reserve(createReservation("fingerprint-1", 1)).orElseThrow().isCompleted());
+    }
+
+    @Test
+    void reserve_shouldReuseKeyOfUnfinishedRequestOnlyAfterTimeToLive() {
+        // Arrange
+        store = new InMemoryIdempotencyStore(100, Duration.ZERO);
+        store.reserve(createReservation("fingerprint-1", 0));
+
+        // Act
+        Optional<Entry> result = store.reserve(createReservation("fingerprint-2", 1));
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void reserve_shouldReuseKeyAfterResponseExpired() {
+        // Arrange
+        store = new InMemoryIdempotencyStore(100, Duration.ZERO);
+        Reservation reservation = createReservation("fingerprint-1", 0);
+        store.reserve(reservation);
+        store.complete(reservation, () -> new Response(201, "{}"));
+
+        // Act
+        Optional<Entry> result = store.reserve(createReservation("fingerprint-2", 1));
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+
+    // Helper methods
+    private Reservation createReservation(String fingerprint, int secondsLater) {
+        return new Reservation("key-1", fingerprint, LocalDateTime.now().plusSeconds(secondsLater));
+    }
+}
@@ -1,23 +1,49 @@
 package com.example.eventdriven.service;
 
+import com.example.eventdriven.config.RabbitMQConfig;
+import com.example.eventdriven.config.SmileMessageConverter;
 import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.event.EventMessage;
 import com.example.eventdriven.model.event.OrderCreatedEvent;
 import com.example.eventdriven.model.event.OrderStatusChangedEvent;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class MessageServiceTest {
@@ -25,26 +51,36 @@ class MessageServiceTest {
     private static final String COMMAND_EXCHANGE = "service.command";
     private static final String EVENT_EXCHANGE = "service.event";
     private static final String BROADCAST_EXCHANGE = "service.broadcast";
+    private static final String INVALIDATION_EXCHANGE = "service.invalidation";
     private static final String ORDER_COMMAND_ROUTING_KEY = "orders.command";
     private static final String ORDER_EVENT_ROUTING_KEY = "orders.event";
     private static final String ORDER_BROADCAST_ROUTING_KEY = "orders.broadcast";
+    private static final String APPLICATION_NAME = "order-service";
 
     @Mock
     private RabbitTemplate rabbitTemplate;
 
+    private SimpleMeterRegistry meterRegistry;
     private MessageService messageService;
 
     @BeforeEach
     void setUp() {
-        messageService = new MessageService(rabbitTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        // A window of one unconfirmed message and a short send timeout keep the window tests fast
+        messageService = new MessageService(rabbitTemplate, meterRegistry, 1, Duration.ofSeconds(10), Duration.ofMillis(50));
 
         // Set properties via reflection since we're not loading the application context
         ReflectionTestUtils.setField(messageService, "commandExchange", COMMAND_EXCHANGE);
         ReflectionTestUtils.setField(messageService, "eventExchange", EVENT_EXCHANGE);
         ReflectionTestUtils.setField(messageService, "broadcastExchange", BROADCAST_EXCHANGE);
+        ReflectionTestUtils.setField(messageService, "invalidationExchange", INVALIDATION_EXCHANGE);
         ReflectionTestUtils.setField(messageService, "orderCommandRoutingKey", ORDER_COMMAND_ROUTING_KEY);
         ReflectionTestUtils.setField(messageService, "orderEventRoutingKey", ORDER_EVENT_ROUTING_KEY);
         ReflectionTestUtils.setField(messageService, "orderBroadcastRoutingKey", ORDER_BROADCAST_ROUTING_KEY);
+        ReflectionTestUtils.setField(messageService, "applicationName", APPLICATION_NAME);
+        ReflectionTestUtils.setField(messageService, "commandContentType", MessageProperties.CONTENT_TYPE_JSON);
+        ReflectionTestUtils.setField(messageService, "eventContentType", MessageProperties.CONTENT_TYPE_JSON);
+        ReflectionTestUtils.setField(messageService, "broadcastContentType", MessageProperties.CONTENT_TYPE_JSON);
     }
 
     @Test
@@ -57,7 +93,19 @@ class MessageServiceTest {
         messageService.sendCommand(command, routingKey);
 
         // Assert
-        verify(rabbitTemplate).convertAndSend(COMMAND_EXCHANGE, routingKey, command);
+        verify(rabbitTemplate).convertAndSend(eq(COMMAND_EXCHANGE), eq(routingKey), eq(command), any(MessagePostProcessor.class));
+        assertEquals(1L, meterRegistry.timer("messaging.publish.duration", "operation", "command", "outcome", "success").count());
+    }
+
+    @Test
+    void sendEvent_shouldRecordFailedPublishes() {
+        // Arrange
+        doThrow(new AmqpConnectException(new IOException("Connection refused")))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class), any(MessagePostProcessor.class));
+
+        // Act & Assert
+        assertThrows(AmqpConnectException.class, () -> messageService.sendEvent(new Object(), "test.routing.key"));
+        assertEquals(1L, meterRegistry.timer("messaging.publish.duration", "operation", "event", "outcome", "failure").count());
     }
 
     @Test
@@ -70,7 +118,24 @@ class MessageServiceTest {
         messageService.sendEvent(event, routingKey);
 
         // Assert
-        verify(rabbitTemplate).convertAndSend(EVENT_EXCHANGE, routingKey, event);
+        verify(rabbitTemplate).convertAndSend(eq(EVENT_EXCHANGE), eq(routingKey), eq(event), any(MessagePostProcessor.class));
+    }
+
+    @Test
+    void sendInvalidation_shouldSendToInvalidationExchangeWithPublishTimeAndExpiration() {
+        // Arrange
+        long before = System.currentTimeMillis();
+
+        // Act
+        messageService.sendInvalidation(new Object(), Duration.ofSeconds(30));
+
+        // Assert
+        ArgumentCaptor<MessagePostProcessor> captor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate).convertAndSend(eq(INVALIDATION_EXCHANGE), eq(""), any(Object.class), captor.capture());
+        Message message = captor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        assertEquals("30000", message.getMessageProperties().getExpiration());
+        long publishedAt = message.getMessageProperties().getHeader(MessageService.PUBLISHED_AT_HEADER);
+        assertTrue(publishedAt >= before && publishedAt <= System.currentTimeMillis());
     }
 
     @Test
@@ -82,7 +147,7 @@ class MessageServiceTest {
         messageService.broadcast(message);
 
         // Assert
-        verify(rabbitTemplate).convertAndSend(BROADCAST_EXCHANGE, "", message);
+        verify(rabbitTemplate).convertAndSend(eq(BROADCAST_EXCHANGE), eq(""), eq(message), any(MessagePostProcessor.class));
     }
 
     @Test
@@ -94,7 +159,24 @@ class MessageServiceTest {
         messageService.sendOrderCommand(command);
 
         // Assert
-        verify(rabbitTemplate).convertAndSend(COMMAND_EXCHANGE, ORDER_COMMAND_ROUTING_KEY, command);
+        verify(rabbitTemplate).convertAndSend(eq(COMMAND_EXCHANGE), eq(ORDER_COMMAND_ROUTING_KEY), eq(command), any(MessagePostProcessor.class));
+    }
+
+    @Test
+    void sendOrderCommand_shouldSetMessageId() {
+        // Act
+        messageService.sendOrderCommand(new Object(), "command-1");
+        messageService.sendOrderCommand(new Object());
+
+        // Assert
+        ArgumentCaptor<MessagePostProcessor> captor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate, times(2)).convertAndSend(eq(COMMAND_EXCHANGE), eq(ORDER_COMMAND_ROUTING_KEY),
+                any(Object.class), captor.capture());
+        Message given = captor.getAllValues().get(0).postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        Message assigned = captor.getAllValues().get(1).postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        assertEquals("command-1", given.getMessageProperties().getMessageId());
+        assertNotNull(assigned.getMessageProperties().getMessageId());
+        assertNotNull(assigned.getMessageProperties().getHeader(MessageService.PUBLISHED_AT_HEADER));
     }
 
     @Test
@@ -114,7 +196,7 @@ class MessageServiceTest {
         messageService.sendOrderEvent(event);
 
         // Assert
-        verify(rabbitTemplate).convertAndSend(EVENT_EXCHANGE, ORDER_EVENT_ROUTING_KEY, event);
+        verify(rabbitTemplate).convertAndSend(eq(EVENT_EXCHANGE), eq(ORDER_EVENT_ROUTING_KEY), eq(event), any(MessagePostProcessor.class));
     }
 
     @Test
@@ -130,6 +212,161 @@ class MessageServiceTest {
         messageService.broadcastOrderMessage(message);
 
         // Assert
-        verify(rabbitTemplate).convertAndSend(BROADCAST_EXCHANGE, "", message);
+        verify(rabbitTemplate).convertAndSend(eq(BROADCAST_EXCHANGE), eq(""), eq(message), any(MessagePostProcessor.class));
+    }
+
+    @Test
+    void sendOrderEventAsync_shouldCompleteWhenBrokerConfirms() {
+        // Arrange
+        Object event = new Object();
+
+        // Act
+        CompletableFuture<Void> result = messageService.sendOrderEventAsync(event);
+
+        // Assert
+        CorrelationData correlationData = capturePublished(1);
+        assertFalse(result.isDone());
+
+        correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertDoesNotThrow(result::join);
+        assertEquals(1L, meterRegistry.timer("messaging.publish.confirm.latency").count());
+        assertEquals(0.0, meterRegistry.get("messaging.publish.in.flight").gauge().value());
+    }
+
+    @Test
+    void sendOrderEventAsync_shouldCarryEnvelopeMetadataInProperties() {
+        // Arrange
+        Object payload = new Object();
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        EventMessage<Object> event = new EventMessage<>("event-1", "request-1", createdAt, payload,
+                "OrderCreatedEvent", null, 2);
+
+        // Act
+        messageService.sendOrderEventAsync(event);
+
+        // Assert
+        ArgumentCaptor<MessagePostProcessor> captor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate).convertAndSend(eq(EVENT_EXCHANGE), eq(ORDER_EVENT_ROUTING_KEY),
+                same(payload), captor.capture(), any(CorrelationData.class));
+        Message message = captor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        MessageProperties properties = message.getMessageProperties();
+        assertEquals("event-1", properties.getMessageId());
+        assertEquals("request-1", properties.getCorrelationId());
+        assertEquals("OrderCreatedEvent", properties.getType());
+        assertEquals(APPLICATION_NAME, properties.getAppId());
+        assertEquals(2, (Integer) properties.getHeader(EventMessage.VERSION_HEADER));
+        assertEquals(Date.from(createdAt.atZone(ZoneId.systemDefault()).toInstant()), properties.getTimestamp());
+        assertNotNull(properties.getHeader(MessageService.PUBLISHED_AT_HEADER));
+    }
+
+    @Test
+    void sendOrderEventAsync_shouldWrapBareEventsInANewEnvelope() {
+        // Act
+        messageService.sendOrderEventAsync("payload");
+
+        // Assert
+        ArgumentCaptor<MessagePostProcessor> captor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate).convertAndSend(eq(EVENT_EXCHANGE), eq(ORDER_EVENT_ROUTING_KEY),
+                eq("payload"), captor.capture(), any(CorrelationData.class));
+        Message message = captor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        MessageProperties properties = message.getMessageProperties();
+        assertNotNull(properties.getMessageId());
+        assertEquals(properties.getMessageId(), properties.getCorrelationId());
+        assertEquals("String", properties.getType());
+        assertEquals(EventMessage.SCHEMA_VERSION, (Integer) properties.getHeader(EventMessage.VERSION_HEADER));
+    }
+
+    @Test
+    void sendOrderEventAsync_shouldConvertToTheContentTypeOfTheExchange() {
+        // Arrange
+        RabbitMQConfig config = new RabbitMQConfig();
+        ObjectMapper objectMapper = config.objectMapper();
+        when(rabbitTemplate.getMessageConverter()).thenReturn(config.messageConverter(
+                config.jsonMessageConverter(objectMapper), config.smileMessageConverter(objectMapper)));
+        ReflectionTestUtils.setField(messageService, "eventContentType", SmileMessageConverter.CONTENT_TYPE);
+
+        // Act
+        messageService.sendOrderEventAsync(new OrderStatusChangedEvent("order-123", OrderStatus.CREATED, OrderStatus.PAID));
+
+        // Assert - the template sends converted messages as they are
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(rabbitTemplate).convertAndSend(eq(EVENT_EXCHANGE), eq(ORDER_EVENT_ROUTING_KEY),
+                captor.capture(), any(MessagePostProcessor.class), any(CorrelationData.class));
+        Message message = assertInstanceOf(Message.class, captor.getValue());
+        assertEquals(SmileMessageConverter.CONTENT_TYPE, message.getMessageProperties().getContentType());
+    }
+
+    @Test
+    void sendOrderEventAsync_shouldFailWhenBrokerNacks() {
+        // Act
+        CompletableFuture<Void> result = messageService.sendOrderEventAsync(new Object());
+        capturePublished(1).getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+
+        // Assert
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(AmqpException.class, exception.getCause());
+        assertTrue(exception.getCause().getMessage().endsWith("queue full"));
+        assertEquals(1.0, meterRegistry.counter("messaging.publish.failures", "reason", "nack").count());
+    }
+
+    @Test
+    void sendOrderEventAsync_shouldFailWhenMessageIsReturned() {
+        // Act
+        CompletableFuture<Void> result = messageService.sendOrderEventAsync(new Object());
+        CorrelationData correlationData = capturePublished(1);
+        correlationData.setReturned(new ReturnedMessage(new Message(new byte[0], new MessageProperties()),
+                312, "NO_ROUTE", EVENT_EXCHANGE, ORDER_EVENT_ROUTING_KEY));
+        correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        // Assert
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertTrue(exception.getCause().getMessage().contains("NO_ROUTE"));
+        assertEquals(1.0, meterRegistry.counter("messaging.publish.failures", "reason", "returned").count());
+    }
+
+    @Test
+    void sendOrderEventAsync_shouldRejectSendsBeyondTheInFlightWindow() {
+        // Arrange
+        messageService.sendOrderEventAsync(new Object());
+        CorrelationData first = capturePublished(1);
+
+        // Act - the window holds one unconfirmed message
+        CompletableFuture<Void> rejected = messageService.sendOrderEventAsync(new Object());
+
+        // Assert
+        assertThrows(CompletionException.class, rejected::join);
+        assertEquals(1.0, meterRegistry.counter("messaging.publish.failures", "reason", "window-full").count());
+
+        // Act - the confirm frees the slot
+        first.getFuture().complete(new CorrelationData.Confirm(true, null));
+        messageService.sendOrderEventAsync(new Object());
+
+        // Assert
+        capturePublished(2);
+    }
+
+    @Test
+    void sendOrderEventAsync_shouldFailAndFreeTheSlotWhenPublishThrows() {
+        // Arrange
+        doThrow(new AmqpConnectException(new java.net.ConnectException("Broker unavailable")))
+                .doNothing()
+                .when(rabbitTemplate).convertAndSend(eq(EVENT_EXCHANGE), eq(ORDER_EVENT_ROUTING_KEY), any(Object.class),
+                        any(MessagePostProcessor.class), any(CorrelationData.class));
+
+        // Act
+        CompletableFuture<Void> failed = messageService.sendOrderEventAsync(new Object());
+        CompletableFuture<Void> next = messageService.sendOrderEventAsync(new Object());
+
+        // Assert
+        assertInstanceOf(AmqpConnectException.class, assertThrows(CompletionException.class, failed::join).getCause());
+        assertFalse(next.isDone());
+    }
+
+    // Helper methods
+    private CorrelationData capturePublished(int times) {
+        ArgumentCaptor<CorrelationData> captor = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, times(times)).convertAndSend(eq(EVENT_EXCHANGE), eq(ORDER_EVENT_ROUTING_KEY),
+                any(Object.class), any(MessagePostProcessor.class), captor.capture());
+        return captor.getValue();
     }
 }
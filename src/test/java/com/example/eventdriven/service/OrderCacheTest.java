@@ -0,0 +1,207 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderItem;
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.event.OrderInvalidatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCacheTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    @Mock
+    private MessageService messageService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderCache orderCache;
+    private Order order;
+    private AtomicInteger loads;
+    private List<Runnable> published;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        published = new ArrayList<>();
+        orderCache = new OrderCache(messageService, meterRegistry, 100, TIME_TO_LIVE, published::add);
+        order = new Order("customer-123", "123 Test Street, Test City");
+        order.addItem(new OrderItem("product-1", "Product 1", 2, new BigDecimal("10.00")));
+        loads = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_shouldLoadOnceAndReturnIndependentCopies() {
+        // Act
+        Order first = orderCache.get(order.getId(), this::load).orElseThrow();
+        Order second = orderCache.get(order.getId(), this::load).orElseThrow();
+        second.setStatus(OrderStatus.PAID);
+        second.getItems().clear();
+        Order third = orderCache.get(order.getId(), this::load).orElseThrow();
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertSame(order, first);
+        assertNotSame(second, third);
+        assertEquals(OrderStatus.CREATED, third.getStatus());
+        assertEquals(1, third.getItems().size());
+        assertSame(third, third.getItems().get(0).getOrder());
+        assertEquals(new BigDecimal("20.00"), third.getTotalAmount());
+        assertFalse(third.isNew());
+
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "orders").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "orders").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_shouldNotCacheMissingOrders() {
+        // Act
+        orderCache.get("missing", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        Optional<Order> result = orderCache.get("missing", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        // Assert
+        assertTrue(result.isEmpty());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_shouldNotCacheLoadThatOverlapsInvalidation() {
+        // Act - the order changes while it is being loaded
+        orderCache.get(order.getId(), id -> {
+            orderCache.invalidate(id);
+            return load(id);
+        });
+        orderCache.get(order.getId(), this::load);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_shouldEvictAndBroadcastWithoutTransaction() {
+        // Arrange
+        orderCache.get(order.getId(), this::load);
+
+        // Act
+        orderCache.invalidate(order.getId());
+        orderCache.get(order.getId(), this::load);
+
+        // Assert
+        assertEquals(2, loads.get());
+        verifyNoInteractions(messageService);
+        publishPending();
+        ArgumentCaptor<OrderInvalidatedEvent> captor = ArgumentCaptor.forClass(OrderInvalidatedEvent.class);
+        verify(messageService).sendInvalidation(captor.capture(), eq(TIME_TO_LIVE));
+        assertEquals(order.getId(), captor.getValue().getOrderId());
+        assertEquals(1.0, meterRegistry.counter("order.cache.invalidations", "source", "local").count());
+    }
+
+    @Test
+    void invalidate_shouldBroadcastOnlyAfterCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        orderCache.invalidate(order.getId());
+
+        // Assert
+        assertTrue(published.isEmpty());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verifyNoInteractions(messageService);
+        publishPending();
+        verify(messageService).sendInvalidation(any(OrderInvalidatedEvent.class), eq(TIME_TO_LIVE));
+    }
+
+    @Test
+    void invalidate_shouldIgnoreBroadcastFailures() {
+        // Arrange
+        doThrow(new RuntimeException("Broker unavailable"))
+                .when(messageService).sendInvalidation(any(), any(Duration.class));
+
+        orderCache.invalidate(order.getId());
+
+        // Act & Assert
+        assertDoesNotThrow(this::publishPending);
+    }
+
+    @Test
+    void invalidate_shouldEvictAndCountDropWhenTooManyArePending() {
+        // Arrange
+        orderCache = new OrderCache(messageService, meterRegistry, 100, TIME_TO_LIVE, task -> {
+            throw new RejectedExecutionException("Queue full");
+        });
+        orderCache.get(order.getId(), this::load);
+
+        // Act
+        orderCache.invalidate(order.getId());
+        orderCache.get(order.getId(), this::load);
+
+        // Assert
+        assertEquals(2, loads.get());
+        verifyNoInteractions(messageService);
+        assertEquals(1.0, meterRegistry.counter("order.cache.invalidations.dropped").count());
+    }
+
+    @Test
+    void evictFromBroadcast_shouldDropEntryWithoutBroadcastingAgain() {
+        // Arrange
+        orderCache.get(order.getId(), this::load);
+
+        // Act
+        orderCache.evictFromBroadcast(order.getId());
+        orderCache.get(order.getId(), this::load);
+
+        // Assert
+        assertEquals(2, loads.get());
+        verifyNoInteractions(messageService);
+        assertEquals(1.0, meterRegistry.counter("order.cache.invalidations", "source", "broadcast").count());
+    }
+
+    // Helper methods
+    private void publishPending() {
+        published.forEach(Runnable::run);
+        published.clear();
+    }
+
+    private Optional<Order> load(String orderId) {
+        loads.incrementAndGet();
+        return Optional.of(order);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.ProcessedCommand;
+import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.example.eventdriven.model.command.UpdateOrderStatusCommand;
+import com.example.eventdriven.repository.ProcessedCommandRepository;
+import com.example.eventdriven.service.OrderCommandService.IdentifiedCommand;
+import com.example.eventdriven.service.OrderCommandService.Outcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCommandServiceTest {
+
+    private static final String ORDER_1 = "0190a6e2-7c3b-7d4e-8f01-23456789abc1";
+    private static final String ORDER_2 = "0190a6e2-7c3b-7d4e-8f01-23456789abc2";
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private ProcessedCommandRepository processedCommandRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderCommandService orderCommandService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        orderCommandService = new OrderCommandService(
+                orderService,
+                processedCommandRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                mock(PlatformTransactionManager.class),
+                meterRegistry,
+                Duration.ofDays(7));
+    }
+
+    @Test
+    void apply_shouldStoreCreatesTogetherAndChangeEachOrderOnce() {
+        // Arrange
+        when(orderService.updateOrderStatuses(eq(ORDER_1), anyList())).thenReturn(List.of(true, false));
+        when(orderService.updateOrderStatuses(eq(ORDER_2), anyList())).thenReturn(List.of(true));
+        List<IdentifiedCommand> commands = List.of(
+                new IdentifiedCommand("m1", createOrderCommand("customer-1")),
+                new IdentifiedCommand("m2", new UpdateOrderStatusCommand(ORDER_1, OrderStatus.PAID)),
+                new IdentifiedCommand("m3", createOrderCommand("customer-2")),
+                new IdentifiedCommand("m4", new UpdateOrderStatusCommand(ORDER_2, OrderStatus.PAID)),
+                new IdentifiedCommand("m5", new UpdateOrderStatusCommand(ORDER_1, OrderStatus.DELIVERED)));
+
+        // Act
+        List<Outcome> outcomes = orderCommandService.apply(commands);
+
+        // Assert
+        assertEquals(List.of(Outcome.APPLIED, Outcome.APPLIED, Outcome.APPLIED, Outcome.APPLIED, Outcome.REJECTED),
+                outcomes);
+        verify(orderService).createOrders(argThat(creates -> creates.size() == 2));
+        verify(orderService).updateOrderStatuses(ORDER_1, List.of(OrderStatus.PAID, OrderStatus.DELIVERED));
+        verify(orderService).updateOrderStatuses(ORDER_2, List.of(OrderStatus.PAID));
+        assertEquals(List.of("m1", "m2", "m3", "m4", "m5"), savedMessageIds());
+        assertEquals(4.0, meterRegistry.counter("orders.commands", "outcome", "applied").count());
+        assertEquals(1.0, meterRegistry.counter("orders.commands", "outcome", "rejected").count());
+    }
+
+    @Test
+    void apply_shouldSkipMessageIdsAlreadyProcessedOrRepeated() {
+        // Arrange
+        when(processedCommandRepository.findAllById(List.of("m1", "m2", "m2")))
+                .thenReturn(List.of(new ProcessedCommand("m1")));
+        List<IdentifiedCommand> commands = List.of(
+                new IdentifiedCommand("m1", createOrderCommand("customer-1")),
+                new IdentifiedCommand("m2", createOrderCommand("customer-2")),
+                new IdentifiedCommand("m2", createOrderCommand("customer-2")));
+
+        // Act
+        List<Outcome> outcomes = orderCommandService.apply(commands);
+
+        // Assert
+        assertEquals(List.of(Outcome.DUPLICATE, Outcome.APPLIED, Outcome.DUPLICATE), outcomes);
+        verify(orderService).createOrders(argThat(creates -> creates.size() == 1));
+        assertEquals(List.of("m2"), savedMessageIds());
+        assertEquals(2.0, meterRegistry.counter("orders.commands", "outcome", "duplicate").count());
+    }
+
+    @Test
+    void apply_shouldRejectInvalidAndUnsupportedCommands() {
+        // Arrange
+        List<IdentifiedCommand> commands = List.of(
+                new IdentifiedCommand("m1", new CreateOrderCommand("customer-1", "", List.of())),
+                new IdentifiedCommand("m2", new UpdateOrderStatusCommand(ORDER_1, null)),
+                new IdentifiedCommand("m3", "not a command"));
+
+        // Act
+        List<Outcome> outcomes = orderCommandService.apply(commands);
+
+        // Assert
+        assertEquals(List.of(Outcome.REJECTED, Outcome.REJECTED, Outcome.REJECTED), outcomes);
+        verifyNoInteractions(orderService);
+        assertEquals(List.of("m1", "m2", "m3"), savedMessageIds());
+    }
+
+    @Test
+    void apply_shouldApplyCommandsOneAtATimeWhenBatchFails() {
+        // Arrange - the status change keeps losing to concurrent changes
+        when(orderService.updateOrderStatuses(eq(ORDER_1), anyList()))
+                .thenThrow(new OptimisticLockingFailureException("Order changed concurrently"));
+        List<IdentifiedCommand> commands = List.of(
+                new IdentifiedCommand("m1", createOrderCommand("customer-1")),
+                new IdentifiedCommand("m2", new UpdateOrderStatusCommand(ORDER_1, OrderStatus.PAID)));
+
+        // Act
+        List<Outcome> outcomes = orderCommandService.apply(commands);
+
+        // Assert
+        assertEquals(List.of(Outcome.APPLIED, Outcome.FAILED), outcomes);
+        verify(orderService, times(2)).createOrders(anyList());
+        verify(orderService, times(2)).updateOrderStatuses(eq(ORDER_1), anyList());
+        assertEquals(1.0, meterRegistry.counter("orders.commands", "outcome", "applied").count());
+        assertEquals(1.0, meterRegistry.counter("orders.commands", "outcome", "failed").count());
+    }
+
+    @Test
+    void purgeProcessedCommands_shouldDeleteIdsOlderThanRetention() {
+        // Act
+        orderCommandService.purgeProcessedCommands();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> captor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(processedCommandRepository).deleteProcessedBefore(captor.capture());
+        LocalDateTime expected = LocalDateTime.now().minusDays(7);
+        assertTrue(Duration.between(captor.getValue(), expected).abs().toSeconds() < 5);
+    }
+
+    // Helper methods
+    @SuppressWarnings("unchecked")
+    private List<String> savedMessageIds() {
+        ArgumentCaptor<Iterable<ProcessedCommand>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(processedCommandRepository, atLeastOnce()).saveAll(captor.capture());
+        return ((List<ProcessedCommand>) captor.getValue()).stream()
+                .map(ProcessedCommand::getId)
+                .toList();
+    }
+
+    private CreateOrderCommand createOrderCommand(String customerId) {
+        return new CreateOrderCommand(customerId, "123 Test Street, Test City", List.of(
+                new CreateOrderCommand.OrderItemDto("product-1", "Product 1", 2, new BigDecimal("10.00"))));
+    }
+}
@@ -1,40 +1,69 @@
 package com.example.eventdriven.service;
 
 import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderCursor;
 import com.example.eventdriven.model.OrderItem;
+import com.example.eventdriven.model.OrderPage;
 import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.OrderStatusTransitions;
+import com.example.eventdriven.model.OrderWorkflows;
 import com.example.eventdriven.model.command.CreateOrderCommand;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.example.eventdriven.model.event.OrderInvalidatedEvent;
 import com.example.eventdriven.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class OrderServiceImplTest {
 
+    private static final String ORDER_ID = "0190a6e2-7c3b-7d4e-8f01-23456789abcd";
+    private static final int MAX_STATUS_UPDATE_ATTEMPTS = 3;
+
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private EntityManager entityManager;
+
     @Mock
     private MessageService messageService;
 
+    private SimpleMeterRegistry meterRegistry;
     private OrderServiceImpl orderService;
 
     @BeforeEach
     void setUp() {
-        orderService = new OrderServiceImpl(orderRepository, messageService);
+        meterRegistry = new SimpleMeterRegistry();
+        OrderCache orderCache = new OrderCache(messageService, meterRegistry, 100, Duration.ofMinutes(1), Runnable::run);
+        orderService = new OrderServiceImpl(orderRepository, outboxService, orderCache, entityManager,
+                OrderWorkflows.standard(), meterRegistry, MAX_STATUS_UPDATE_ATTEMPTS);
     }
 
     @Test
@@ -64,15 +93,33 @@ class OrderServiceImplTest {
         assertEquals(OrderStatus.CREATED, result.getStatus());
 
         verify(orderRepository).save(any(Order.class));
-        verify(messageService).sendOrderEvent(any());
+        verify(outboxService).enqueueNewOrderEvent(any(), any());
+    }
+
+    @Test
+    void createOrders_shouldSaveAllOrdersAndQueueOneEventPerOrder() {
+        // Arrange
+        List<CreateOrderCommand> commands = List.of(createSampleOrderCommand(), createSampleOrderCommand());
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<Order> result = orderService.createOrders(commands);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(new BigDecimal("35.50"), result.get(0).getTotalAmount());
+        verify(orderRepository).saveAll(anyList());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(outboxService).enqueueNewOrderEvent(eq(result.get(0).getId()), any(OrderCreatedEvent.class));
+        verify(outboxService).enqueueNewOrderEvent(eq(result.get(1).getId()), any(OrderCreatedEvent.class));
     }
 
     @Test
     void getOrderById_shouldReturnOrder() {
         // Arrange
-        String orderId = "order-123";
+        String orderId = ORDER_ID;
         Order order = createSampleOrder();
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(orderRepository.findWithItemsById(orderId)).thenReturn(Optional.of(order));
 
         // Act
         Optional<Order> result = orderService.getOrderById(orderId);
@@ -80,7 +127,38 @@ class OrderServiceImplTest {
         // Assert
         assertTrue(result.isPresent());
         assertEquals(order, result.get());
-        verify(orderRepository).findById(orderId);
+        verify(orderRepository).findWithItemsById(orderId);
+    }
+
+    @Test
+    void getOrderById_shouldReturnEmptyForMalformedId() {
+        // Act
+        Optional<Order> result = orderService.getOrderById("order-123");
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(orderRepository, never()).findById(any());
+        verify(orderRepository, never()).findWithItemsById(any());
+    }
+
+    @Test
+    void getOrderById_shouldServeRepeatedReadsFromCacheUntilOrderChanges() {
+        // Arrange
+        String orderId = ORDER_ID;
+        Order order = createSampleOrder();
+        givenStoredOrder(order);
+
+        // Act
+        orderService.getOrderById(orderId);
+        orderService.getOrderById(orderId);
+        orderService.updateOrderStatus(orderId, OrderStatus.PAID);
+        Optional<Order> result = orderService.getOrderById(orderId);
+
+        // Assert
+        assertEquals(OrderStatus.PAID, result.orElseThrow().getStatus());
+        // The first read, the order returned by the update and the read after the change
+        verify(orderRepository, times(3)).findWithItemsById(orderId);
+        verify(messageService).sendInvalidation(any(OrderInvalidatedEvent.class), any(Duration.class));
     }
 
     @Test
@@ -98,112 +176,280 @@ class OrderServiceImplTest {
         verify(orderRepository).findByCustomerId(customerId);
     }
 
+    @Test
+    void getOrdersByCustomerIdPage_shouldReturnCursorWhenMoreOrdersFollow() {
+        // Arrange
+        String customerId = "customer-123";
+        List<Order> orders = List.of(createSampleOrder(), createSampleOrder(), createSampleOrder());
+        when(orderRepository.findByCustomerIdOrderByCreatedAtAscIdAsc(customerId, Limit.of(3))).thenReturn(orders);
+
+        // Act
+        OrderPage page = orderService.getOrdersByCustomerId(customerId, null, 2);
+
+        // Assert
+        assertEquals(2, page.getOrders().size());
+        OrderCursor cursor = OrderCursor.decode(page.getNextCursor());
+        assertEquals(orders.get(1).getId(), cursor.getOrderId());
+        assertEquals(orders.get(1).getCreatedAt(), cursor.getCreatedAt());
+    }
+
+    @Test
+    void getOrdersByCustomerIdPage_shouldContinueAfterCursorAndEndWithoutCursor() {
+        // Arrange
+        String customerId = "customer-123";
+        Order previous = createSampleOrder();
+        String cursor = OrderCursor.after(previous).encode();
+        when(orderRepository.findPageAfter(customerId, previous.getCreatedAt(), previous.getId(), Limit.of(3)))
+                .thenReturn(List.of(createSampleOrder()));
+
+        // Act
+        OrderPage page = orderService.getOrdersByCustomerId(customerId, cursor, 2);
+
+        // Assert
+        assertEquals(1, page.getOrders().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getOrdersByCustomerIdPage_shouldRejectInvalidCursorAndLimit() {
+        assertThrows(IllegalArgumentException.class, () ->
+                orderService.getOrdersByCustomerId("customer-123", "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () ->
+                orderService.getOrdersByCustomerId("customer-123", null, OrderServiceImpl.MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void streamOrdersByCustomerId_shouldPassEachOrderAndDetachIt() {
+        // Arrange
+        List<Order> orders = List.of(createSampleOrder(), createSampleOrder());
+        when(orderRepository.streamByCustomerId("customer-123")).thenReturn(orders.stream());
+        List<Order> received = new ArrayList<>();
+
+        // Act
+        orderService.streamOrdersByCustomerId("customer-123", received::add);
+
+        // Assert
+        assertEquals(orders, received);
+        verify(entityManager, times(2)).detach(any(Order.class));
+    }
+
     @Test
     void updateOrderStatus_shouldUpdateStatusAndPublishEvent() {
         // Arrange
-        String orderId = "order-123";
+        String orderId = ORDER_ID;
         Order order = createSampleOrder();
         order.setStatus(OrderStatus.CREATED);
-
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        givenStoredOrder(order);
 
         // Act
         Order result = orderService.updateOrderStatus(orderId, OrderStatus.PAID);
 
         // Assert
         assertEquals(OrderStatus.PAID, result.getStatus());
-        verify(orderRepository).findById(orderId);
-        verify(orderRepository).save(order);
-        verify(messageService).sendOrderEvent(any());
+        verify(orderRepository).updateStatus(eq(orderId), eq(OrderStatus.CREATED), eq(OrderStatus.PAID), any());
+        verify(orderRepository, never()).findById(any());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(outboxService).enqueueOrderEvent(any(), any());
+        assertEquals(1.0, meterRegistry.counter("orders.status.transitions", "from", "CREATED", "to", "PAID").count());
     }
 
     @Test
     void updateOrderStatus_shouldThrowExceptionForInvalidTransition() {
         // Arrange
-        String orderId = "order-123";
-        Order order = createSampleOrder();
-        order.setStatus(OrderStatus.CREATED);
-
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        String orderId = ORDER_ID;
+        when(orderRepository.findStatusById(orderId)).thenReturn(Optional.of(OrderStatus.CREATED));
 
         // Act & Assert
         Exception exception = assertThrows(IllegalArgumentException.class, () ->
                 orderService.updateOrderStatus(orderId, OrderStatus.DELIVERED));
 
         assertTrue(exception.getMessage().contains("Invalid status transition"));
-        verify(orderRepository).findById(orderId);
-        verify(orderRepository, never()).save(any(Order.class));
-        verify(messageService, never()).sendOrderEvent(any());
+        verify(orderRepository, never()).updateStatus(any(), any(), any(), any());
+        verify(outboxService, never()).enqueueOrderEvent(any(), any());
     }
 
     @Test
     void updateOrderStatus_shouldThrowExceptionWhenOrderNotFound() {
         // Arrange
-        String orderId = "order-123";
-        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+        String orderId = ORDER_ID;
+        when(orderRepository.findStatusById(orderId)).thenReturn(Optional.empty());
 
         // Act & Assert
         Exception exception = assertThrows(IllegalArgumentException.class, () ->
                 orderService.updateOrderStatus(orderId, OrderStatus.PAID));
 
         assertTrue(exception.getMessage().contains("Order not found"));
-        verify(orderRepository).findById(orderId);
-        verify(orderRepository, never()).save(any(Order.class));
+        verify(orderRepository, never()).updateStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void updateOrderStatus_shouldRecheckTransitionWhenOrderChangedConcurrently() {
+        // Arrange - the order is paid between reading its status and updating it
+        String orderId = ORDER_ID;
+        Order order = createSampleOrder();
+        givenStoredOrder(order);
+        when(orderRepository.findStatusById(orderId))
+                .thenAnswer(invocation -> {
+                    Optional<OrderStatus> status = Optional.of(order.getStatus());
+                    order.setStatus(OrderStatus.PAID);
+                    return status;
+                })
+                .thenAnswer(invocation -> Optional.of(order.getStatus()));
+
+        // Act
+        Order result = orderService.cancelOrder(orderId);
+
+        // Assert
+        assertEquals(OrderStatus.CANCELLED, result.getStatus());
+        verify(orderRepository).updateStatus(eq(orderId), eq(OrderStatus.CREATED), eq(OrderStatus.CANCELLED), any());
+        verify(orderRepository).updateStatus(eq(orderId), eq(OrderStatus.PAID), eq(OrderStatus.CANCELLED), any());
+        assertEquals(1.0, meterRegistry.counter("orders.status.transitions", "from", "PAID", "to", "CANCELLED").count());
+        assertEquals(1.0, meterRegistry.counter("orders.status.conflicts", "outcome", "retried").count());
+        assertEquals(0.0, meterRegistry.counter("orders.status.conflicts", "outcome", "failed").count());
+    }
+
+    @Test
+    void updateOrderStatus_shouldRejectTransitionThatBecameInvalidConcurrently() {
+        // Arrange - another request pays the order first
+        String orderId = ORDER_ID;
+        when(orderRepository.findStatusById(orderId))
+                .thenReturn(Optional.of(OrderStatus.CREATED))
+                .thenReturn(Optional.of(OrderStatus.PAID));
+        when(orderRepository.updateStatus(eq(orderId), any(), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                orderService.updateOrderStatus(orderId, OrderStatus.PAID));
+
+        assertTrue(exception.getMessage().contains("Invalid status transition from PAID"));
+        verify(orderRepository, times(1)).updateStatus(any(), any(), any(), any());
+        verify(outboxService, never()).enqueueOrderEvent(any(), any());
+    }
+
+    @Test
+    void updateOrderStatus_shouldGiveUpAfterMaxAttempts() {
+        // Arrange - the status keeps changing between reading and updating it
+        String orderId = ORDER_ID;
+        when(orderRepository.findStatusById(orderId)).thenReturn(Optional.of(OrderStatus.PAID));
+        when(orderRepository.updateStatus(eq(orderId), any(), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> orderService.cancelOrder(orderId));
+
+        verify(orderRepository, times(MAX_STATUS_UPDATE_ATTEMPTS)).updateStatus(any(), any(), any(), any());
+        verify(outboxService, never()).enqueueOrderEvent(any(), any());
+        verify(messageService, never()).sendInvalidation(any(), any(Duration.class));
+        assertEquals(MAX_STATUS_UPDATE_ATTEMPTS - 1.0,
+                meterRegistry.counter("orders.status.conflicts", "outcome", "retried").count());
+        assertEquals(1.0, meterRegistry.counter("orders.status.conflicts", "outcome", "failed").count());
+    }
+
+    @Test
+    void updateOrderStatuses_shouldSkipDisallowedStatusesAndUpdateOnce() {
+        // Arrange
+        Order order = createSampleOrder();
+        givenStoredOrder(order);
+
+        // Act
+        List<Boolean> applied = orderService.updateOrderStatuses(ORDER_ID,
+                List.of(OrderStatus.PAID, OrderStatus.DELIVERED, OrderStatus.PROCESSING));
+
+        // Assert
+        assertEquals(List.of(true, false, true), applied);
+        assertEquals(OrderStatus.PROCESSING, order.getStatus());
+        verify(orderRepository).updateStatus(eq(ORDER_ID), eq(OrderStatus.CREATED), eq(OrderStatus.PROCESSING), any());
+        verify(outboxService, times(2)).enqueueOrderEvent(eq(ORDER_ID), any());
+        assertEquals(1.0, meterRegistry.counter("orders.status.transitions", "from", "CREATED", "to", "PAID").count());
+        assertEquals(1.0, meterRegistry.counter("orders.status.transitions", "from", "PAID", "to", "PROCESSING").count());
+    }
+
+    @Test
+    void updateOrderStatuses_shouldApplyNothingWhenOrderNotFound() {
+        // Arrange
+        when(orderRepository.findStatusById(ORDER_ID)).thenReturn(Optional.empty());
+
+        // Act
+        List<Boolean> applied = orderService.updateOrderStatuses(ORDER_ID, List.of(OrderStatus.PAID));
+
+        // Assert
+        assertEquals(List.of(false), applied);
+        verify(orderRepository, never()).updateStatus(any(), any(), any(), any());
     }
 
     @Test
     void cancelOrder_shouldCancelOrder() {
         // Arrange
-        String orderId = "order-123";
+        String orderId = ORDER_ID;
         Order order = createSampleOrder();
         order.setStatus(OrderStatus.CREATED);
-
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        givenStoredOrder(order);
 
         // Act
         Order result = orderService.cancelOrder(orderId);
 
         // Assert
         assertEquals(OrderStatus.CANCELLED, result.getStatus());
-        verify(orderRepository).findById(orderId);
-        verify(orderRepository).save(order);
-        verify(messageService).sendOrderEvent(any());
+        verify(orderRepository).updateStatus(eq(orderId), eq(OrderStatus.CREATED), eq(OrderStatus.CANCELLED), any());
+        verify(outboxService).enqueueOrderEvent(any(), any());
     }
 
     @Test
     void cancelOrder_shouldThrowExceptionWhenOrderCannotBeCancelled() {
         // Arrange
-        String orderId = "order-123";
-        Order order = createSampleOrder();
-        order.setStatus(OrderStatus.DELIVERED);
-
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        String orderId = ORDER_ID;
+        when(orderRepository.findStatusById(orderId)).thenReturn(Optional.of(OrderStatus.DELIVERED));
 
         // Act & Assert
         Exception exception = assertThrows(IllegalArgumentException.class, () ->
                 orderService.cancelOrder(orderId));
 
         assertTrue(exception.getMessage().contains("Cannot cancel order"));
-        verify(orderRepository).findById(orderId);
-        verify(orderRepository, never()).save(any(Order.class));
-        verify(messageService, never()).sendOrderEvent(any());
+        verify(orderRepository, never()).updateStatus(any(), any(), any(), any());
+        verify(outboxService, never()).enqueueOrderEvent(any(), any());
+    }
+
+    @Test
+    void cancelOrder_shouldFollowDefaultWorkflowFromConfiguration() {
+        // Arrange - a workflow that also allows cancelling shipped orders
+        Map<OrderStatus, Set<OrderStatus>> transitions = new EnumMap<>(OrderStatusTransitions.DEFAULT.toMap());
+        transitions.get(OrderStatus.SHIPPED).add(OrderStatus.CANCELLED);
+        OrderCache orderCache = new OrderCache(messageService, meterRegistry, 100, Duration.ofMinutes(1), Runnable::run);
+        orderService = new OrderServiceImpl(orderRepository, outboxService, orderCache, entityManager,
+                new OrderWorkflows(Map.of(OrderWorkflows.DEFAULT, OrderStatusTransitions.of(transitions))),
+                meterRegistry, MAX_STATUS_UPDATE_ATTEMPTS);
+
+        Order order = createSampleOrder();
+        order.setStatus(OrderStatus.SHIPPED);
+        givenStoredOrder(order);
+
+        // Act
+        Order result = orderService.cancelOrder(ORDER_ID);
+
+        // Assert
+        assertEquals(OrderStatus.CANCELLED, result.getStatus());
     }
 
     @Test
     void cancelOrder_shouldThrowExceptionWhenOrderNotFound() {
         // Arrange
-        String orderId = "order-123";
-        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+        String orderId = ORDER_ID;
+        when(orderRepository.findStatusById(orderId)).thenReturn(Optional.empty());
 
         // Act & Assert
         Exception exception = assertThrows(IllegalArgumentException.class, () ->
                 orderService.cancelOrder(orderId));
 
         assertTrue(exception.getMessage().contains("Order not found"));
-        verify(orderRepository).findById(orderId);
-        verify(orderRepository, never()).save(any(Order.class));
+        verify(orderRepository, never()).updateStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void constructor_shouldRegisterOneTransitionCounterPerAllowedTransition() {
+        // Assert
+        assertEquals(8, meterRegistry.find("orders.status.transitions").counters().size());
+        assertEquals(0.0, meterRegistry.counter("orders.status.transitions", "from", "DELIVERED", "to", "REFUNDED").count());
+        assertNull(meterRegistry.find("orders.status.transitions").tag("from", "CREATED").tag("to", "SHIPPED").counter());
     }
 
     // Helper methods
@@ -220,6 +466,23 @@ class OrderServiceImplTest {
         );
     }
 
+    /**
+     * Let the repository serve the order and apply conditional status updates to it
+     */
+    private void givenStoredOrder(Order order) {
+        lenient().when(orderRepository.findStatusById(ORDER_ID))
+                .thenAnswer(invocation -> Optional.of(order.getStatus()));
+        lenient().when(orderRepository.updateStatus(eq(ORDER_ID), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    if (order.getStatus() != invocation.getArgument(1)) {
+                        return 0;
+                    }
+                    order.updateStatus(invocation.getArgument(2));
+                    return 1;
+                });
+        lenient().when(orderRepository.findWithItemsById(ORDER_ID)).thenReturn(Optional.of(order));
+    }
+
     private Order createSampleOrder() {
         Order order = new Order("customer-123", "123 Test Street, Test City");
         order.addItem(new OrderItem("product-1", "Product 1", 2, new BigDecimal("10.00")));
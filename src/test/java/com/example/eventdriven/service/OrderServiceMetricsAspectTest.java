@@ -0,0 +1,65 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.model.Order;
+import com.example.eventdriven.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceMetricsAspectTest {
+
+    @Mock
+    private OrderService target;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new OrderServiceMetricsAspect(meterRegistry));
+        orderService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void time_shouldRecordEachOperationWithItsOutcome() {
+        // Arrange
+        when(target.getOrderById("order-1")).thenReturn(Optional.empty());
+        when(target.updateOrderStatus("order-1", OrderStatus.PAID))
+                .thenThrow(new IllegalArgumentException("Order not found with ID: order-1"));
+
+        // Act
+        orderService.getOrderById("order-1");
+        orderService.getOrderById("order-1");
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateOrderStatus("order-1", OrderStatus.PAID));
+
+        // Assert
+        assertEquals(2, meterRegistry.get("orders.service.duration")
+                .tags("operation", "getOrderById", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("orders.service.duration")
+                .tags("operation", "updateOrderStatus", "outcome", "failure").timer().count());
+        assertEquals(0, meterRegistry.get("orders.service.duration")
+                .tags("operation", "updateOrderStatus", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void time_shouldReturnTheResultOfTheOperation() {
+        // Arrange
+        Order order = new Order("customer-123", "123 Test Street, Test City");
+        when(target.getOrderById(order.getId())).thenReturn(Optional.of(order));
+
+        // Act & Assert
+        assertSame(order, orderService.getOrderById(order.getId()).orElseThrow());
+    }
+}
@@ -0,0 +1,462 @@
+package com.example.eventdriven.service;
+
+import com.example.eventdriven.config.InMemoryRabbitTemplate;
+import com.example.eventdriven.model.OrderStatus;
+import com.example.eventdriven.model.OutboxMessage;
+import com.example.eventdriven.model.event.EventMessage;
+import com.example.eventdriven.model.event.OrderCreatedEvent;
+import com.example.eventdriven.model.event.OrderStatusChangedEvent;
+import com.example.eventdriven.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.slf4j.MDC;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for OutboxRelay using an in-process broker stand-in
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxRelayTest {
+
+    private static final String EVENT_EXCHANGE = "service.event";
+    private static final String ORDER_EVENT_ROUTING_KEY = "orders.event";
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<OutboxMessage> outbox = new ArrayList<>();
+    private final Set<Long> lockedIds = new HashSet<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ObjectMapper objectMapper;
+    private InMemoryRabbitTemplate broker;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        broker = new InMemoryRabbitTemplate(new Jackson2JsonMessageConverter(objectMapper));
+        meterRegistry = new SimpleMeterRegistry();
+        outboxService = new OutboxService(outboxMessageRepository, objectMapper);
+
+        // Back the repository mock with an in-memory table
+        when(outboxMessageRepository.save(any(OutboxMessage.class))).thenAnswer(invocation -> {
+            OutboxMessage message = invocation.getArgument(0);
+            ReflectionTestUtils.setField(message, "id", sequence.incrementAndGet());
+            outbox.add(message);
+            return message;
+        });
+        when(outboxMessageRepository.findUnclaimed(any(LocalDateTime.class), any(Limit.class))).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return outbox.stream()
+                    .filter(message -> !lockedIds.contains(message.getId()))
+                    .filter(message -> message.getClaimedUntil() == null || message.getClaimedUntil().isBefore(now))
+                    .sorted(Comparator.comparing(OutboxMessage::getId))
+                    .limit(limit.max())
+                    .toList();
+        });
+        when(outboxMessageRepository.findFirstIdsByAggregateIds(any())).thenAnswer(invocation -> {
+            Collection<String> aggregateIds = invocation.getArgument(0);
+            return outbox.stream()
+                    .filter(message -> aggregateIds.contains(message.getAggregateId()))
+                    .collect(Collectors.groupingBy(OutboxMessage::getAggregateId,
+                            Collectors.minBy(Comparator.comparingLong(OutboxMessage::getAggregateSequence))))
+                    .values().stream()
+                    .map(first -> first.orElseThrow().getId())
+                    .toList();
+        });
+        when(outboxMessageRepository.findLastSequence(any())).thenAnswer(invocation -> outbox.stream()
+                .filter(message -> message.getAggregateId().equals(invocation.getArgument(0)))
+                .map(OutboxMessage::getAggregateSequence)
+                .max(Comparator.naturalOrder()));
+        when(outboxMessageRepository.claim(any(), any())).thenAnswer(invocation ->
+                setClaimedUntil(invocation.getArgument(0), invocation.getArgument(1)));
+        when(outboxMessageRepository.release(any())).thenAnswer(invocation ->
+                setClaimedUntil(invocation.getArgument(0), null));
+        when(outboxMessageRepository.count()).thenAnswer(invocation -> (long) outbox.size());
+        doAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            outbox.removeIf(message -> ids.contains(message.getId()));
+            return null;
+        }).when(outboxMessageRepository).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void relayBatch_shouldPublishPendingEventsInOrderOfTheirOrderAndDeleteThem() {
+        // Arrange
+        outboxService.enqueueOrderEvent("order-1", createSampleOrderCreatedEvent("order-1"));
+        outboxService.enqueueOrderEvent("order-1",
+                new OrderStatusChangedEvent("order-1", OrderStatus.CREATED, OrderStatus.PAID));
+        outboxService.enqueueOrderEvent("order-2", createSampleOrderCreatedEvent("order-2"));
+        assertEquals(List.of(1L, 2L, 1L), outbox.stream().map(OutboxMessage::getAggregateSequence).toList());
+
+        // Act
+        int relayed = createRelay(10).relayBatch();
+
+        // Assert
+        assertEquals(3, relayed);
+        assertTrue(outbox.isEmpty());
+
+        List<Object> payloads = broker.getPayloads(EVENT_EXCHANGE);
+        assertEquals(3, payloads.size());
+        assertEquals("order-1", ((OrderCreatedEvent) payloads.get(0)).getOrderId());
+        assertEquals("order-2", ((OrderCreatedEvent) payloads.get(1)).getOrderId());
+        assertEquals(OrderStatus.PAID, ((OrderStatusChangedEvent) payloads.get(2)).getNewStatus());
+        assertTrue(broker.getPublished().stream()
+                .allMatch(m -> m.routingKey().equals(ORDER_EVENT_ROUTING_KEY)));
+
+        assertEquals(3.0, meterRegistry.counter("outbox.relay.published").count());
+        assertEquals(3L, meterRegistry.timer("outbox.relay.lag").count());
+    }
+
+    @Test
+    void relayBatch_shouldKeepUnpublishedEntriesWhenBrokerFails() {
+        // Arrange
+        outboxService.enqueueOrderEvent("order-1", createSampleOrderCreatedEvent("order-1"));
+        outboxService.enqueueOrderEvent("order-2", createSampleOrderCreatedEvent("order-2"));
+        outboxService.enqueueOrderEvent("order-3", createSampleOrderCreatedEvent("order-3"));
+        OutboxRelay relay = createRelay(10);
+        broker.failAfter(1);
+
+        // Act
+        int relayed = relay.relayBatch();
+
+        // Assert - the first event went out, the rest stay queued in order
+        assertEquals(1, relayed);
+        assertEquals(2, outbox.size());
+        assertEquals("order-2", outbox.get(0).getAggregateId());
+        assertTrue(outbox.stream().allMatch(message -> message.getClaimedUntil() == null));
+        assertEquals(1.0, meterRegistry.counter("outbox.relay.failures").count());
+
+        // Act - broker comes back
+        broker.recover();
+        relay.relayBatch();
+
+        // Assert
+        assertTrue(outbox.isEmpty());
+        List<Object> payloads = broker.getPayloads(EVENT_EXCHANGE);
+        assertEquals(List.of("order-1", "order-2", "order-3"), payloads.stream()
+                .map(p -> ((OrderCreatedEvent) p).getOrderId())
+                .toList());
+    }
+
+    @Test
+    void relayBatch_shouldHoldBackLaterEntriesOfAnOrderWhoseEntryWasNotConfirmed() {
+        // Arrange - the third publish, the first entry of order-2, is nacked
+        outboxService.enqueueOrderEvent("order-1", createSampleOrderCreatedEvent("order-1"));
+        outboxService.enqueueOrderEvent("order-3", createSampleOrderCreatedEvent("order-3"));
+        outboxService.enqueueOrderEvent("order-2", createSampleOrderCreatedEvent("order-2"));
+        outboxService.enqueueOrderEvent("order-2",
+                new OrderStatusChangedEvent("order-2", OrderStatus.CREATED, OrderStatus.PAID));
+        OutboxRelay relay = createRelay(10);
+        broker.nackAfter(2);
+
+        // Act
+        int relayed = relay.relayBatch();
+
+        // Assert - the status change of order-2 was not sent ahead of its creation, the other orders went on
+        assertEquals(2, relayed);
+        assertEquals(List.of("order-2", "order-2"), outbox.stream().map(OutboxMessage::getAggregateId).toList());
+        assertEquals(List.of("order-1", "order-3"), broker.getPublished().stream()
+                .map(m -> ((OrderCreatedEvent) broker.getMessageConverter().fromMessage(m.message())).getOrderId())
+                .toList());
+        assertEquals(1.0, meterRegistry.counter("outbox.relay.failures").count());
+        assertEquals(1.0, meterRegistry.counter("messaging.publish.failures", "reason", "nack").count());
+
+        // Act - the broker accepts the next attempt
+        broker.recover();
+        broker.clear();
+        relay.relayBatch();
+
+        // Assert
+        assertTrue(outbox.isEmpty());
+        List<Object> payloads = broker.getPayloads(EVENT_EXCHANGE);
+        assertEquals(2, payloads.size());
+        assertEquals("order-2", ((OrderCreatedEvent) payloads.get(0)).getOrderId());
+        assertEquals(OrderStatus.PAID, ((OrderStatusChangedEvent) payloads.get(1)).getNewStatus());
+    }
+
+    @Test
+    void relayBatch_shouldLeaveOrdersWhoseOldestEntryIsLockedByAnotherRelay() {
+        // Arrange - another relay holds the creation of order-1
+        outboxService.enqueueOrderEvent("order-1", createSampleOrderCreatedEvent("order-1"));
+        outboxService.enqueueOrderEvent("order-1",
+                new OrderStatusChangedEvent("order-1", OrderStatus.CREATED, OrderStatus.PAID));
+        outboxService.enqueueOrderEvent("order-2", createSampleOrderCreatedEvent("order-2"));
+        lockedIds.add(outbox.get(0).getId());
+
+        // Act
+        int relayed = createRelay(10).relayBatch();
+
+        // Assert
+        assertEquals(1, relayed);
+        assertEquals(List.of("order-1", "order-1"), outbox.stream().map(OutboxMessage::getAggregateId).toList());
+        List<Object> payloads = broker.getPayloads(EVENT_EXCHANGE);
+        assertEquals(1, payloads.size());
+        assertEquals("order-2", ((OrderCreatedEvent) payloads.get(0)).getOrderId());
+    }
+
+    @Test
+    void relayBatch_shouldPublishTheEntriesOfAnOrderBySequenceRatherThanId() throws Exception {
+        // Arrange - pooled IDs of two nodes put the later entry of order-1 first
+        outboxMessageRepository.save(new OutboxMessage("order-1", 2, OrderStatusChangedEvent.class.getName(),
+                objectMapper.writeValueAsString(new OrderStatusChangedEvent("order-1", OrderStatus.CREATED, OrderStatus.PAID))));
+        outboxMessageRepository.save(new OutboxMessage("order-1", 1, OrderCreatedEvent.class.getName(),
+                objectMapper.writeValueAsString(createSampleOrderCreatedEvent("order-1"))));
+
+        // Act
+        int relayed = createRelay(10).relayBatch();
+
+        // Assert
+        assertEquals(2, relayed);
+        List<Object> payloads = broker.getPayloads(EVENT_EXCHANGE);
+        assertInstanceOf(OrderCreatedEvent.class, payloads.get(0));
+        assertEquals(OrderStatus.PAID, ((OrderStatusChangedEvent) payloads.get(1)).getNewStatus());
+    }
+
+    @Test
+    void relayBatch_shouldLeaveOrdersWhoseFirstEntryIsClaimedUntilTheClaimExpires() {
+        // Arrange - another relay is publishing the creation of order-1
+        outboxService.enqueueOrderEvent("order-1", createSampleOrderCreatedEvent("order-1"));
+        outboxService.enqueueOrderEvent("order-1",
+                new OrderStatusChangedEvent("order-1", OrderStatus.CREATED, OrderStatus.PAID));
+        outboxService.enqueueOrderEvent("order-2", createSampleOrderCreatedEvent("order-2"));
+        OutboxMessage claimed = outbox.get(0);
+        ReflectionTestUtils.setField(claimed, "claimedUntil", LocalDateTime.now().plusMinutes(1));
+        OutboxRelay relay = createRelay(10);
+
+        // Act
+        int relayed = relay.relayBatch();
+
+        // Assert
+        assertEquals(1, relayed);
+        assertEquals(List.of("order-1", "order-1"), outbox.stream().map(OutboxMessage::getAggregateId).toList());
+        assertNull(outbox.get(1).getClaimedUntil());
+
+        // Act - the other relay stopped before deleting its entry
+        ReflectionTestUtils.setField(claimed, "claimedUntil", LocalDateTime.now().minusSeconds(1));
+        relayed = relay.relayBatch();
+
+        // Assert
+        assertEquals(2, relayed);
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    void relayBatch_shouldPublishOutsideTheClaimAndDeleteTransactions() {
+        // Arrange
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        List<Boolean> publishedInTransaction = new ArrayList<>();
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            return mock(TransactionStatus.class);
+        });
+        doAnswer(invocation -> {
+            inTransaction.set(false);
+            return null;
+        }).when(transactionManager).commit(any());
+        broker = new InMemoryRabbitTemplate(broker.getMessageConverter()) {
+            @Override
+            public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+                publishedInTransaction.add(inTransaction.get());
+                super.send(exchange, routingKey, message, correlationData);
+            }
+        };
+        outboxService.enqueueOrderEvent("order-1", createSampleOrderCreatedEvent("order-1"));
+        outboxService.enqueueOrderEvent("order-2", createSampleOrderCreatedEvent("order-2"));
+
+        // Act
+        createRelay(10).relayBatch();
+
+        // Assert
+        assertEquals(List.of(false, false), publishedInTransaction);
+        verify(transactionManager, times(2)).commit(any());
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    void relayBatch_shouldPublishEntriesUnderTheSameMessageIdOnEveryAttempt() {
+        // Arrange
+        outboxService.enqueueOrderEvent("order-1", createSampleOrderCreatedEvent("order-1"));
+        outboxService.enqueueOrderEvent("order-2", createSampleOrderCreatedEvent("order-2"));
+        List<String> messageIds = outbox.stream().map(OutboxMessage::getMessageId).toList();
+        OutboxRelay relay = createRelay(10);
+        broker.nackAfter(0);
+
+        // Act - the first attempt is nacked, the second goes through
+        relay.relayBatch();
+        broker.recover();
+        relay.relayBatch();
+
+        // Assert
+        assertTrue(outbox.isEmpty());
+        assertEquals(messageIds, broker.getPublished().stream()
+                .map(m -> m.message().getMessageProperties().getMessageId())
+                .toList());
+    }
+
+    @Test
+    void relayBatch_shouldCarryTheEnvelopeMetadataInMessageProperties() {
+        // Arrange - the event is stored while serving an HTTP request
+        MDC.put(OutboxService.REQUEST_ID_KEY, "request-1");
+        try {
+            outboxService.enqueueOrderEvent("order-1", createSampleOrderCreatedEvent("order-1"));
+        } finally {
+            MDC.remove(OutboxService.REQUEST_ID_KEY);
+        }
+        String messageId = outbox.get(0).getMessageId();
+
+        // Act
+        createRelay(10).relayBatch();
+
+        // Assert
+        MessageProperties properties = broker.getPublished().get(0).message().getMessageProperties();
+        assertEquals(messageId, properties.getMessageId());
+        assertEquals("request-1", properties.getCorrelationId());
+        assertEquals("OrderCreatedEvent", properties.getType());
+        assertEquals(EventMessage.SCHEMA_VERSION, (Integer) properties.getHeader(EventMessage.VERSION_HEADER));
+        assertNotNull(properties.getTimestamp());
+    }
+
+    @Test
+    void relayPendingMessages_shouldDrainOutboxInSeveralBatches() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            outboxService.enqueueOrderEvent("order-" + i, createSampleOrderCreatedEvent("order-" + i));
+        }
+
+        // Act
+        createRelay(2).relayPendingMessages();
+
+        // Assert
+        assertTrue(outbox.isEmpty());
+        assertEquals(5, broker.getPublished().size());
+        assertEquals(3L, meterRegistry.summary("outbox.relay.batch.size").count());
+    }
+
+    @Test
+    void relayPendingMessages_shouldCountTheEntriesLeftInTheOutbox() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            outboxService.enqueueOrderEvent("order-" + i, createSampleOrderCreatedEvent("order-" + i));
+        }
+        broker.failAfter(1);
+
+        // Act
+        createRelay(10).relayPendingMessages();
+
+        // Assert
+        assertEquals(2.0, meterRegistry.get("outbox.pending").gauge().value());
+    }
+
+    @Test
+    void relayBatch_shouldDiscardUnreadableEntries() {
+        // Arrange
+        OutboxMessage poison = new OutboxMessage("order-1", 1, "java.lang.Runtime", "{}");
+        outboxMessageRepository.save(poison);
+        outboxService.enqueueOrderEvent("order-2", createSampleOrderCreatedEvent("order-2"));
+
+        // Act
+        int relayed = createRelay(10).relayBatch();
+
+        // Assert
+        assertEquals(2, relayed);
+        assertTrue(outbox.isEmpty());
+        assertEquals(1, broker.getPublished().size());
+        assertEquals(1.0, meterRegistry.counter("outbox.relay.discarded").count());
+    }
+
+    @Test
+    void relayBatch_shouldDoNothingWhenOutboxIsEmpty() {
+        // Act
+        int relayed = createRelay(10).relayBatch();
+
+        // Assert
+        assertEquals(0, relayed);
+        assertTrue(broker.getPublished().isEmpty());
+    }
+
+    // Helper methods
+    private OutboxRelay createRelay(int batchSize) {
+        MessageService messageService = new MessageService(broker, meterRegistry, 100, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(messageService, "eventExchange", EVENT_EXCHANGE);
+        ReflectionTestUtils.setField(messageService, "orderEventRoutingKey", ORDER_EVENT_ROUTING_KEY);
+        ReflectionTestUtils.setField(messageService, "applicationName", "order-service");
+
+        return new OutboxRelay(
+                outboxMessageRepository,
+                messageService,
+                objectMapper,
+                transactionManager,
+                meterRegistry,
+                batchSize,
+                10,
+                Duration.ofMinutes(1),
+                Duration.ofSeconds(10)
+        );
+    }
+
+    private int setClaimedUntil(Collection<Long> ids, LocalDateTime claimedUntil) {
+        List<OutboxMessage> claimed = outbox.stream().filter(message -> ids.contains(message.getId())).toList();
+        claimed.forEach(message -> ReflectionTestUtils.setField(message, "claimedUntil", claimedUntil));
+        return claimed.size();
+    }
+
+    private OrderCreatedEvent createSampleOrderCreatedEvent(String orderId) {
+        return new OrderCreatedEvent(
+                orderId,
+                "customer-123",
+                OrderStatus.CREATED,
+                LocalDateTime.now(),
+                new BigDecimal("20.00"),
+                "123 Test Street, Test City",
+                List.of(new OrderCreatedEvent.OrderItemDto("product-1", "Product 1", 2, new BigDecimal("10.00")))
+        );
+    }
+}